@@ -25,15 +25,17 @@
 package net.nimble;
 
 import net.nimble.exceptions.NimbleException;
-import net.nimble.meta.MetaUtils;
+import net.nimble.meta.ColumnDescriptor;
+import net.nimble.meta.EntityDescriptor;
 import net.nimble.meta.mappers.ObjectMapper;
 import net.nimble.sql.ConnectionWrapper;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.SqlDialect;
+import net.nimble.sql.StatementCache;
+import net.nimble.sql.StatementTracker;
 
-import java.lang.reflect.Field;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * This class is wrapper for {@code java.sql.Connection} class. It implements additional methods for simplify
@@ -43,7 +45,18 @@ import java.util.Map;
  */
 public class NbConnection extends ConnectionWrapper {
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_PACKET_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final int MAX_MYSQL_PARAM_COUNT = 65535;
+    private static final int MAX_POSTGRES_PARAM_COUNT = 32767;
+
     private final NbContext context;
+    private final StatementTracker statementTracker;
+    private final StatementCache statementCache;
+    private Integer autoIncrementIncrement;
+    private int autoCommitSuspensions;
 
     /**
      * @param connection The connection that will be used internally for execution of queries.
@@ -52,180 +65,860 @@ public class NbConnection extends ConnectionWrapper {
     NbConnection(Connection connection, NbContext context) {
         super(connection);
         this.context = context;
+        this.statementTracker = new StatementTracker(context.isLeakDetection());
+        this.statementCache = new StatementCache(this, context.getStatementCacheSize());
     }
 
     public NbQuery query(String query) {
         return new NbQuery(query, this, context);
     }
 
+    /**
+     * Creates a query which is parsed and prepared once and can be executed many times with new values of
+     * parameters. The returned query must be closed when it is not needed anymore.
+     */
+    public NbPreparedQuery prepare(String query) {
+        return new NbPreparedQuery(query, this, context);
+    }
+
     public int insert(Object object) throws SQLException {
-        String tableName = MetaUtils.getTableName(object.getClass());
-        Map<String, Object> valueMap = MetaUtils.getColumnMap(object);
-        List<String> columnList = new ArrayList<>(valueMap.size());
+        EntityDescriptor descriptor = getDescriptor(object.getClass());
+        PreparedStatement statement = prepareCached(descriptor.getSql().getInsertSql(), true);
+        try {
+            descriptor.getBinder().bind(statement, object, 1, context.getConverterManager());
+            int result = statement.executeUpdate();
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("insert into ");
-        builder.append(tableName);
-        builder.append("(");
-        for (String columnName : valueMap.keySet()) {
-            if (columnList.size() > 0) builder.append(",");
-            builder.append(columnName);
-            columnList.add(columnName);
-        }
-        builder.append(") values (");
-        for (int i = 0; i < valueMap.size(); i++) {
-            if (i > 0) builder.append(",");
-            builder.append("?");
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                while (resultSet.next()) {
+                    Object id = resultSet.getObject(1);
+                    applyId(id, object, descriptor);
+                }
+            }
+            return result;
+        } finally {
+            releaseCached(statement);
         }
-        builder.append(")");
+    }
+
+    /**
+     * Inserts the objects with JDBC batches of the batch size set in {@link Nimble#setBatchSize(int)}.
+     * See {@link #insertAll(Collection, int)}.
+     */
+    public int insertAll(Collection<?> objects) throws SQLException {
+        return insertAll(objects, context.getBatchSize());
+    }
 
-        PreparedStatement statement = connection.prepareStatement(builder.toString(), Statement.RETURN_GENERATED_KEYS);
-        for (int i = 0; i < columnList.size(); i++) {
-            Object value =
-                    context.getConverterManager().convertToDb(valueMap.get(columnList.get(i)));
-            statement.setObject(i + 1, value);
+    /**
+     * Inserts the objects with JDBC batches. Objects are grouped by class, every group is sent in chunks of
+     * the batch size. Generated ids are set to the objects in the order of the collection. For MySQL and MariaDB
+     * a chunk is sent as one insert with a multi-row {@code VALUES} list, see
+     * {@link Nimble#setMaxPacketSize(int)}.
+     *
+     * @return Number of inserted rows
+     */
+    public int insertAll(Collection<?> objects, int batchSize) throws SQLException {
+        checkBatchSize(batchSize);
+        int result = 0;
+        for (Map.Entry<Class, List<Object>> group : groupByClass(objects).entrySet()) {
+            EntityDescriptor descriptor = getDescriptor(group.getKey());
+            List<Object> groupObjects = group.getValue();
+            if (isMultiRowInsertSupported() && !descriptor.getWritableColumns().isEmpty()) {
+                result += insertMultiRow(groupObjects, descriptor, batchSize, null);
+                continue;
+            }
+            for (int start = 0; start < groupObjects.size(); start += batchSize) {
+                List<Object> chunk = groupObjects.subList(start, Math.min(start + batchSize, groupObjects.size()));
+                result += insertBatch(chunk, descriptor);
+            }
         }
+        return result;
+    }
 
-        int result = statement.executeUpdate();
+    /**
+     * Inserts or updates the objects with the batch size set in {@link Nimble#setBatchSize(int)}, see
+     * {@link #upsertAll(Collection, int, String...)}.
+     */
+    public int upsertAll(Collection<?> objects, String... conflictColumns) throws SQLException {
+        return upsertAll(objects, context.getBatchSize(), conflictColumns);
+    }
 
-        ResultSet resultSet = statement.getGeneratedKeys();
-        while (resultSet.next()) {
-            Object id = resultSet.getObject(1);
-            MetaUtils.applyId(id, object, context.getConverterManager());
+    /**
+     * Inserts the objects or updates rows which conflict with them in one statement per chunk, with
+     * {@code INSERT ... ON CONFLICT DO UPDATE} for Postgres and {@code INSERT ... ON DUPLICATE KEY UPDATE} for
+     * MySQL and MariaDB. Chunks are sent like multi-row inserts of {@link #insertAll(Collection, int)}.
+     * A chunk must not contain two objects with the same key, Postgres rejects such chunks. Generated ids are set
+     * only for Postgres and only if every row of a chunk was inserted or updated.
+     *
+     * @param conflictColumns Columns of the unique key which detects conflicts, the id column by default. They are
+     *                        required for entities with generated id, see
+     *                        {@link net.nimble.meta.EntitySql#getUpsertClause(SqlDialect, String[])}.
+     * @return Number of affected rows as reported by the database, MySQL counts an updated row as two
+     */
+    public int upsertAll(Collection<?> objects, int batchSize, String... conflictColumns) throws SQLException {
+        checkBatchSize(batchSize);
+        if (!isMultiRowInsertSupported() && context.getDialect() != SqlDialect.POSTGRES) {
+            throw new NimbleException("Upsert isn't supported by " + context.getDialect());
         }
+        int result = 0;
+        for (Map.Entry<Class, List<Object>> group : groupByClass(objects).entrySet()) {
+            EntityDescriptor descriptor = getDescriptor(group.getKey());
+            if (descriptor.getWritableColumns().isEmpty()) {
+                throw new NimbleException("Can't upsert " + group.getKey().getName() + " without writable columns");
+            }
+            String upsertClause = descriptor.getSql().getUpsertClause(context.getDialect(), conflictColumns);
+            result += insertMultiRow(group.getValue(), descriptor, batchSize, upsertClause);
+        }
+        return result;
+    }
+
+    private boolean isMultiRowInsertSupported() {
+        return context.getDialect() == SqlDialect.MYSQL || context.getDialect() == SqlDialect.MARIADB;
+    }
 
+    /**
+     * Sends chunks of at most the batch size rows limited by the parameter count and the packet size. A chunk cut
+     * by the packet size or by the end of the objects is rounded down to a power of two, so a group is sent with
+     * a few SQL texts which statement caches of the connection and the server can reuse: the full chunk and
+     * powers of two below it.
+     */
+    private int insertMultiRow(List<Object> objects, EntityDescriptor descriptor, int batchSize,
+                               String upsertClause) throws SQLException {
+        int maxParamCount = context.getDialect() == SqlDialect.POSTGRES ?
+                MAX_POSTGRES_PARAM_COUNT : MAX_MYSQL_PARAM_COUNT;
+        int maxRows = Math.min(batchSize, maxParamCount / descriptor.getWritableColumns().size());
+        int result = 0;
+        int start = 0;
+        while (start < objects.size()) {
+            int rowCount = countRowsInPacket(objects, start, Math.min(maxRows, objects.size() - start), descriptor);
+            if (rowCount < maxRows) {
+                rowCount = Integer.highestOneBit(rowCount);
+            }
+            result += insertRows(objects.subList(start, start + rowCount), descriptor, upsertClause);
+            start += rowCount;
+        }
         return result;
     }
 
+    private int countRowsInPacket(List<Object> objects, int start, int maxRows, EntityDescriptor descriptor) {
+        int maxPacketSize = context.getMaxPacketSize();
+        long size = descriptor.getSql().getInsertPrefixLength();
+        for (int i = 0; i < maxRows; i++) {
+            long rowSize = descriptor.getSql().getInsertRowLength();
+            for (ColumnDescriptor column : descriptor.getWritableColumns()) {
+                Object value = column.getValue(objects.get(start + i));
+                rowSize += estimateSize(context.getConverterManager().convertToDb(value));
+            }
+            size += rowSize;
+            if (size > maxPacketSize && i > 0) {
+                return i;
+            }
+        }
+        return maxRows;
+    }
+
+    /**
+     * @return Rough size of the value converted for the database in a packet, strings and binaries are counted
+     * as fully escaped
+     */
+    private static int estimateSize(Object value) {
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() * 2 + 2;
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length * 2 + 3;
+        }
+        return 24;
+    }
+
+    /**
+     * @param upsertClause Clause which turns the insert into an upsert or {@code null}
+     */
+    private int insertRows(List<Object> objects, EntityDescriptor descriptor, String upsertClause)
+            throws SQLException {
+        boolean upsert = upsertClause != null;
+        String sql = upsert ? descriptor.getSql().getInsertSql(objects.size(), upsertClause) :
+                descriptor.getSql().getInsertSql(objects.size());
+        boolean returnGeneratedKeys = !upsert || context.getDialect() == SqlDialect.POSTGRES;
+        PreparedStatement statement = prepareCached(sql, returnGeneratedKeys);
+        try {
+            int index = 1;
+            for (Object object : objects) {
+                index = descriptor.getBinder().bind(statement, object, index, context.getConverterManager());
+            }
+            int result = statement.executeUpdate();
+            if (!returnGeneratedKeys) {
+                return result;
+            }
+
+            List<Object> keys = new ArrayList<>(objects.size());
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                while (keys.size() < objects.size() && resultSet.next()) {
+                    keys.add(resultSet.getObject(1));
+                }
+            }
+            if (upsert && keys.size() != objects.size()) {
+                return result;
+            }
+            if (keys.size() == 1 && objects.size() > 1) {
+                // The driver returned only the first id, ids of a multi-row insert are a consecutive range
+                long firstId = ((Number) keys.get(0)).longValue();
+                int increment = getAutoIncrementIncrement();
+                for (int i = 1; i < objects.size(); i++) {
+                    keys.add(firstId + (long) i * increment);
+                }
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                applyId(keys.get(i), objects.get(i), descriptor);
+            }
+            return result;
+        } finally {
+            releaseCached(statement);
+        }
+    }
+
+    private int getAutoIncrementIncrement() throws SQLException {
+        if (autoIncrementIncrement == null) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("select @@auto_increment_increment")) {
+                autoIncrementIncrement = resultSet.next() ? resultSet.getInt(1) : 1;
+            }
+        }
+        return autoIncrementIncrement;
+    }
+
+    private int insertBatch(List<Object> objects, EntityDescriptor descriptor) throws SQLException {
+        PreparedStatement statement = prepareCached(descriptor.getSql().getInsertSql(), true);
+        try {
+            int[] counts;
+            try {
+                for (Object object : objects) {
+                    descriptor.getBinder().bind(statement, object, 1, context.getConverterManager());
+                    statement.addBatch();
+                }
+                counts = statement.executeBatch();
+            } catch (SQLException | RuntimeException e) {
+                statement.clearBatch();
+                throw e;
+            }
+
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                int index = 0;
+                while (index < objects.size() && resultSet.next()) {
+                    applyId(resultSet.getObject(1), objects.get(index), descriptor);
+                    index++;
+                }
+            }
+            return sumUpdateCounts(counts);
+        } finally {
+            releaseCached(statement);
+        }
+    }
+
+    /**
+     * Loads the objects into the table of the type with Postgres {@code COPY ... FROM STDIN}. Objects are read
+     * from the iterator one by one and streamed to the server, so any number of rows can be loaded with bounded
+     * memory. Generated ids are not set to the objects.
+     *
+     * @return Number of loaded rows
+     */
+    public <T> long copyIn(Iterator<? extends T> objects, Class<T> type) throws SQLException {
+        if (context.getDialect() != SqlDialect.POSTGRES) {
+            throw new NimbleException("COPY is supported only by Postgres");
+        }
+        return new NbCopyLoader(context).copyIn(connection, getDescriptor(type), objects);
+    }
+
+    public <T> long copyIn(Iterable<? extends T> objects, Class<T> type) throws SQLException {
+        return copyIn(objects.iterator(), type);
+    }
+
+    /**
+     * Loads the objects into the table of the type with MySQL {@code LOAD DATA LOCAL INFILE}. Objects are read
+     * from the iterator while the driver sends the data, so any number of rows can be loaded with bounded memory
+     * and without temporary files. Local infile must be allowed by the driver and the server. Generated ids are
+     * not set to the objects.
+     *
+     * @return Number of loaded rows
+     */
+    public <T> long loadData(Iterator<? extends T> objects, Class<T> type) throws SQLException {
+        checkLoadDataSupported();
+        return new NbLoadDataLoader(context).load(this, getDescriptor(type), objects);
+    }
+
+    public <T> long loadData(Iterable<? extends T> objects, Class<T> type) throws SQLException {
+        return loadData(objects.iterator(), type);
+    }
+
+    /**
+     * Loads the rows into the table with MySQL {@code LOAD DATA LOCAL INFILE}, see
+     * {@link #loadData(Iterator, Class)}. Columns are taken from the first row, all rows must have the same columns.
+     */
+    public long loadData(String tableName, Iterator<NbRow> rows) throws SQLException {
+        checkLoadDataSupported();
+        return new NbLoadDataLoader(context).load(this, tableName, rows);
+    }
+
+    private void checkLoadDataSupported() {
+        if (!isMultiRowInsertSupported()) {
+            throw new NimbleException("LOAD DATA is supported only by MySQL and MariaDB");
+        }
+    }
+
     public int update(Object object) throws SQLException {
-        String tableName = MetaUtils.getTableName(object.getClass());
-        Map<String, Object> valueMap = MetaUtils.getColumnMap(object);
-        List<String> columnNameList = new ArrayList<>(valueMap.size());
-        List<String> idNameList = new ArrayList<>(valueMap.size());
-        Map<String, Object> idMap = MetaUtils.getIdColumnMap(object);
+        EntityDescriptor descriptor = getDescriptor(object.getClass());
+        ColumnDescriptor idColumn = getIdColumn(descriptor);
+        String updateSql = getUpdateSql(descriptor);
+        Object idValue = idColumn.getValue(object);
 
-        if (idMap.size() == 0) {
+        if (idValue == null) {
             throw new NimbleException("Id field value is NULL");
         }
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("update ");
-        builder.append(tableName);
-        builder.append(" set ");
-        for (String columnName : valueMap.keySet()) {
-            if (columnNameList.size() > 0) builder.append(",");
-            builder.append(columnName);
-            builder.append("=?");
-            columnNameList.add(columnName);
+        PreparedStatement statement = prepareCached(updateSql, false);
+        try {
+            int index = descriptor.getBinder().bind(statement, object, 1, context.getConverterManager());
+            statement.setObject(index, context.getConverterManager().convertToDb(idValue));
+            return statement.executeUpdate();
+        } finally {
+            releaseCached(statement);
+        }
+    }
+
+    /**
+     * Updates the objects with JDBC batches of the batch size set in {@link Nimble#setBatchSize(int)}.
+     * See {@link #updateAll(Collection, int)}.
+     */
+    public int[] updateAll(Collection<?> objects) throws SQLException {
+        return updateAll(objects, context.getBatchSize());
+    }
+
+    /**
+     * Updates the objects by their ids with JDBC batches. Objects are grouped by class, every group is sent
+     * in chunks of the batch size.
+     *
+     * @return Update counts in the order of the objects, a count is {@link Statement#SUCCESS_NO_INFO} if the driver
+     * doesn't report it. An object without its row gets zero.
+     */
+    public int[] updateAll(Collection<?> objects, int batchSize) throws SQLException {
+        checkBatchSize(batchSize);
+        List<Object> objectList = new ArrayList<Object>(objects);
+        int[] result = new int[objectList.size()];
+        for (Map.Entry<Class, List<Integer>> group : groupPositionsByClass(objectList).entrySet()) {
+            EntityDescriptor descriptor = getDescriptor(group.getKey());
+            ColumnDescriptor idColumn = getIdColumn(descriptor);
+            String updateSql = getUpdateSql(descriptor);
+            List<Integer> positions = group.getValue();
+            for (int start = 0; start < positions.size(); start += batchSize) {
+                List<Integer> chunk = positions.subList(start, Math.min(start + batchSize, positions.size()));
+                updateBatch(objectList, chunk, descriptor, updateSql, idColumn, result);
+            }
         }
-        builder.append(" where ");
-        addWhereConditions(builder, idMap, idNameList);
+        return result;
+    }
 
-        PreparedStatement statement = connection.prepareStatement(builder.toString());
-        for (int i = 0; i < columnNameList.size(); i++) {
-            String columnName = columnNameList.get(i);
-            Object value = context.getConverterManager().convertToDb(valueMap.get(columnName));
-            statement.setObject(i + 1, value);
+    /**
+     * Updates the objects at the positions and puts their update counts to the same positions of the result.
+     */
+    private void updateBatch(List<Object> objects, List<Integer> positions, EntityDescriptor descriptor,
+                             String updateSql, ColumnDescriptor idColumn, int[] result) throws SQLException {
+        PreparedStatement statement = prepareCached(updateSql, false);
+        try {
+            for (int position : positions) {
+                Object object = objects.get(position);
+                Object idValue = idColumn.getValue(object);
+                if (idValue == null) {
+                    throw new NimbleException("Id field value is NULL");
+                }
+                int index = descriptor.getBinder().bind(statement, object, 1, context.getConverterManager());
+                statement.setObject(index, context.getConverterManager().convertToDb(idValue));
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                result[positions.get(i)] = counts[i];
+            }
+        } catch (SQLException | RuntimeException e) {
+            statement.clearBatch();
+            throw e;
+        } finally {
+            releaseCached(statement);
         }
-        for (int i = 0; i < idNameList.size(); i++) {
-            String idName = idNameList.get(i);
-            Object value = context.getConverterManager().convertToDb(idMap.get(idName));
-            statement.setObject(i + 1 + columnNameList.size(), value);
+    }
+
+    /**
+     * Loads objects by ids with {@code IN} lists of at most the batch size set in {@link Nimble#setBatchSize(int)}.
+     * The last list is padded with its last id to a power of two, so that only a few SQL texts are prepared.
+     *
+     * @return Loaded objects by ids in the order of the passed ids, ids without rows are skipped. Ids are
+     * converted to the type of the id field.
+     */
+    public <T> Map<Object, T> loadAll(Collection<?> ids, Class<T> type) throws SQLException {
+        EntityDescriptor descriptor = getDescriptor(type);
+        ColumnDescriptor[] keyColumns = {getIdColumn(descriptor)};
+        List<List<Object>> keys = toKeys(ids, keyColumns);
+        Map<List<Object>, T> objects = loadByKeys(keys, keyColumns, descriptor, type);
+
+        Map<Object, T> result = new LinkedHashMap<>();
+        for (List<Object> key : keys) {
+            T object = objects.get(key);
+            if (object != null) {
+                result.put(key.get(0), object);
+            }
         }
+        return result;
+    }
 
-        return statement.executeUpdate();
+    /**
+     * Same as {@link #loadAll(Collection, Class)}.
+     *
+     * @return Loaded objects in the order of the passed ids, {@code null} for ids without rows
+     */
+    public <T> List<T> loadAllList(Collection<?> ids, Class<T> type) throws SQLException {
+        EntityDescriptor descriptor = getDescriptor(type);
+        ColumnDescriptor[] keyColumns = {getIdColumn(descriptor)};
+        List<List<Object>> keys = toKeys(ids, keyColumns);
+        Map<List<Object>, T> objects = loadByKeys(keys, keyColumns, descriptor, type);
+
+        List<T> result = new ArrayList<>(keys.size());
+        for (List<Object> key : keys) {
+            result.add(objects.get(key));
+        }
+        return result;
     }
 
-    public <T> T load(int id, Class<T> type) throws SQLException {
-        String tableName = MetaUtils.getTableName(type);
-        String idColumnName = MetaUtils.geIdColumnName(type);
-        if (idColumnName == null) {
-            throw new NimbleException("Can't find ID field");
-        }
-        StringBuilder builder = new StringBuilder();
-        builder.append("select * from ");
-        builder.append(tableName);
-        builder.append(" where ");
-        builder.append(idColumnName);
-        builder.append("=?");
-
-        PreparedStatement statement = connection.prepareStatement(builder.toString());
-        statement.setObject(1, id);
-        ResultSet resultSet = statement.executeQuery();
-        ObjectMapper applier = context.getObjectMapperFactory().getObjectCreator(type);
-        int count = 0;
-        T object = null;
-        while (resultSet.next()) {
-            if (count > 0) {
-                throw new NimbleException("The query returned more than one row");
-            }
-            object = (T) applier.create(resultSet);
-            count++;
-        }
-        return object;
+    /**
+     * Loads objects by composite keys with row value {@code IN} lists: {@code (a,b) in ((?,?),(?,?))}.
+     *
+     * @param keys       Values of key columns, in the order of the columns
+     * @param keyColumns Names of key columns
+     * @return Loaded objects by keys in the order of the passed keys, a key is a list of values converted to
+     * the types of the fields of key columns
+     */
+    public <T> Map<List<Object>, T> loadAllByKeys(Collection<Object[]> keys, String[] keyColumns, Class<T> type)
+            throws SQLException {
+        EntityDescriptor descriptor = getDescriptor(type);
+        ColumnDescriptor[] columns = new ColumnDescriptor[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            columns[i] = findColumn(descriptor, keyColumns[i]);
+        }
+        List<List<Object>> keyList = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+            if (key.length != columns.length) {
+                throw new NimbleException("Number of key values doesn't match number of key columns");
+            }
+            keyList.add(toKey(key, columns));
+        }
+        Map<List<Object>, T> objects = loadByKeys(keyList, columns, descriptor, type);
+
+        Map<List<Object>, T> result = new LinkedHashMap<>();
+        for (List<Object> key : keyList) {
+            T object = objects.get(key);
+            if (object != null) {
+                result.put(key, object);
+            }
+        }
+        return result;
     }
 
-    public int delete(Object id, Class type) throws SQLException {
-        Field idField = MetaUtils.getIdField(type);
-        if (idField == null) {
-            throw new NimbleException("Can't find id field for type " + type.getName());
+    private List<List<Object>> toKeys(Collection<?> ids, ColumnDescriptor[] keyColumns) {
+        List<List<Object>> keys = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            keys.add(toKey(new Object[]{id}, keyColumns));
+        }
+        return keys;
+    }
+
+    private List<Object> toKey(Object[] values, ColumnDescriptor[] keyColumns) {
+        Object[] key = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new NimbleException("Key value is NULL");
+            }
+            key[i] = context.getConverterManager().convertFromDb(values[i], keyColumns[i].getType());
+        }
+        return Arrays.asList(key);
+    }
+
+    private <T> Map<List<Object>, T> loadByKeys(List<List<Object>> keys, ColumnDescriptor[] keyColumns,
+                                                EntityDescriptor descriptor, Class<T> type) throws SQLException {
+        String[] keyColumnNames = new String[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumnNames[i] = keyColumns[i].getColumnName();
         }
+        int batchSize = Math.min(context.getBatchSize(), MAX_POSTGRES_PARAM_COUNT / keyColumns.length);
+        Map<List<Object>, T> result = new HashMap<>();
+        for (int start = 0; start < keys.size(); start += batchSize) {
+            int size = Math.min(batchSize, keys.size() - start);
+            int keyCount = Math.min(ListExpansion.BUCKETS.getMarkCount(size), batchSize);
+            PreparedStatement statement = prepareCached(descriptor.getSql().getSelectByKeysSql(keyColumnNames,
+                    keyCount), false);
+            try {
+                int index = 1;
+                for (int i = 0; i < keyCount; i++) {
+                    for (Object value : keys.get(start + Math.min(i, size - 1))) {
+                        statement.setObject(index++, context.getConverterManager().convertToDb(value));
+                    }
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    ObjectMapper mapper = context.getObjectMapperFactory().getObjectCreator(type);
+                    while (resultSet.next()) {
+                        T object = (T) mapper.create(resultSet);
+                        Object[] key = new Object[keyColumns.length];
+                        for (int i = 0; i < keyColumns.length; i++) {
+                            key[i] = keyColumns[i].getValue(object);
+                        }
+                        result.put(Arrays.asList(key), object);
+                    }
+                }
+            } finally {
+                releaseCached(statement);
+            }
+        }
+        return result;
+    }
+
+    private static ColumnDescriptor findColumn(EntityDescriptor descriptor, String columnName) {
+        for (ColumnDescriptor column : descriptor.getColumns()) {
+            if (column.getColumnName().equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        throw new NimbleException("Can't find column " + columnName + " of type " + descriptor.getType().getName());
+    }
+
+    public <T> T load(int id, Class<T> type) throws SQLException {
+        return load((Object) id, type);
+    }
+
+    public <T> T load(Object id, Class<T> type) throws SQLException {
+        EntityDescriptor descriptor = getDescriptor(type);
+        getIdColumn(descriptor);
 
-        idField.setAccessible(true);
-        String idColumnName = MetaUtils.getColumnName(idField);
-        if (idColumnName == null) {
-            idColumnName = idField.getName();
+        PreparedStatement statement = prepareCached(descriptor.getSql().getSelectByIdSql(), false);
+        try {
+            statement.setObject(1, context.getConverterManager().convertToDb(id));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ObjectMapper applier = context.getObjectMapperFactory().getObjectCreator(type);
+                int count = 0;
+                T object = null;
+                while (resultSet.next()) {
+                    if (count > 0) {
+                        throw new NimbleException("The query returned more than one row");
+                    }
+                    object = (T) applier.create(resultSet);
+                    count++;
+                }
+                return object;
+            }
+        } finally {
+            releaseCached(statement);
         }
+    }
 
-        return delete(id, idColumnName, type);
+    public int delete(Object id, Class type) throws SQLException {
+        EntityDescriptor descriptor = getDescriptor(type);
+        getIdColumn(descriptor);
+        return delete(id, descriptor);
     }
 
     public int delete(Object object) throws SQLException {
-        Field idField = MetaUtils.getIdField(object.getClass());
-        if (idField == null) {
-            throw new NimbleException("Can't find id field for type " + object.getClass().getName());
+        EntityDescriptor descriptor = getDescriptor(object.getClass());
+        return delete(getIdColumn(descriptor).getValue(object), descriptor);
+    }
+
+    /**
+     * Deletes the objects by their ids, see {@link #deleteAllById(Collection, Class, int)}.
+     */
+    public int deleteAll(Collection<?> objects) throws SQLException {
+        return deleteAll(objects, context.getBatchSize());
+    }
+
+    public int deleteAll(Collection<?> objects, int batchSize) throws SQLException {
+        checkBatchSize(batchSize);
+        int result = 0;
+        for (Map.Entry<Class, List<Object>> group : groupByClass(objects).entrySet()) {
+            EntityDescriptor descriptor = getDescriptor(group.getKey());
+            ColumnDescriptor idColumn = getIdColumn(descriptor);
+            List<Object> ids = new ArrayList<>(group.getValue().size());
+            for (Object object : group.getValue()) {
+                ids.add(idColumn.getValue(object));
+            }
+            result += deleteByIds(ids, descriptor, batchSize);
         }
+        return result;
+    }
+
+    /**
+     * Deletes rows by ids with the batch size set in {@link Nimble#setBatchSize(int)}, see
+     * {@link #deleteAllById(Collection, Class, int)}.
+     */
+    public int deleteAllById(Collection<?> ids, Class type) throws SQLException {
+        return deleteAllById(ids, type, context.getBatchSize());
+    }
 
-        idField.setAccessible(true);
-        String idColumnName = MetaUtils.getColumnName(idField);
-        if (idColumnName == null) {
-            idColumnName = idField.getName();
+    /**
+     * Deletes rows by ids with {@code IN} lists of at most the batch size ids. The last list is padded with its
+     * last id to a power of two, so that only a few SQL texts are prepared.
+     *
+     * @return Number of deleted rows
+     */
+    public int deleteAllById(Collection<?> ids, Class type, int batchSize) throws SQLException {
+        checkBatchSize(batchSize);
+        EntityDescriptor descriptor = getDescriptor(type);
+        getIdColumn(descriptor);
+        return deleteByIds(new ArrayList<Object>(ids), descriptor, batchSize);
+    }
+
+    private int deleteByIds(List<Object> ids, EntityDescriptor descriptor, int batchSize) throws SQLException {
+        int result = 0;
+        for (int start = 0; start < ids.size(); start += batchSize) {
+            int size = Math.min(batchSize, ids.size() - start);
+            int markCount = Math.min(ListExpansion.BUCKETS.getMarkCount(size), batchSize);
+            PreparedStatement statement = prepareCached(descriptor.getSql().getDeleteByIdsSql(markCount), false);
+            try {
+                for (int i = 0; i < markCount; i++) {
+                    Object id = ids.get(start + Math.min(i, size - 1));
+                    if (id == null) {
+                        throw new NimbleException("Id field value is NULL");
+                    }
+                    statement.setObject(i + 1, context.getConverterManager().convertToDb(id));
+                }
+                result += statement.executeUpdate();
+            } finally {
+                releaseCached(statement);
+            }
         }
+        return result;
+    }
+
+    private int delete(Object idValue, EntityDescriptor descriptor) throws SQLException {
+        PreparedStatement statement = prepareCached(descriptor.getSql().getDeleteByIdSql(), false);
         try {
-            Object idValue = idField.get(object);
-            return delete(idValue, idColumnName, object.getClass());
-        } catch (IllegalAccessException e) {
-            throw new NimbleException(e);
+            Object value = context.getConverterManager().convertToDb(idValue);
+            statement.setObject(1, value);
+            return statement.executeUpdate();
+        } finally {
+            releaseCached(statement);
         }
     }
 
-    private int delete(Object idValue, String idColumnName, Class type) throws SQLException {
-        String tableName = MetaUtils.getTableName(type);
-        StringBuilder builder = new StringBuilder();
-        builder.append("delete from ")
-                .append(tableName)
-                .append(" where ")
-                .append(idColumnName)
-                .append("=?");
+    /**
+     * Turns auto-commit off for a cursor which needs a transaction. A transaction of the caller is left as is.
+     *
+     * @return {@code true} if auto-commit was turned off and must be turned on again with
+     * {@link #resumeAutoCommit()}
+     */
+    boolean suspendAutoCommit() throws SQLException {
+        if (autoCommitSuspensions > 0) {
+            autoCommitSuspensions++;
+            return true;
+        }
+        if (!connection.getAutoCommit()) {
+            return false;
+        }
+        connection.setAutoCommit(false);
+        autoCommitSuspensions = 1;
+        return true;
+    }
 
-        PreparedStatement statement = connection.prepareStatement(builder.toString());
-        Object value = context.getConverterManager().convertToDb(idValue);
-        statement.setObject(1, value);
-        return statement.executeUpdate();
+    /**
+     * Turns auto-commit on again when the last cursor which suspended it is closed, unless the caller has set
+     * auto-commit in the meantime.
+     */
+    void resumeAutoCommit() throws SQLException {
+        if (autoCommitSuspensions > 0 && --autoCommitSuspensions == 0) {
+            connection.setAutoCommit(true);
+        }
     }
 
-    private void addWhereConditions(StringBuilder builder, Map<String, Object> valueMap,
-                                    List<String> columnNameList) {
-        for (String columnName : valueMap.keySet()) {
-            if (columnNameList.size() > 0) builder.append(" and ");
-            builder.append(columnName);
-            builder.append("=?");
-            columnNameList.add(columnName);
+    /**
+     * The caller takes over the transaction mode, so cursors which suspended auto-commit don't turn it on again.
+     */
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        autoCommitSuspensions = 0;
+        super.setAutoCommit(autoCommit);
+    }
+
+    /**
+     * Takes the statement from the statement cache of the connection or prepares a new one. The statement must be
+     * returned with {@link #releaseCached(PreparedStatement)}.
+     */
+    PreparedStatement prepareCached(String sql, boolean returnGeneratedKeys) throws SQLException {
+        return statementCache.prepare(sql, returnGeneratedKeys);
+    }
+
+    void releaseCached(PreparedStatement statement) throws SQLException {
+        statementCache.release(statement);
+    }
+
+    /**
+     * @return Number of open statements created by the connection, including statements of the statement cache
+     */
+    public int getOpenStatementCount() throws SQLException {
+        return statementTracker.getOpenCount();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return statementTracker.track(connection.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return statementTracker.track(connection.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return statementTracker.track(connection.createStatement(resultSetType, resultSetConcurrency,
+                resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return statementTracker.track(connection.prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return statementTracker.track(connection.prepareCall(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return statementTracker.track(connection.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return statementTracker.track(connection.prepareCall(sql, resultSetType, resultSetConcurrency,
+                resultSetHoldability));
+    }
+
+    private void applyId(Object id, Object object, EntityDescriptor descriptor) {
+        ColumnDescriptor idColumn = getIdColumn(descriptor);
+        idColumn.setValue(object, context.getConverterManager().convertFromDb(id, idColumn.getType()));
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
         }
     }
 
+    private static Map<Class, List<Object>> groupByClass(Collection<?> objects) {
+        Map<Class, List<Object>> groups = new LinkedHashMap<>();
+        for (Object object : objects) {
+            if (object == null) {
+                throw new NimbleException("Null value is not allowed");
+            }
+            List<Object> group = groups.get(object.getClass());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(object.getClass(), group);
+            }
+            group.add(object);
+        }
+        return groups;
+    }
+
+    /**
+     * Same as {@link #groupByClass(Collection)} for positions of the objects in the list.
+     */
+    private static Map<Class, List<Integer>> groupPositionsByClass(List<Object> objects) {
+        Map<Class, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < objects.size(); i++) {
+            Object object = objects.get(i);
+            if (object == null) {
+                throw new NimbleException("Null value is not allowed");
+            }
+            List<Integer> group = groups.get(object.getClass());
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(object.getClass(), group);
+            }
+            group.add(i);
+        }
+        return groups;
+    }
+
+    /**
+     * @return Sum of batch update counts, a statement executed without known count is counted as one row
+     */
+    private static int sumUpdateCounts(int[] counts) {
+        int result = 0;
+        for (int count : counts) {
+            if (count >= 0) {
+                result += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private EntityDescriptor getDescriptor(Class type) {
+        return context.getEntityDescriptorRegistry().getDescriptor(type);
+    }
+
+    private ColumnDescriptor getIdColumn(EntityDescriptor descriptor) {
+        if (descriptor.getIdColumn() == null) {
+            throw new NimbleException("Can't find id field for type " + descriptor.getType().getName());
+        }
+        return descriptor.getIdColumn();
+    }
+
+    private String getUpdateSql(EntityDescriptor descriptor) {
+        if (descriptor.getSql().getUpdateSql() == null) {
+            throw new NimbleException("Can't update " + descriptor.getType().getName() + " without writable columns");
+        }
+        return descriptor.getSql().getUpdateSql();
+    }
+
     @Override
     public void close() throws SQLException {
-        super.close();
+        try {
+            statementCache.close();
+        } finally {
+            try {
+                int leakCount = statementTracker.closeAll();
+                if (leakCount > 0) {
+                    context.addLeakedStatements(leakCount);
+                }
+            } finally {
+                super.close();
+            }
+        }
     }
 }
@@ -25,17 +25,36 @@
 package net.nimble;
 
 import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.meta.EntityDescriptorRegistry;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
 import net.nimble.meta.extracts.ValueExtractFactory;
 import net.nimble.meta.mappers.ObjectMapperFactory;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.QueryCache;
 import net.nimble.sql.SqlDialect;
+import net.nimble.sql.StatementCache;
 import net.nimble.sql.readers.ResultSetReader;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 class NbContext {
     private ObjectMapperFactory objectMapperFactory;
     private ValueExtractFactory valueExtractFactory;
     private ConverterManagerImpl converterManager;
     private ResultSetReader resultSetReader;
     private SqlDialect dialect;
+    private EntityDescriptorRegistry entityDescriptorRegistry;
+    private AccessorFactory accessorFactory;
+    private AccessStrategy accessStrategy;
+    private QueryCache queryCache;
+    private volatile int statementCacheSize = StatementCache.DEFAULT_CAPACITY;
+    private volatile ListExpansion listExpansion = ListExpansion.EXACT;
+    private volatile boolean leakDetection;
+    private volatile int batchSize = NbConnection.DEFAULT_BATCH_SIZE;
+    private volatile int maxPacketSize = NbConnection.DEFAULT_MAX_PACKET_SIZE;
+    private volatile int fetchSize = NbConnection.DEFAULT_FETCH_SIZE;
+    private final AtomicLong leakedStatementCount = new AtomicLong();
 
     public ObjectMapperFactory getObjectMapperFactory() {
         return objectMapperFactory;
@@ -76,4 +95,92 @@ class NbContext {
     public void setDialect(SqlDialect dialect) {
         this.dialect = dialect;
     }
+
+    public EntityDescriptorRegistry getEntityDescriptorRegistry() {
+        return entityDescriptorRegistry;
+    }
+
+    public void setEntityDescriptorRegistry(EntityDescriptorRegistry entityDescriptorRegistry) {
+        this.entityDescriptorRegistry = entityDescriptorRegistry;
+    }
+
+    public AccessorFactory getAccessorFactory() {
+        return accessorFactory;
+    }
+
+    public void setAccessorFactory(AccessorFactory accessorFactory) {
+        this.accessorFactory = accessorFactory;
+    }
+
+    public AccessStrategy getAccessStrategy() {
+        return accessStrategy;
+    }
+
+    public void setAccessStrategy(AccessStrategy accessStrategy) {
+        this.accessStrategy = accessStrategy;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public ListExpansion getListExpansion() {
+        return listExpansion;
+    }
+
+    public void setListExpansion(ListExpansion listExpansion) {
+        this.listExpansion = listExpansion;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxPacketSize() {
+        return maxPacketSize;
+    }
+
+    public void setMaxPacketSize(int maxPacketSize) {
+        this.maxPacketSize = maxPacketSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    public long getLeakedStatementCount() {
+        return leakedStatementCount.get();
+    }
+
+    public void addLeakedStatements(int count) {
+        leakedStatementCount.addAndGet(count);
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.meta.ColumnDescriptor;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.sql.DelimitedTextEncoder;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads entities with Postgres {@code COPY ... FROM STDIN}. Rows are encoded into a buffer which is sent to
+ * the server whenever it exceeds the flush size, so memory doesn't depend on the number of rows. The class is
+ * loaded only when COPY is used, so the Postgres driver isn't needed for other databases.
+ */
+class NbCopyLoader {
+
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    private final NbContext context;
+
+    NbCopyLoader(NbContext context) {
+        this.context = context;
+    }
+
+    long copyIn(Connection connection, EntityDescriptor descriptor, Iterator<?> objects) throws SQLException {
+        List<ColumnDescriptor> columns = descriptor.getWritableColumns();
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(descriptor.getSql().getCopySql());
+        try {
+            DelimitedTextEncoder encoder = new DelimitedTextEncoder(context.getDialect(),
+                    FLUSH_SIZE + FLUSH_SIZE / 4);
+            while (objects.hasNext()) {
+                Object object = objects.next();
+                for (ColumnDescriptor column : columns) {
+                    encoder.writeValue(context.getConverterManager().convertToDb(column.getValue(object)));
+                }
+                encoder.endRow();
+                if (encoder.size() >= FLUSH_SIZE) {
+                    copyIn.writeToCopy(encoder.getBuffer(), 0, encoder.size());
+                    encoder.reset();
+                }
+            }
+            if (encoder.size() > 0) {
+                copyIn.writeToCopy(encoder.getBuffer(), 0, encoder.size());
+            }
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.exceptions.NimbleReflectionException;
+import net.nimble.meta.ColumnDescriptor;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.sql.DelimitedTextEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads rows with MySQL {@code LOAD DATA LOCAL INFILE}. Instead of a file the driver reads an input stream which
+ * encodes rows on demand into a buffer, so memory doesn't depend on the number of rows. The stream is set through
+ * {@code setLocalInfileInputStream} of MySQL and MariaDB drivers, which are looked up by name, so none of them is
+ * a compile dependency.
+ */
+class NbLoadDataLoader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] STATEMENT_TYPES = {
+            "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement", "org.mariadb.jdbc.MariaDbStatement"};
+
+    private final NbContext context;
+
+    NbLoadDataLoader(NbContext context) {
+        this.context = context;
+    }
+
+    long load(NbConnection connection, final EntityDescriptor descriptor, final Iterator<?> objects)
+            throws SQLException {
+        final List<ColumnDescriptor> columns = descriptor.getWritableColumns();
+        String[] columnNames = new String[columns.size()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = columns.get(i).getColumnName();
+        }
+        return load(connection, descriptor.getTableName(), columnNames, new RowInputStream() {
+            @Override
+            protected boolean writeRow(DelimitedTextEncoder encoder) {
+                if (!objects.hasNext()) return false;
+                Object object = objects.next();
+                for (ColumnDescriptor column : columns) {
+                    encoder.writeValue(context.getConverterManager().convertToDb(column.getValue(object)));
+                }
+                return true;
+            }
+        });
+    }
+
+    long load(NbConnection connection, String tableName, final Iterator<NbRow> rows) throws SQLException {
+        if (!rows.hasNext()) return 0;
+        final NbRow firstRow = rows.next();
+        String[] columnNames = new String[firstRow.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = firstRow.getColumnName(i);
+        }
+        return load(connection, tableName, columnNames, new RowInputStream() {
+            private NbRow nextRow = firstRow;
+
+            @Override
+            protected boolean writeRow(DelimitedTextEncoder encoder) {
+                NbRow row = nextRow != null ? nextRow : rows.hasNext() ? rows.next() : null;
+                nextRow = null;
+                if (row == null) return false;
+                for (int i = 0; i < row.getColumnCount(); i++) {
+                    encoder.writeValue(context.getConverterManager().convertToDb(row.getObject(i)));
+                }
+                return true;
+            }
+        });
+    }
+
+    private long load(NbConnection connection, String tableName, String[] columnNames, InputStream input)
+            throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("load data local infile 'nimble' into table ").append(tableName)
+                .append(" character set utf8mb4 fields terminated by '\\t' escaped by '\\\\'")
+                .append(" lines terminated by '\\n' (");
+        for (int i = 0; i < columnNames.length; i++) {
+            if (i > 0) builder.append(",");
+            builder.append(columnNames[i]);
+        }
+        builder.append(")");
+
+        try (Statement statement = connection.createStatement()) {
+            setInputStream(statement, input);
+            return statement.executeUpdate(builder.toString());
+        }
+    }
+
+    private static void setInputStream(Statement statement, InputStream input) throws SQLException {
+        ClassLoader[] classLoaders = {statement.getClass().getClassLoader(), NbLoadDataLoader.class.getClassLoader()};
+        for (ClassLoader classLoader : classLoaders) {
+            for (String typeName : STATEMENT_TYPES) {
+                Class<?> type;
+                try {
+                    type = Class.forName(typeName, false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    continue;
+                }
+                if (!type.isInstance(statement) && !statement.isWrapperFor(type)) continue;
+
+                Object nativeStatement = type.isInstance(statement) ? statement : statement.unwrap(type);
+                try {
+                    type.getMethod("setLocalInfileInputStream", InputStream.class).invoke(nativeStatement, input);
+                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+                    throw new NimbleReflectionException(e);
+                }
+                return;
+            }
+        }
+        throw new NimbleException("JDBC driver doesn't support input streams of LOAD DATA LOCAL INFILE");
+    }
+
+    /**
+     * Stream of encoded rows, the next rows are encoded when the buffer is read up.
+     */
+    private abstract class RowInputStream extends InputStream {
+
+        private final DelimitedTextEncoder encoder = new DelimitedTextEncoder(context.getDialect(),
+                BUFFER_SIZE + BUFFER_SIZE / 4);
+        private int position;
+
+        /**
+         * @return {@code false} if there are no more rows
+         */
+        protected abstract boolean writeRow(DelimitedTextEncoder encoder);
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return encoder.getBuffer()[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!fill()) return -1;
+            int count = Math.min(length, encoder.size() - position);
+            System.arraycopy(encoder.getBuffer(), position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            if (position < encoder.size()) return true;
+            encoder.reset();
+            position = 0;
+            try {
+                while (encoder.size() < BUFFER_SIZE && writeRow(encoder)) {
+                    encoder.endRow();
+                }
+            } catch (RuntimeException e) {
+                throw new IOException(e);
+            }
+            return encoder.size() > 0;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.exceptions.NimbleSQLException;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.meta.mappers.ObjectMapper;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.ParsedQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Query which is parsed and prepared once and executed many times with different values of parameters.
+ * Values are kept in slots of the parsed query, a value stays bound until it is replaced or
+ * {@link #clearParams()} is called. The statement is prepared again only if array or collection values change
+ * the number of parameters. The query must be closed, it is also closed together with its connection.
+ */
+public class NbPreparedQuery implements AutoCloseable {
+
+    private static final Object UNBOUND = new Object();
+
+    private final NbContext context;
+    private final Connection connection;
+    private final ParsedQuery parsedQuery;
+    private final ListExpansion listExpansion;
+    private final String[] paramNames;
+    private final Object[] values;
+    private PreparedStatement statement;
+    private String statementSql;
+    private boolean statementReturnsKeys;
+    private Class mapperType;
+    private ObjectMapper mapper;
+    private Class beanType;
+    private PropertyGetter[] beanGetters;
+    private int[] beanSlots;
+    private Object generatedKey;
+
+    NbPreparedQuery(String query, Connection connection, NbContext context) {
+        this.context = context;
+        this.connection = connection;
+        this.parsedQuery = context.getQueryCache().get(query);
+        this.listExpansion = context.getListExpansion();
+        this.paramNames = parsedQuery.getSlotNames();
+        this.values = new Object[paramNames.length];
+        Arrays.fill(values, UNBOUND);
+    }
+
+    /**
+     * @return Index of the parameter which can be passed to {@link #bind(int, Object)}
+     */
+    public int getParamIndex(String name) {
+        int slot = parsedQuery.findSlot(name);
+        if (slot < 0) {
+            throw new NimbleException(String.format("Query has no parameter :%s", name));
+        }
+        return slot;
+    }
+
+    public NbPreparedQuery bind(String name, Object value) {
+        values[getParamIndex(name)] = value;
+        return this;
+    }
+
+    /**
+     * @param paramIndex Index returned by {@link #getParamIndex(String)}, parameters with the same name share it
+     */
+    public NbPreparedQuery bind(int paramIndex, Object value) {
+        if (paramIndex < 0 || paramIndex >= values.length) {
+            throw new NimbleException(String.format("Query has no parameter with index %d, indexes of its %d " +
+                    "parameters start from zero", paramIndex, values.length));
+        }
+        values[paramIndex] = value;
+        return this;
+    }
+
+    public NbPreparedQuery bindMap(Map<String, Object> map) {
+        for (int i = 0; i < values.length; i++) {
+            if (map.containsKey(paramNames[i])) {
+                values[i] = map.get(paramNames[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Binds values of bean properties to parameters with the same names. Properties without parameters are
+     * ignored. Slots of properties are resolved once for the type of the last bean.
+     */
+    public NbPreparedQuery bindBean(Object bean) {
+        if (bean == null) {
+            throw new NimbleException("Null value is not allowed");
+        }
+        if (bean.getClass() != beanType) {
+            EntityDescriptor descriptor = context.getEntityDescriptorRegistry().getDescriptor(bean.getClass());
+            String[] fieldNames = descriptor.getFieldNames();
+            beanGetters = descriptor.getFieldGetters();
+            beanSlots = new int[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                beanSlots[i] = parsedQuery.findSlot(fieldNames[i]);
+            }
+            beanType = bean.getClass();
+        }
+        for (int i = 0; i < beanSlots.length; i++) {
+            if (beanSlots[i] >= 0) {
+                values[beanSlots[i]] = beanGetters[i].get(bean);
+            }
+        }
+        return this;
+    }
+
+    public NbPreparedQuery clearParams() {
+        Arrays.fill(values, UNBOUND);
+        return this;
+    }
+
+    public <T> T fetchValue(Class<T> type) {
+        Object value = fetchValue();
+        return (T) context.getConverterManager().convertFromDb(value, type);
+    }
+
+    public Object fetchValue() {
+        try (ResultSet resultSet = executeQuery()) {
+            return NbStatements.readValue(resultSet);
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    public Map<String, Object>[] fetchMapList() {
+        try (ResultSet resultSet = executeQuery()) {
+            return NbStatements.readMapList(resultSet);
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    public NbRow[] fetchRowList() {
+        try (ResultSet resultSet = executeQuery()) {
+            return NbStatements.readRowList(resultSet, context.getConverterManager());
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    public <T> T[] fetchList(Class<T> type) {
+        try (ResultSet resultSet = executeQuery()) {
+            if (type != mapperType) {
+                mapper = context.getObjectMapperFactory().getObjectCreator(type);
+                mapperType = type;
+            }
+            return NbStatements.readList(resultSet, mapper, type);
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    public int execute() {
+        try {
+            generatedKey = null;
+            prepare(true);
+            int result = statement.executeUpdate();
+            generatedKey = NbStatements.readGeneratedKey(statement);
+            return result;
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    public <T> T getGeneratedKey(Class<T> type) {
+        if (generatedKey == null) return null;
+        return (T) context.getConverterManager().convertFromDb(generatedKey, type);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (statement != null) {
+            PreparedStatement closing = statement;
+            statement = null;
+            statementSql = null;
+            closing.close();
+        }
+    }
+
+    private ResultSet executeQuery() throws SQLException {
+        prepare(false);
+        return statement.executeQuery();
+    }
+
+    private void prepare(boolean returnGeneratedKeys) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == UNBOUND) {
+                throw new NimbleException(String.format("Value for parameter :%s is not provided",
+                        paramNames[i]));
+            }
+        }
+
+        String sql = parsedQuery.expand(values, listExpansion);
+        if (statement == null || returnGeneratedKeys != statementReturnsKeys || !sql.equals(statementSql)) {
+            close();
+            statement = connection.prepareStatement(sql, returnGeneratedKeys ?
+                    Statement.RETURN_GENERATED_KEYS : Statement.NO_GENERATED_KEYS);
+            statementSql = sql;
+            statementReturnsKeys = returnGeneratedKeys;
+            mapperType = null;
+            mapper = null;
+        }
+
+        int index = 1;
+        for (int paramIndex = 0; paramIndex < parsedQuery.getParamCount(); paramIndex++) {
+            Object value = values[parsedQuery.getSlot(paramIndex)];
+            index = NbStatements.setParam(statement, index, value, context.getConverterManager(),
+                    parsedQuery.getListExpansion(paramIndex, listExpansion));
+        }
+    }
+}
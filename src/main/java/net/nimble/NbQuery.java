@@ -26,17 +26,11 @@ package net.nimble;
 
 import net.nimble.exceptions.NimbleException;
 import net.nimble.exceptions.NimbleSQLException;
-import net.nimble.meta.MetaUtils;
-import net.nimble.meta.extracts.ValueExtract;
-import net.nimble.meta.mappers.BeanMapper;
-import net.nimble.meta.mappers.MapMapper;
-import net.nimble.meta.mappers.NbRowMapper;
-import net.nimble.meta.mappers.ObjectMapper;
-import net.nimble.sql.QueryParamNames;
-import net.nimble.sql.QueryProcessor;
-
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.ParsedQuery;
+
 import java.sql.*;
 import java.util.*;
 
@@ -44,9 +38,12 @@ public class NbQuery {
 
     private final String query;
     private final NbContext context;
-    private final Connection connection;
+    private final NbConnection connection;
     private Object generatedKey;
+    private Object[] generatedKeys;
+    private int fetchSize;
     private final Map<String, Object> valueMap = new HashMap<>();
+    private final List<Map<String, Object>> batch = new ArrayList<>();
 
     NbQuery(String query, NbConnection connection, NbContext context) {
         this.query = query;
@@ -72,23 +69,11 @@ public class NbQuery {
     public Object fetchValue() {
         try {
             PreparedStatement statement = createStatement(false);
-            Object value = null;
             try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.getMetaData().getColumnCount() > 1) {
-                    throw new NimbleException(String.format("Result is not singular. There are %d columns in the result.",
-                            resultSet.getMetaData().getColumnCount()));
-                }
-
-                int counter = 0;
-                while (resultSet.next()) {
-                    counter++;
-                    if (counter > 1) {
-                        throw new NimbleException("Result is not singular. There are more than one row in the result.");
-                    }
-                    value = resultSet.getObject(1);
-                }
+                return NbStatements.readValue(resultSet);
+            } finally {
+                connection.releaseCached(statement);
             }
-            return value;
         } catch (SQLException e) {
             throw new NimbleSQLException(e);
         }
@@ -97,16 +82,10 @@ public class NbQuery {
     public Map<String, Object>[] fetchMapList() {
         try {
             PreparedStatement statement = createStatement(false);
-
             try (ResultSet resultSet = statement.executeQuery()) {
-                List<Map> resultList = new LinkedList<>();
-                ObjectMapper mapper = new MapMapper();
-                while (resultSet.next()) {
-                    Map map = (Map) mapper.create(resultSet);
-                    resultList.add(map);
-                }
-                Map[] result = (Map[]) Array.newInstance(Map.class, resultList.size());
-                return resultList.toArray(result);
+                return NbStatements.readMapList(resultSet);
+            } finally {
+                connection.releaseCached(statement);
             }
         } catch (SQLException e) {
             throw new NimbleSQLException(e);
@@ -116,15 +95,10 @@ public class NbQuery {
     public NbRow[] fetchRowList() {
         try {
             PreparedStatement statement = createStatement(false);
-
             try (ResultSet resultSet = statement.executeQuery()) {
-                List<NbRow> resultList = new LinkedList<>();
-                ObjectMapper mapper = new NbRowMapper(context.getConverterManager());
-                while (resultSet.next()) {
-                    NbRow object = (NbRow) mapper.create(resultSet);
-                    resultList.add(object);
-                }
-                return resultList.toArray(new NbRow[0]);
+                return NbStatements.readRowList(resultSet, context.getConverterManager());
+            } finally {
+                connection.releaseCached(statement);
             }
         } catch (SQLException e) {
             throw new NimbleSQLException(e);
@@ -134,89 +108,235 @@ public class NbQuery {
     public <T> T[] fetchList(Class<T> type) {
         try {
             PreparedStatement statement = createStatement(false);
-
             try (ResultSet resultSet = statement.executeQuery()) {
-                List<T> resultList = new LinkedList<>();
-                ObjectMapper mapper = new BeanMapper(type, context.getConverterManager());
-                while (resultSet.next()) {
-                    Object object = mapper.create(resultSet);
-                    resultList.add((T) object);
+                return NbStatements.readList(resultSet, context.getObjectMapperFactory().getObjectCreator(type), type);
+            } finally {
+                connection.releaseCached(statement);
+            }
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+
+    /**
+     * @param fetchSize Number of rows fetched at once by {@link #iterate(Class)} and {@link #forEach(Class,
+     *                  NbRowHandler)}, zero means the size set in {@link Nimble#setFetchSize(int)}
+     */
+    public NbQuery setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size can't be negative");
+        }
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Executes the query and maps rows lazily while the returned iterator is read, so a result of any size can be
+     * processed with bounded memory. The iterator has its own statement, which isn't taken from the statement
+     * cache, and must be closed if it's not read to the end.
+     * <p>
+     * The statement is configured so that the driver streams rows: MySQL gets fetch size {@code Integer.MIN_VALUE},
+     * which doesn't allow other statements on the connection until the iterator is closed. Postgres uses a cursor
+     * only within a transaction. Within a transaction of the caller the connection is left as is. In auto-commit
+     * mode auto-commit is turned off until the iterator is closed, so statements executed on the connection
+     * meanwhile are committed only when the iterator is closed. If the caller sets auto-commit while the iterator
+     * is open, the caller's setting is kept. To control the transaction, turn auto-commit off before the call.
+     */
+    public <T> NbResultIterator<T> iterate(Class<T> type) {
+        try {
+            ParsedQuery parsedQuery = context.getQueryCache().get(query);
+            ListExpansion listExpansion = context.getListExpansion();
+            boolean restoreAutoCommit = NbStatements.isCursorInTransaction(context.getDialect()) &&
+                    connection.suspendAutoCommit();
+            try {
+                PreparedStatement statement = connection.prepareStatement(parsedQuery.expand(valueMap, listExpansion),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                try {
+                    statement.setFetchSize(NbStatements.getCursorFetchSize(context.getDialect(),
+                            fetchSize > 0 ? fetchSize : context.getFetchSize()));
+                    setParamsToStatement(statement, parsedQuery, listExpansion, valueMap);
+                    ResultSet resultSet = statement.executeQuery();
+                    return new NbResultIterator<>(statement, resultSet,
+                            context.getObjectMapperFactory().getObjectCreator(type),
+                            restoreAutoCommit ? connection : null);
+                } catch (SQLException | RuntimeException e) {
+                    statement.close();
+                    throw e;
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (restoreAutoCommit) {
+                    connection.resumeAutoCommit();
                 }
-                T[] result = (T[]) Array.newInstance(type, resultList.size());
-                return resultList.toArray(result);
+                throw e;
             }
         } catch (SQLException e) {
             throw new NimbleSQLException(e);
         }
     }
 
+    /**
+     * Passes mapped rows to the handler one by one, see {@link #iterate(Class)}. Reading stops when the handler
+     * returns {@code false}, the statement is closed in any case.
+     *
+     * @return Number of rows passed to the handler
+     */
+    public <T> long forEach(Class<T> type, NbRowHandler<? super T> handler) {
+        long count = 0;
+        try (NbResultIterator<T> iterator = iterate(type)) {
+            while (iterator.hasNext()) {
+                count++;
+                if (!handler.handle(iterator.next())) break;
+            }
+        }
+        return count;
+    }
+
     public int execute() {
         try {
             generatedKey = null;
             PreparedStatement statement = createStatement(true);
-            int result = statement.executeUpdate();
-            ResultSet resultSet = statement.getGeneratedKeys();
-            if (resultSet.getMetaData().getColumnCount() > 0) {
-                if (resultSet.next()) {
-                    generatedKey = resultSet.getObject(1);
-                }
+            try {
+                int result = statement.executeUpdate();
+                generatedKey = NbStatements.readGeneratedKey(statement);
+                return result;
+            } finally {
+                connection.releaseCached(statement);
             }
-            return result;
         } catch (SQLException e) {
             throw new NimbleSQLException(e);
         }
     }
 
-    private PreparedStatement createStatement(boolean returnGeneratedKey) throws SQLException {
-        QueryParamNames parsingResult = null;
-        String preparedQuery;
-        parsingResult = QueryProcessor.extractParamNames(query);
-        preparedQuery = QueryProcessor.replaceParamNames(query, parsingResult, valueMap);
-
-        PreparedStatement statement = returnGeneratedKey ?
-                connection.prepareStatement(preparedQuery, Statement.RETURN_GENERATED_KEYS) :
-                connection.prepareStatement(preparedQuery);
-        if (parsingResult != null) {
-            setParamsToStatement(statement, parsingResult.getNames(), valueMap);
-        }
+    /**
+     * Adds a parameter set with the current values of parameters to the batch.
+     */
+    public NbQuery addBatch() {
+        batch.add(new HashMap<>(valueMap));
+        return this;
+    }
 
-        return statement;
+    /**
+     * Adds a parameter set to the batch, values of the map replace the current values of parameters.
+     */
+    public NbQuery addBatchMap(Map<String, Object> map) {
+        Map<String, Object> row = new HashMap<>(valueMap);
+        row.putAll(map);
+        batch.add(row);
+        return this;
     }
 
-    private void setParamsToStatement(PreparedStatement statement, List<String> nameList,
-                                      Map<String, Object> valueMap) throws SQLException {
-        int index = 1;
-        for (String name : nameList) {
-            if (!valueMap.containsKey(name)) {
-                throw new NimbleException(String.format("Value for parameter :%s is not provided", name));
-            }
+    public NbQuery addBatchParams(NbParams params) {
+        return addBatchMap(params.getParamMap());
+    }
 
-            Object value = valueMap.get(name);
+    /**
+     * Adds a parameter set to the batch, values of bean properties replace the current values of parameters.
+     */
+    public NbQuery addBatchBean(Object bean) {
+        Map<String, Object> row = new HashMap<>(valueMap);
+        putBeanValues(row, bean);
+        batch.add(row);
+        return this;
+    }
+
+    public NbQuery clearBatch() {
+        batch.clear();
+        return this;
+    }
 
-            if (value == null) {
-                statement.setObject(index, null);
-                index++;
-                continue;
+    /**
+     * Executes the query for every parameter set of the batch with JDBC batches of the size set in
+     * {@link Nimble#setBatchSize(int)}. Consecutive sets which expand to the same SQL share a batch. The batch is
+     * cleared after the execution. Keys generated by all rows are available from
+     * {@link #getGeneratedKeys(Class)} if the driver returns them for batches.
+     *
+     * @return Update counts in the order of parameter sets
+     */
+    public int[] executeBatch() {
+        generatedKey = null;
+        generatedKeys = null;
+        ParsedQuery parsedQuery = context.getQueryCache().get(query);
+        ListExpansion listExpansion = context.getListExpansion();
+        int batchSize = context.getBatchSize();
+        int[] result = new int[batch.size()];
+        List<Object> keys = new ArrayList<>();
+        try {
+            int start = 0;
+            while (start < batch.size()) {
+                String preparedQuery = parsedQuery.expand(batch.get(start), listExpansion);
+                int end = start + 1;
+                while (end < batch.size() && end - start < batchSize &&
+                        preparedQuery.equals(parsedQuery.expand(batch.get(end), listExpansion))) {
+                    end++;
+                }
+                executeBatch(preparedQuery, parsedQuery, listExpansion, start, end, result, keys);
+                start = end;
             }
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        } finally {
+            batch.clear();
+        }
+        generatedKeys = keys.toArray();
+        generatedKey = keys.isEmpty() ? null : keys.get(0);
+        return result;
+    }
 
-            Class valueType = value.getClass();
-            if (valueType.isArray()) {
-                for (int i = 0; i < Array.getLength(value); i++) {
-                    Object arrayItem = context.getConverterManager().convertToDb(Array.get(value, i));
-                    statement.setObject(index, arrayItem);
-                    index++;
+    private void executeBatch(String preparedQuery, ParsedQuery parsedQuery, ListExpansion listExpansion,
+                              int start, int end, int[] result, List<Object> keys) throws SQLException {
+        PreparedStatement statement = connection.prepareCached(preparedQuery, true);
+        try {
+            int[] counts;
+            try {
+                for (int i = start; i < end; i++) {
+                    setParamsToStatement(statement, parsedQuery, listExpansion, batch.get(i));
+                    statement.addBatch();
                 }
-            } else if (Collection.class.isAssignableFrom(valueType)) {
-                for (Object item : ((Collection) value)) {
-                    Object collectionItem = context.getConverterManager().convertToDb(item);
-                    statement.setObject(index, collectionItem);
-                    index++;
+                counts = statement.executeBatch();
+            } catch (SQLException | RuntimeException e) {
+                statement.clearBatch();
+                throw e;
+            }
+            System.arraycopy(counts, 0, result, start, counts.length);
+
+            try (ResultSet resultSet = statement.getGeneratedKeys()) {
+                if (resultSet.getMetaData().getColumnCount() > 0) {
+                    while (resultSet.next()) {
+                        keys.add(resultSet.getObject(1));
+                    }
                 }
-            } else {
-                value = context.getConverterManager().convertToDb(value);
-                statement.setObject(index, value);
-                index++;
             }
+        } finally {
+            connection.releaseCached(statement);
+        }
+    }
+
+    private PreparedStatement createStatement(boolean returnGeneratedKey) throws SQLException {
+        ParsedQuery parsedQuery = context.getQueryCache().get(query);
+        ListExpansion listExpansion = context.getListExpansion();
+        String preparedQuery = parsedQuery.expand(valueMap, listExpansion);
+
+        PreparedStatement statement = connection.prepareCached(preparedQuery, returnGeneratedKey);
+        try {
+            setParamsToStatement(statement, parsedQuery, listExpansion, valueMap);
+        } catch (SQLException | RuntimeException e) {
+            connection.releaseCached(statement);
+            throw e;
+        }
+        return statement;
+    }
+
+    private void setParamsToStatement(PreparedStatement statement, ParsedQuery parsedQuery,
+                                      ListExpansion listExpansion, Map<String, Object> valueMap)
+            throws SQLException {
+        int index = 1;
+        for (int paramIndex = 0; paramIndex < parsedQuery.getParamCount(); paramIndex++) {
+            String name = parsedQuery.getParamName(paramIndex);
+            if (!valueMap.containsKey(name)) {
+                throw new NimbleException(String.format("Value for parameter :%s is not provided", name));
+            }
+            index = NbStatements.setParam(statement, index, valueMap.get(name), context.getConverterManager(),
+                    parsedQuery.getListExpansion(paramIndex, listExpansion));
         }
     }
 
@@ -225,20 +345,33 @@ public class NbQuery {
         return (T) context.getConverterManager().convertFromDb(generatedKey, type);
     }
 
+    /**
+     * @return Keys generated by the last {@link #executeBatch()} in the order of rows or {@code null} if there
+     * was no batch execution
+     */
+    public <T> T[] getGeneratedKeys(Class<T> type) {
+        if (generatedKeys == null) return null;
+        T[] result = (T[]) java.lang.reflect.Array.newInstance(type, generatedKeys.length);
+        for (int i = 0; i < generatedKeys.length; i++) {
+            result[i] = (T) context.getConverterManager().convertFromDb(generatedKeys[i], type);
+        }
+        return result;
+    }
+
     public NbQuery addParamsBean(Object bean) {
+        putBeanValues(valueMap, bean);
+        return this;
+    }
+
+    private void putBeanValues(Map<String, Object> map, Object bean) {
         if (bean == null) {
             throw new NimbleException("Null value is not allowed");
         }
-        Field[] fields = bean.getClass().getDeclaredFields();
-        for (Field field : fields) {
-            try {
-                field.setAccessible(true);
-                valueMap.put(field.getName(), field.get(bean));
-            } catch (IllegalAccessException e) {
-                throw new NimbleException(String.format("Can't read field value of field %s of class %s",
-                        field.getName(), bean.getClass().getName()));
-            }
+        EntityDescriptor descriptor = context.getEntityDescriptorRegistry().getDescriptor(bean.getClass());
+        String[] fieldNames = descriptor.getFieldNames();
+        PropertyGetter[] fieldGetters = descriptor.getFieldGetters();
+        for (int i = 0; i < fieldNames.length; i++) {
+            map.put(fieldNames[i], fieldGetters[i].get(bean));
         }
-        return this;
     }
 }
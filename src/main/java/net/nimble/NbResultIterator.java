@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleSQLException;
+import net.nimble.meta.mappers.ObjectMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator which maps rows of a result set one by one, so memory doesn't depend on the size of the result.
+ * The iterator owns its statement and result set, they are closed when the last row is read or the iterator
+ * is closed. An iterator which is not read to the end must be closed. If auto-commit was turned off for
+ * the cursor, it's turned on again on close, see {@link NbQuery#iterate(Class)}.
+ */
+public class NbResultIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final ObjectMapper mapper;
+    private final NbConnection autoCommitConnection;
+    private Boolean hasNext;
+    private boolean closed;
+
+    /**
+     * @param autoCommitConnection Connection which auto-commit must be resumed after the cursor is closed or
+     *                             {@code null}
+     */
+    NbResultIterator(Statement statement, ResultSet resultSet, ObjectMapper mapper,
+                     NbConnection autoCommitConnection) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.autoCommitConnection = autoCommitConnection;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (hasNext == null) {
+            try {
+                hasNext = resultSet.next();
+            } catch (SQLException e) {
+                close();
+                throw new NimbleSQLException(e);
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        return (T) mapper.create(resultSet);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows can't be removed");
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            try {
+                try {
+                    resultSet.close();
+                } finally {
+                    statement.close();
+                }
+            } finally {
+                if (autoCommitConnection != null) {
+                    autoCommitConnection.resumeAutoCommit();
+                }
+            }
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.mappers.MapMapper;
+import net.nimble.meta.mappers.NbRowMapper;
+import net.nimble.meta.mappers.ObjectMapper;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.ParsedQuery;
+import net.nimble.sql.SqlDialect;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Binding of parameter values and reading of results shared by {@link NbQuery} and {@link NbPreparedQuery}.
+ */
+class NbStatements {
+
+    private static final Map<Class, String> ARRAY_TYPE_NAMES = new HashMap<>();
+
+    static {
+        ARRAY_TYPE_NAMES.put(Short.class, "int2");
+        ARRAY_TYPE_NAMES.put(Integer.class, "int4");
+        ARRAY_TYPE_NAMES.put(Long.class, "int8");
+        ARRAY_TYPE_NAMES.put(Float.class, "float4");
+        ARRAY_TYPE_NAMES.put(Double.class, "float8");
+        ARRAY_TYPE_NAMES.put(BigDecimal.class, "numeric");
+        ARRAY_TYPE_NAMES.put(Boolean.class, "bool");
+        ARRAY_TYPE_NAMES.put(String.class, "varchar");
+        ARRAY_TYPE_NAMES.put(UUID.class, "uuid");
+        ARRAY_TYPE_NAMES.put(java.sql.Date.class, "date");
+        ARRAY_TYPE_NAMES.put(Time.class, "time");
+        ARRAY_TYPE_NAMES.put(Timestamp.class, "timestamp");
+    }
+
+    /**
+     * Sets the value of a named parameter. Array and collection values are set according to the strategy
+     * the parameter was expanded with, see {@link ParsedQuery#getListExpansion(int, ListExpansion)}.
+     *
+     * @return Index of the next parameter
+     */
+    static int setParam(PreparedStatement statement, int index, Object value, ConverterManagerImpl converterManager,
+                        ListExpansion listExpansion) throws SQLException {
+        if (value == null) {
+            statement.setObject(index, null);
+            return index + 1;
+        }
+
+        Object[] items;
+        Class valueType = value.getClass();
+        if (valueType.isArray()) {
+            items = new Object[Array.getLength(value)];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = converterManager.convertToDb(Array.get(value, i));
+            }
+        } else if (Collection.class.isAssignableFrom(valueType)) {
+            items = new Object[((Collection) value).size()];
+            int i = 0;
+            for (Object item : ((Collection) value)) {
+                items[i++] = converterManager.convertToDb(item);
+            }
+        } else {
+            statement.setObject(index, converterManager.convertToDb(value));
+            return index + 1;
+        }
+
+        if (listExpansion == ListExpansion.ARRAY) {
+            statement.setArray(index, statement.getConnection().createArrayOf(getArrayTypeName(items), items));
+            return index + 1;
+        }
+        int markCount = listExpansion.getMarkCount(items.length);
+        for (int i = 0; i < markCount; i++) {
+            statement.setObject(index, items[Math.min(i, items.length - 1)]);
+            index++;
+        }
+        return index;
+    }
+
+    private static String getArrayTypeName(Object[] items) {
+        for (Object item : items) {
+            if (item == null) continue;
+            String typeName = ARRAY_TYPE_NAMES.get(item.getClass());
+            if (typeName == null) {
+                throw new NimbleException("Can't bind list of " + item.getClass().getName() + " as SQL array");
+            }
+            return typeName;
+        }
+        throw new NimbleException("Can't resolve SQL array type of a list without values");
+    }
+
+    /**
+     * @return Fetch size which makes the driver stream rows instead of reading the whole result. MySQL Connector/J
+     * streams only with {@code Integer.MIN_VALUE} unless cursor fetch is turned on in the URL.
+     */
+    static int getCursorFetchSize(SqlDialect dialect, int fetchSize) {
+        return dialect == SqlDialect.MYSQL ? Integer.MIN_VALUE : fetchSize;
+    }
+
+    /**
+     * @return {@code true} if the driver uses a server cursor only within a transaction, Postgres reads the whole
+     * result in auto-commit mode
+     */
+    static boolean isCursorInTransaction(SqlDialect dialect) {
+        return dialect == SqlDialect.POSTGRES;
+    }
+
+    static Object readValue(ResultSet resultSet) throws SQLException {
+        if (resultSet.getMetaData().getColumnCount() > 1) {
+            throw new NimbleException(String.format("Result is not singular. There are %d columns in the result.",
+                    resultSet.getMetaData().getColumnCount()));
+        }
+
+        Object value = null;
+        int counter = 0;
+        while (resultSet.next()) {
+            counter++;
+            if (counter > 1) {
+                throw new NimbleException("Result is not singular. There are more than one row in the result.");
+            }
+            value = resultSet.getObject(1);
+        }
+        return value;
+    }
+
+    static Map<String, Object>[] readMapList(ResultSet resultSet) throws SQLException {
+        List<Map> resultList = new ArrayList<>();
+        ObjectMapper mapper = new MapMapper();
+        while (resultSet.next()) {
+            Map map = (Map) mapper.create(resultSet);
+            resultList.add(map);
+        }
+        Map[] result = (Map[]) Array.newInstance(Map.class, resultList.size());
+        return resultList.toArray(result);
+    }
+
+    static NbRow[] readRowList(ResultSet resultSet, ConverterManagerImpl converterManager) throws SQLException {
+        List<NbRow> resultList = new ArrayList<>();
+        ObjectMapper mapper = new NbRowMapper(converterManager);
+        while (resultSet.next()) {
+            NbRow object = (NbRow) mapper.create(resultSet);
+            resultList.add(object);
+        }
+        return resultList.toArray(new NbRow[0]);
+    }
+
+    static <T> T[] readList(ResultSet resultSet, ObjectMapper mapper, Class<T> type) throws SQLException {
+        List<T> resultList = new ArrayList<>();
+        while (resultSet.next()) {
+            Object object = mapper.create(resultSet);
+            resultList.add((T) object);
+        }
+        T[] result = (T[]) Array.newInstance(type, resultList.size());
+        return resultList.toArray(result);
+    }
+
+    /**
+     * @return The first generated key or {@code null} if the statement generated nothing
+     */
+    static Object readGeneratedKey(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.getGeneratedKeys()) {
+            if (resultSet.getMetaData().getColumnCount() > 0 && resultSet.next()) {
+                return resultSet.getObject(1);
+            }
+        }
+        return null;
+    }
+}
@@ -27,14 +27,28 @@ package net.nimble;
 import net.nimble.conversion.ConverterManager;
 import net.nimble.conversion.ConverterManagerImpl;
 import net.nimble.exceptions.NimbleSQLException;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.EntityDescriptorRegistry;
+import net.nimble.meta.EntityScanner;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.accessors.MethodHandleAccessorFactory;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
 import net.nimble.meta.mappers.ObjectMapperFactory;
 import net.nimble.meta.extracts.ValueExtractFactory;
+import net.nimble.sql.QueryCache;
+import net.nimble.sql.ListExpansion;
 import net.nimble.sql.SqlDialect;
 import net.nimble.sql.readers.ResultSetReaderFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class Nimble {
 
@@ -42,17 +56,43 @@ public class Nimble {
     private final NbContext context;
 
     public Nimble(DataSource dataSource, SqlDialect dialect) {
+        this(dataSource, dialect, new MethodHandleAccessorFactory());
+    }
+
+    /**
+     * @param accessorFactory Factory of objects used to read and write properties of entities. By default
+     *                        {@link MethodHandleAccessorFactory} is used, {@link ReflectionAccessorFactory}
+     *                        may be passed to access properties with plain reflection.
+     */
+    public Nimble(DataSource dataSource, SqlDialect dialect, AccessorFactory accessorFactory) {
+        this(dataSource, dialect, accessorFactory, AccessStrategy.SETTER);
+    }
+
+    /**
+     * @param accessStrategy Defines whether entity properties are accessed by getters and setters, directly
+     *                       through fields or by setters with fallback to fields, see {@link AccessStrategy}.
+     */
+    public Nimble(DataSource dataSource, SqlDialect dialect, AccessorFactory accessorFactory,
+                  AccessStrategy accessStrategy) {
         this.dataSource = dataSource;
         this.context = new NbContext();
         this.context.setDialect(dialect);
+        this.context.setAccessorFactory(accessorFactory);
+        this.context.setAccessStrategy(accessStrategy);
         fillContext();
     }
 
     private void fillContext() {
+        GeneratedEntityRegistry generatedEntityRegistry =
+                new GeneratedEntityRegistry(Thread.currentThread().getContextClassLoader());
         context.setConverterManager(new ConverterManagerImpl());
-        context.setObjectMapperFactory(new ObjectMapperFactory(context.getConverterManager()));
-        context.setValueExtractFactory(new ValueExtractFactory());
+        context.setObjectMapperFactory(new ObjectMapperFactory(context.getConverterManager(),
+                context.getAccessorFactory(), generatedEntityRegistry, context.getAccessStrategy()));
+        context.setValueExtractFactory(new ValueExtractFactory(context.getAccessorFactory()));
         context.setResultSetReader(ResultSetReaderFactory.getReader(context.getDialect()));
+        context.setQueryCache(new QueryCache(context.getDialect()));
+        context.setEntityDescriptorRegistry(new EntityDescriptorRegistry(context.getAccessorFactory(),
+                context.getAccessStrategy(), generatedEntityRegistry));
     }
 
     public NbConnection getConnection() {
@@ -91,6 +131,168 @@ public class Nimble {
         }
     }
 
+    /**
+     * Turns on generation of mapper classes for entities. Generated mappers read values with typed getters
+     * of {@code ResultSet} and call setters directly, which is faster on large results. Values are mapped as
+     * reflective mapping does it, a NULL value of a primitive property causes {@code NimbleException}.
+     */
+    public void setGenerateMappers(boolean generateMappers) {
+        context.getObjectMapperFactory().setGenerateMappers(generateMappers);
+    }
+
+    /**
+     * Builds descriptors and mapping plans of the passed entities, so that the first operations with them don't
+     * pay for reflection. It's supposed to be called once at startup. Mapping plans are built for the columns
+     * of {@code select *} from the tables of the entities, so the method needs a connection to the database.
+     * An entity which fails, for instance because its table doesn't exist, doesn't stop the others, its error is
+     * reported by {@link WarmUpResult#getFailures()}.
+     */
+    public WarmUpResult warmUp(Class... entityClasses) {
+        long start = System.nanoTime();
+        Map<Class, Exception> failures = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Class type : entityClasses) {
+                try {
+                    warmUp(connection, type);
+                } catch (SQLException | RuntimeException e) {
+                    failures.put(type, e);
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new NimbleSQLException(e);
+        }
+        return new WarmUpResult(entityClasses.length - failures.size(), System.nanoTime() - start, failures);
+    }
+
+    private void warmUp(Connection connection, Class type) throws SQLException {
+        EntityDescriptor descriptor = context.getEntityDescriptorRegistry().getDescriptor(type);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select * from " + descriptor.getTableName() +
+                     " where 1 = 0")) {
+            context.getObjectMapperFactory().warmUp(type, resultSet.getMetaData());
+        }
+    }
+
+    /**
+     * Warms up all classes annotated with {@link net.nimble.annotations.Table} in the package and its
+     * subpackages, see {@link #warmUp(Class[])}.
+     */
+    public WarmUpResult warmUp(String packageName) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = Nimble.class.getClassLoader();
+        }
+        return warmUp(EntityScanner.findEntities(classLoader, packageName));
+    }
+
+    /**
+     * @return Cache of parsed queries, its counters show whether the capacity fits the application queries
+     */
+    public QueryCache getQueryCache() {
+        return context.getQueryCache();
+    }
+
+    /**
+     * The statement cache belongs to the {@link NbConnection} and is closed with it. With a connection pool
+     * the cache starts empty every time a connection is taken from the pool, so reuse across borrows needs
+     * the statement cache of the pool or the driver.
+     *
+     * @param statementCacheSize Number of prepared statements kept open by every connection for reuse, zero turns
+     *                           the cache off. It's applied to connections taken after the call.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size can't be negative");
+        }
+        context.setStatementCacheSize(statementCacheSize);
+    }
+
+    public ListExpansion getListExpansion() {
+        return context.getListExpansion();
+    }
+
+    /**
+     * @param listExpansion Strategy of passing array and collection values of query parameters, the default is
+     *                      {@link ListExpansion#EXACT}. {@link ListExpansion#ARRAY} requires Postgres.
+     */
+    public void setListExpansion(ListExpansion listExpansion) {
+        if (listExpansion == null) {
+            throw new IllegalArgumentException("List expansion can't be null");
+        }
+        if (listExpansion == ListExpansion.ARRAY && context.getDialect() != SqlDialect.POSTGRES) {
+            throw new IllegalArgumentException("Array binding of list parameters is supported only by Postgres");
+        }
+        context.setListExpansion(listExpansion);
+    }
+
+    public int getBatchSize() {
+        return context.getBatchSize();
+    }
+
+    /**
+     * @param batchSize Maximal number of rows sent in one JDBC batch by bulk operations of connections
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        context.setBatchSize(batchSize);
+    }
+
+    public int getMaxPacketSize() {
+        return context.getMaxPacketSize();
+    }
+
+    /**
+     * @param maxPacketSize Size in bytes which multi-row inserts of MySQL and MariaDB are kept under, it should
+     *                      not exceed {@code max_allowed_packet} of the server. Sizes of rows are estimated, so
+     *                      the value should leave a margin.
+     */
+    public void setMaxPacketSize(int maxPacketSize) {
+        if (maxPacketSize <= 0) {
+            throw new IllegalArgumentException("Max packet size must be positive");
+        }
+        context.setMaxPacketSize(maxPacketSize);
+    }
+
+    public int getFetchSize() {
+        return context.getFetchSize();
+    }
+
+    /**
+     * @param fetchSize Number of rows fetched at once by streaming queries, see {@link NbQuery#iterate(Class)}.
+     *                  MySQL streams row by row regardless of the value.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        context.setFetchSize(fetchSize);
+    }
+
+    public boolean isLeakDetection() {
+        return context.isLeakDetection();
+    }
+
+    /**
+     * @param leakDetection If {@code true}, connections record where every statement was created and log
+     *                      the statements which were not closed before the connection. Statements left open are
+     *                      closed with the connection in any mode. It's applied to connections taken after the call.
+     */
+    public void setLeakDetection(boolean leakDetection) {
+        context.setLeakDetection(leakDetection);
+    }
+
+    /**
+     * @return Number of statements which were left open and closed by connections of this instance
+     */
+    public long getLeakedStatementCount() {
+        return context.getLeakedStatementCount();
+    }
+
     public ConverterManager getConverterManager() {
         return context.getConverterManager();
     }
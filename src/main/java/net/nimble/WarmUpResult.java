@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of {@link Nimble#warmUp(Class[])}.
+ */
+public class WarmUpResult {
+
+    private final int entityCount;
+    private final long durationNanos;
+    private final Map<Class, Exception> failures;
+
+    public WarmUpResult(int entityCount, long durationNanos) {
+        this(entityCount, durationNanos, Collections.<Class, Exception>emptyMap());
+    }
+
+    public WarmUpResult(int entityCount, long durationNanos, Map<Class, Exception> failures) {
+        this.entityCount = entityCount;
+        this.durationNanos = durationNanos;
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * @return Number of entities which were warmed up successfully
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * @return Errors of entities which couldn't be warmed up, by entity classes
+     */
+    public Map<Class, Exception> getFailures() {
+        return failures;
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "Warmed up " + entityCount + " entities in " + getDurationMillis() + " ms" +
+                (failures.isEmpty() ? "" : ", " + failures.size() + " failed");
+    }
+}
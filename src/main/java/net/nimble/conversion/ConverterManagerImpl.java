@@ -34,11 +34,27 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class ConverterManagerImpl implements ConverterManager {
 
+    private static final Map<Type, Class> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        PRIMITIVE_TYPES.put(Boolean.class, boolean.class);
+        PRIMITIVE_TYPES.put(Byte.class, byte.class);
+        PRIMITIVE_TYPES.put(Short.class, short.class);
+        PRIMITIVE_TYPES.put(Integer.class, int.class);
+        PRIMITIVE_TYPES.put(Long.class, long.class);
+        PRIMITIVE_TYPES.put(Float.class, float.class);
+        PRIMITIVE_TYPES.put(Double.class, double.class);
+        PRIMITIVE_TYPES.put(Character.class, char.class);
+    }
+
     private final Map<Type, Map<Type, FromDbConverter<?, ?>>> fromDbConverterMap = new HashMap<>();
     private final Map<Type, ToDbConverter<?>> toDbConverterMap = new HashMap<>();
+    private final ConcurrentMap<Type, FromDbConversion> fromDbConversions = new ConcurrentHashMap<>();
     private final DefaultFromDbConverter defaultFromDbConverter = new DefaultFromDbConverter();
     private final DefaultToDbConverter defaultToDbConverter = new DefaultToDbConverter();
 
@@ -53,7 +69,7 @@ public class ConverterManagerImpl implements ConverterManager {
         addToDbConverter(new DateTimeToDbConverter());
     }
 
-    public void addFromDbConverter(FromDbConverter<?, ?> converter) {
+    public synchronized void addFromDbConverter(FromDbConverter<?, ?> converter) {
         Type[] genericTypes = getConverterGenericTypes(converter);
         if (genericTypes == null || genericTypes.length < 2) {
             throw new NimbleException("Can't find generic params of converter of type " +
@@ -69,6 +85,46 @@ public class ConverterManagerImpl implements ConverterManager {
             fromDbConverterMap.put(genericTypes[0], typeMap);
         }
         typeMap.put(toType, converter);
+        FromDbConversion conversion = fromDbConversions.get(toType);
+        if (conversion != null) {
+            conversion.addConverter(fromType, converter);
+        }
+        Class primitiveType = PRIMITIVE_TYPES.get(toType);
+        conversion = primitiveType != null ? fromDbConversions.get(primitiveType) : null;
+        if (conversion != null) {
+            conversion.addConverter(fromType, converter);
+        }
+    }
+
+    /**
+     * @return Conversion of database values to the passed type, it follows converters added after the call.
+     * Conversions to a primitive type use converters to its wrapper type.
+     */
+    public FromDbConversion getFromDbConversion(Class destType) {
+        FromDbConversion conversion = fromDbConversions.get(destType);
+        return conversion != null ? conversion : createFromDbConversion(destType);
+    }
+
+    private synchronized FromDbConversion createFromDbConversion(Class destType) {
+        FromDbConversion conversion = fromDbConversions.get(destType);
+        if (conversion != null) return conversion;
+        conversion = new FromDbConversion(destType, defaultFromDbConverter);
+        Type converterType = destType;
+        if (destType.isPrimitive()) {
+            for (Map.Entry<Type, Class> entry : PRIMITIVE_TYPES.entrySet()) {
+                if (entry.getValue() == destType) {
+                    converterType = entry.getKey();
+                }
+            }
+        }
+        for (Map.Entry<Type, Map<Type, FromDbConverter<?, ?>>> entry : fromDbConverterMap.entrySet()) {
+            FromDbConverter<?, ?> converter = entry.getValue().get(converterType);
+            if (converter != null) {
+                conversion.addConverter(entry.getKey(), converter);
+            }
+        }
+        fromDbConversions.put(destType, conversion);
+        return conversion;
     }
 
     public void addToDbConverter(ToDbConverter<?> converter) {
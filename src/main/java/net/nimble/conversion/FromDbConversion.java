@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.conversion;
+
+import net.nimble.conversion.converters.DefaultFromDbConverter;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conversion of database values to one destination type. It's resolved once, e.g. when a mapping plan is built,
+ * and sees converters registered later, so the per-value work is a single lookup by the value class, or none
+ * when there are no converters to the destination type.
+ */
+public class FromDbConversion {
+
+    private final Class destType;
+    private final DefaultFromDbConverter defaultConverter;
+    private final Map<Type, FromDbConverter<?, ?>> converters = new ConcurrentHashMap<>();
+    private volatile boolean hasConverters;
+
+    FromDbConversion(Class destType, DefaultFromDbConverter defaultConverter) {
+        this.destType = destType;
+        this.defaultConverter = defaultConverter;
+    }
+
+    void addConverter(Type sourceType, FromDbConverter<?, ?> converter) {
+        converters.put(sourceType, converter);
+        hasConverters = true;
+    }
+
+    public Class getDestType() {
+        return destType;
+    }
+
+    /**
+     * @return {@code true} if there are converters to the destination type, so that values can't be read with
+     * typed getters of {@code ResultSet}
+     */
+    public boolean hasConverters() {
+        return hasConverters;
+    }
+
+    public Object convert(Object value) {
+        if (value == null) return null;
+        if (hasConverters) {
+            FromDbConverter<?, ?> converter = converters.get(value.getClass());
+            if (converter != null) {
+                //noinspection unchecked
+                return ((FromDbConverter) converter).convert(value);
+            }
+        }
+        return defaultConverter.getValueForType(value, destType);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.meta.accessors.PropertySetter;
+
+public class ColumnDescriptor {
+
+    private final String name;
+    private final String columnName;
+    private final Class type;
+    private final PropertyGetter getter;
+    private final PropertySetter setter;
+    private final boolean id;
+    private final boolean generated;
+
+    public ColumnDescriptor(String name, String columnName, Class type, PropertyGetter getter, PropertySetter setter,
+                            boolean id, boolean generated) {
+        this.name = name;
+        this.columnName = columnName;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+        this.id = id;
+        this.generated = generated;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Class getType() {
+        return type;
+    }
+
+    public PropertyGetter getGetter() {
+        return getter;
+    }
+
+    public PropertySetter getSetter() {
+        return setter;
+    }
+
+    public boolean isId() {
+        return id;
+    }
+
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    public Object getValue(Object object) {
+        if (getter == null) {
+            throw new NimbleException("Can't find getter for field " + name + " in the class " +
+                    object.getClass().getName());
+        }
+        return getter.get(object);
+    }
+
+    public void setValue(Object object, Object value) {
+        if (setter == null) {
+            throw new NimbleException("Can't find setter for field " + name + " in the class " +
+                    object.getClass().getName());
+        }
+        setter.set(object, value);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.meta.accessors.PropertyGetter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class EntityDescriptor {
+
+    private final Class type;
+    private final String tableName;
+    private final List<ColumnDescriptor> columns;
+    private final List<ColumnDescriptor> writableColumns;
+    private final ColumnDescriptor idColumn;
+    private final String[] fieldNames;
+    private final PropertyGetter[] fieldGetters;
+    private final EntityBinder binder;
+    private final EntitySql sql;
+
+    public EntityDescriptor(Class type, String tableName, List<ColumnDescriptor> columns,
+                            ColumnDescriptor idColumn, String[] fieldNames, PropertyGetter[] fieldGetters) {
+        this(type, tableName, columns, idColumn, fieldNames, fieldGetters, null);
+    }
+
+    /**
+     * @param binder Binder of writable columns, if it's {@code null} values are bound through the column
+     *               descriptors
+     */
+    public EntityDescriptor(Class type, String tableName, List<ColumnDescriptor> columns,
+                            ColumnDescriptor idColumn, String[] fieldNames, PropertyGetter[] fieldGetters,
+                            EntityBinder binder) {
+        this.type = type;
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.idColumn = idColumn;
+        this.fieldNames = fieldNames;
+        this.fieldGetters = fieldGetters;
+
+        List<ColumnDescriptor> writableColumns = new ArrayList<>(columns.size());
+        for (ColumnDescriptor column : columns) {
+            if (!column.isGenerated()) {
+                writableColumns.add(column);
+            }
+        }
+        this.writableColumns = Collections.unmodifiableList(writableColumns);
+        this.binder = binder != null ? binder : new DescriptorBinder(writableColumns);
+        this.sql = new EntitySql(tableName, this.writableColumns, idColumn);
+    }
+
+    public Class getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<ColumnDescriptor> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return Columns which values are passed on insert and update, that is all columns except generated id.
+     */
+    public List<ColumnDescriptor> getWritableColumns() {
+        return writableColumns;
+    }
+
+    public EntityBinder getBinder() {
+        return binder;
+    }
+
+    public EntitySql getSql() {
+        return sql;
+    }
+
+    public ColumnDescriptor getIdColumn() {
+        return idColumn;
+    }
+
+    public boolean isGeneratedId() {
+        return idColumn != null && idColumn.isGenerated();
+    }
+
+    /**
+     * @return Names of all fields declared by the class, in the same order as {@link #getFieldGetters()}.
+     */
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    public PropertyGetter[] getFieldGetters() {
+        return fieldGetters;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Ignore;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.meta.accessors.PropertySetter;
+import net.nimble.meta.finders.FieldByIdFinder;
+import net.nimble.meta.generated.GeneratedEntity;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import net.nimble.meta.finders.FieldByNameFinder;
+import net.nimble.meta.finders.GetterByIdFinder;
+import net.nimble.meta.finders.MethodByNameFinder;
+import net.nimble.utils.StringUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps descriptors of entity classes. A descriptor is built once on the first request for the class and
+ * then is shared by all connections of the same {@code Nimble} instance.
+ */
+public class EntityDescriptorRegistry {
+
+    private final AccessorFactory accessorFactory;
+    private final AccessStrategy accessStrategy;
+    private final GeneratedEntityRegistry generatedEntityRegistry;
+    private final ClassValue<EntityDescriptor> descriptors = new ClassValue<EntityDescriptor>() {
+        @Override
+        protected EntityDescriptor computeValue(Class<?> type) {
+            GeneratedEntity generatedEntity = accessStrategy == AccessStrategy.SETTER ?
+                    generatedEntityRegistry.getEntity(type) : null;
+            if (generatedEntity != null) {
+                return generatedEntity.createDescriptor(accessorFactory);
+            }
+            return createDescriptor(type);
+        }
+    };
+
+    /**
+     * @param accessStrategy Strategy of access to properties, descriptors generated at compile time follow
+     *                       the setter strategy and are used only with it
+     */
+    public EntityDescriptorRegistry(AccessorFactory accessorFactory, AccessStrategy accessStrategy,
+                                    GeneratedEntityRegistry generatedEntityRegistry) {
+        this.accessorFactory = accessorFactory;
+        this.accessStrategy = accessStrategy;
+        this.generatedEntityRegistry = generatedEntityRegistry;
+    }
+
+    public EntityDescriptor getDescriptor(Class type) {
+        return descriptors.get(type);
+    }
+
+    private EntityDescriptor createDescriptor(Class<?> type) {
+        final Field[] fields = ReflectionUtils.getInstanceFields(type);
+        Method[] methods = type.getMethods();
+        String idName = findIdName(fields, methods);
+        if (accessStrategy == AccessStrategy.FIELD) {
+            return createFieldDescriptor(type, fields, idName);
+        }
+
+        List<Method> getters = new ArrayList<>();
+        for (Method method : methods) {
+            if (method.getDeclaringClass() != type || !isGetter(method)) continue;
+            if (method.getAnnotation(Ignore.class) != null) continue;
+            getters.add(method);
+        }
+        Collections.sort(getters, new Comparator<Method>() {
+            @Override
+            public int compare(Method first, Method second) {
+                int firstIndex = getFieldIndex(fields, first);
+                int secondIndex = getFieldIndex(fields, second);
+                if (firstIndex != secondIndex) {
+                    return firstIndex < secondIndex ? -1 : 1;
+                }
+                return first.getName().compareTo(second.getName());
+            }
+        });
+
+        Field[] freeFields = fields.clone();
+        List<ColumnDescriptor> columns = new ArrayList<>(getters.size());
+        List<Integer> positions = new ArrayList<>(getters.size());
+        ColumnDescriptor idColumn = null;
+        for (Method getter : getters) {
+            String fieldName = getPropertyName(getter);
+            Field field = null;
+            int fieldIndex = ReflectionUtils.findFieldIndex(freeFields, fieldName, false);
+            if (fieldIndex > -1) {
+                field = freeFields[fieldIndex];
+                freeFields[fieldIndex] = null;
+                if (field.getAnnotation(Ignore.class) != null) continue;
+            }
+
+            ColumnDescriptor column = createColumn(fieldName, field, getter, methods, idName);
+            if (column.isId()) {
+                idColumn = column;
+            }
+            columns.add(column);
+            positions.add(getFieldIndex(fields, getter));
+        }
+
+        if (accessStrategy == AccessStrategy.AUTO) {
+            for (int i = 0; i < freeFields.length; i++) {
+                Field field = freeFields[i];
+                if (field == null || !isColumnField(field) || hasGetter(methods, field.getName())) continue;
+                ColumnDescriptor column = createColumn(field.getName(), field, null, methods, idName);
+                if (column.isId()) {
+                    idColumn = column;
+                }
+                int position = 0;
+                while (position < positions.size() && positions.get(position) < i) {
+                    position++;
+                }
+                columns.add(position, column);
+                positions.add(position, i);
+            }
+        }
+
+        if (idColumn == null && idName != null) {
+            idColumn = createIdColumn(idName, fields, methods);
+        }
+
+        return newDescriptor(type, columns, idColumn, fields);
+    }
+
+    private EntityDescriptor createFieldDescriptor(Class<?> type, Field[] fields, String idName) {
+        List<ColumnDescriptor> columns = new ArrayList<>(fields.length);
+        ColumnDescriptor idColumn = null;
+        for (Field field : fields) {
+            if (!isColumnField(field)) continue;
+
+            Id id = field.getAnnotation(Id.class);
+            boolean isId = id != null || field.getName().equalsIgnoreCase(idName);
+            String columnName = MetaUtils.getColumnName(field);
+            ColumnDescriptor column = new ColumnDescriptor(field.getName(),
+                    columnName != null ? columnName : field.getName(), field.getType(),
+                    accessorFactory.createGetter(field), accessorFactory.createSetter(field),
+                    isId, isId && id != null && id.generate());
+            if (isId) {
+                idColumn = column;
+            }
+            columns.add(column);
+        }
+
+        return newDescriptor(type, columns, idColumn, fields);
+    }
+
+    private EntityDescriptor newDescriptor(Class<?> type, List<ColumnDescriptor> columns, ColumnDescriptor idColumn,
+                                           Field[] fields) {
+        String[] fieldNames = new String[fields.length];
+        PropertyGetter[] fieldGetters = new PropertyGetter[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            fieldNames[i] = fields[i].getName();
+            fieldGetters[i] = accessorFactory.createGetter(fields[i]);
+        }
+
+        return new EntityDescriptor(type, MetaUtils.getTableName(type), columns, idColumn, fieldNames, fieldGetters);
+    }
+
+    private static boolean hasGetter(Method[] methods, String fieldName) {
+        for (Method method : methods) {
+            if (isGetter(method) && getPropertyName(method).equalsIgnoreCase(fieldName)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the field is a column when columns are discovered from fields
+     */
+    private static boolean isColumnField(Field field) {
+        return !Modifier.isTransient(field.getModifiers()) && !field.isSynthetic() &&
+                field.getAnnotation(Ignore.class) == null;
+    }
+
+    private ColumnDescriptor createIdColumn(String idName, Field[] fields, Method[] methods) {
+        Method getter = null;
+        for (Method method : methods) {
+            if (isGetter(method) && getPropertyName(method).equalsIgnoreCase(idName)) {
+                getter = method;
+                break;
+            }
+        }
+        int fieldIndex = ReflectionUtils.findFieldIndex(fields, idName, false);
+        Field field = fieldIndex > -1 ? fields[fieldIndex] : null;
+        return createColumn(getter != null ? getPropertyName(getter) : idName, field, getter, methods, idName);
+    }
+
+    private ColumnDescriptor createColumn(String fieldName, Field field, Method getter, Method[] methods,
+                                                 String idName) {
+        Id id = getter != null ? getter.getAnnotation(Id.class) : null;
+        if (id == null && field != null) {
+            id = field.getAnnotation(Id.class);
+        }
+        boolean isId = id != null || fieldName.equalsIgnoreCase(idName);
+
+        String columnName = null;
+        if (field != null) columnName = MetaUtils.getColumnName(field);
+        if (columnName == null && getter != null) columnName = MetaUtils.getColumnName(getter);
+        if (columnName == null) columnName = fieldName;
+
+        MethodByNameFinder setterFinder = new MethodByNameFinder();
+        setterFinder.setMethodName("set" + StringUtils.capitalize(fieldName));
+        new MemberEnumerator().enumerate(methods.clone(), setterFinder);
+
+        Method setter = setterFinder.getMatchedMethod();
+        Class type;
+        PropertySetter propertySetter = null;
+        if (setter != null) {
+            type = setter.getParameterTypes()[0];
+            propertySetter = accessorFactory.createSetter(setter);
+        } else if (accessStrategy == AccessStrategy.AUTO && field != null &&
+                !Modifier.isStatic(field.getModifiers())) {
+            type = field.getType();
+            propertySetter = accessorFactory.createSetter(field);
+        } else if (getter != null) {
+            type = getter.getReturnType();
+        } else {
+            type = field.getType();
+        }
+
+        return new ColumnDescriptor(fieldName, columnName, type,
+                getter != null ? accessorFactory.createGetter(getter) : accessorFactory.createGetter(field),
+                propertySetter, isId, isId && id != null && id.generate());
+    }
+
+    private static String findIdName(Field[] fields, Method[] methods) {
+        MemberEnumerator enumerator = new MemberEnumerator();
+        FieldByIdFinder fieldByIdFinder = new FieldByIdFinder();
+        FieldByNameFinder fieldByNameFinder = new FieldByNameFinder();
+        fieldByNameFinder.setFieldName("id");
+        enumerator.enumerate(fields.clone(), new MemberFinder[]{fieldByIdFinder, fieldByNameFinder});
+        if (fieldByIdFinder.getIdField() != null) {
+            return fieldByIdFinder.getIdField().getName();
+        }
+
+        GetterByIdFinder getterByIdFinder = new GetterByIdFinder();
+        enumerator.enumerate(methods.clone(), getterByIdFinder);
+        if (getterByIdFinder.getIdGetter() != null && isGetter(getterByIdFinder.getIdGetter())) {
+            return getPropertyName(getterByIdFinder.getIdGetter());
+        } else if (fieldByNameFinder.getMatchedField() != null) {
+            return fieldByNameFinder.getMatchedField().getName();
+        }
+
+        for (Method method : methods) {
+            if (isGetter(method) && "ID".equals(method.getName().substring(3).toUpperCase())) {
+                return getPropertyName(method);
+            }
+        }
+        return null;
+    }
+
+    private static int getFieldIndex(Field[] fields, Method getter) {
+        int index = ReflectionUtils.findFieldIndex(fields, getPropertyName(getter), false);
+        return index > -1 ? index : fields.length;
+    }
+
+    private static boolean isGetter(Method method) {
+        return method.getName().length() > 3 && method.getName().startsWith("get") &&
+                method.getParameterTypes().length == 0;
+    }
+
+    private static String getPropertyName(Method getter) {
+        return StringUtils.uncapitalize(getter.getName().substring(3));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.annotations.Table;
+import net.nimble.exceptions.NimbleException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Finds classes annotated with {@link Table} in a package and its subpackages. Both directories and jar
+ * files of the class path are scanned.
+ */
+public class EntityScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    public static Class[] findEntities(ClassLoader classLoader, String packageName) {
+        String path = packageName.replace('.', '/');
+        List<String> classNames = new ArrayList<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(path);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                if ("file".equals(url.getProtocol())) {
+                    scanDirectory(new File(url.toURI()), packageName, classNames);
+                } else {
+                    URLConnection connection = url.openConnection();
+                    if (connection instanceof JarURLConnection) {
+                        scanJar(((JarURLConnection) connection).getJarFile(), path, classNames);
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new NimbleException("Can't scan package " + packageName, e);
+        }
+
+        Collections.sort(classNames);
+        List<Class> entities = new ArrayList<>();
+        for (String className : classNames) {
+            Class type;
+            try {
+                type = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                continue;
+            }
+            if (type.getAnnotation(Table.class) != null) {
+                entities.add(type);
+            }
+        }
+        return entities.toArray(new Class[entities.size()]);
+    }
+
+    private static void scanDirectory(File directory, String packageName, List<String> classNames) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                scanDirectory(file, prefix(packageName, '.') + name, classNames);
+            } else if (name.endsWith(CLASS_SUFFIX)) {
+                classNames.add(prefix(packageName, '.') + name.substring(0, name.length() - CLASS_SUFFIX.length()));
+            }
+        }
+    }
+
+    private static void scanJar(JarFile jarFile, String path, List<String> classNames) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(prefix(path, '/')) && name.endsWith(CLASS_SUFFIX)) {
+                classNames.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+            }
+        }
+    }
+
+    private static String prefix(String name, char separator) {
+        return name.isEmpty() ? name : name + separator;
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL of the simplified CRUD operations of an entity. It's built once per entity class, so every call sends
+ * exactly the same text and driver and server statement caches can reuse it. Parameters of insert and update
+ * follow the order of writable columns, the id parameter of update goes last.
+ */
+public class EntitySql {
+
+    private final String tableName;
+    private final String insertSql;
+    private final String insertPrefix;
+    private final String insertRow;
+    private final String copySql;
+    private final String[] writableColumnNames;
+    private final String idColumnName;
+    private final boolean idGenerated;
+    private final ConcurrentMap<String, String> upsertClauses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, String> multiRowInsertSqls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Integer, String>> multiRowUpsertSqls =
+            new ConcurrentHashMap<>();
+    private final String updateSql;
+    private final String selectByIdSql;
+    private final String deleteByIdSql;
+    private final String deleteByIdsPrefix;
+
+    public EntitySql(String tableName, List<ColumnDescriptor> writableColumns, ColumnDescriptor idColumn) {
+        writableColumnNames = new String[writableColumns.size()];
+        for (int i = 0; i < writableColumnNames.length; i++) {
+            writableColumnNames[i] = writableColumns.get(i).getColumnName();
+        }
+        idColumnName = idColumn != null ? idColumn.getColumnName() : null;
+        idGenerated = idColumn != null && idColumn.isGenerated();
+        this.tableName = tableName;
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("insert into ").append(tableName).append("(");
+        for (int i = 0; i < writableColumns.size(); i++) {
+            if (i > 0) builder.append(",");
+            builder.append(writableColumns.get(i).getColumnName());
+        }
+        insertPrefix = builder.append(") values ").toString();
+
+        builder.setLength(0);
+        builder.append("(");
+        for (int i = 0; i < writableColumns.size(); i++) {
+            if (i > 0) builder.append(",");
+            builder.append("?");
+        }
+        insertRow = builder.append(")").toString();
+        insertSql = insertPrefix + insertRow;
+
+        builder.setLength(0);
+        builder.append("copy ").append(tableName).append(" (");
+        for (int i = 0; i < writableColumns.size(); i++) {
+            if (i > 0) builder.append(",");
+            builder.append(writableColumns.get(i).getColumnName());
+        }
+        copySql = builder.append(") from stdin").toString();
+
+        if (idColumn == null) {
+            updateSql = null;
+            selectByIdSql = null;
+            deleteByIdSql = null;
+            deleteByIdsPrefix = null;
+            return;
+        }
+
+        if (writableColumns.isEmpty()) {
+            updateSql = null;
+        } else {
+            builder.setLength(0);
+            builder.append("update ").append(tableName).append(" set ");
+            for (int i = 0; i < writableColumns.size(); i++) {
+                if (i > 0) builder.append(",");
+                builder.append(writableColumns.get(i).getColumnName()).append("=?");
+            }
+            updateSql = builder.append(" where ").append(idColumn.getColumnName()).append("=?").toString();
+        }
+        selectByIdSql = "select * from " + tableName + " where " + idColumn.getColumnName() + "=?";
+        deleteByIdSql = "delete from " + tableName + " where " + idColumn.getColumnName() + "=?";
+        deleteByIdsPrefix = "delete from " + tableName + " where " + idColumn.getColumnName() + " in (";
+    }
+
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * @return SQL of insert of several rows with one {@code VALUES} list, supported by MySQL and MariaDB. The SQL
+     * is cached per row count, callers are expected to use a few row counts.
+     */
+    public String getInsertSql(int rowCount) {
+        if (rowCount == 1) return insertSql;
+        String sql = multiRowInsertSqls.get(rowCount);
+        if (sql == null) {
+            sql = buildInsertSql(rowCount, "");
+            multiRowInsertSqls.putIfAbsent(rowCount, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * @param upsertClause Clause returned by {@link #getUpsertClause(SqlDialect, String[])}
+     * @return SQL of insert of several rows followed by the upsert clause, cached as {@link #getInsertSql(int)}
+     */
+    public String getInsertSql(int rowCount, String upsertClause) {
+        ConcurrentMap<Integer, String> sqls = multiRowUpsertSqls.get(upsertClause);
+        if (sqls == null) {
+            multiRowUpsertSqls.putIfAbsent(upsertClause, new ConcurrentHashMap<Integer, String>());
+            sqls = multiRowUpsertSqls.get(upsertClause);
+        }
+        String sql = sqls.get(rowCount);
+        if (sql == null) {
+            sql = buildInsertSql(rowCount, upsertClause);
+            sqls.putIfAbsent(rowCount, sql);
+        }
+        return sql;
+    }
+
+    private String buildInsertSql(int rowCount, String suffix) {
+        StringBuilder builder = new StringBuilder(insertPrefix.length() + (insertRow.length() + 1) * rowCount +
+                suffix.length());
+        builder.append(insertPrefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) builder.append(",");
+            builder.append(insertRow);
+        }
+        return builder.append(suffix).toString();
+    }
+
+    /**
+     * @return Length of SQL of insert of several rows without the first row, see {@link #getInsertSql(int)}
+     */
+    public int getInsertPrefixLength() {
+        return insertPrefix.length();
+    }
+
+    /**
+     * @return Length of one row of the {@code VALUES} list, see {@link #getInsertSql(int)}
+     */
+    public int getInsertRowLength() {
+        return insertRow.length() + 1;
+    }
+
+    /**
+     * @return SQL of select by a list of keys with the passed number of keys, a composite key is compared as
+     * a row value: {@code (a,b) in ((?,?),(?,?))}
+     */
+    public String getSelectByKeysSql(String[] keyColumns, int keyCount) {
+        StringBuilder builder = new StringBuilder(64 + keyCount * (keyColumns.length * 2 + 3));
+        builder.append("select * from ").append(tableName).append(" where ");
+        if (keyColumns.length == 1) {
+            builder.append(keyColumns[0]).append(" in (");
+            for (int i = 0; i < keyCount; i++) {
+                if (i > 0) builder.append(",");
+                builder.append("?");
+            }
+            return builder.append(")").toString();
+        }
+
+        builder.append("(");
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) builder.append(",");
+            builder.append(keyColumns[i]);
+        }
+        builder.append(") in (");
+        for (int i = 0; i < keyCount; i++) {
+            if (i > 0) builder.append(",");
+            builder.append("(");
+            for (int j = 0; j < keyColumns.length; j++) {
+                if (j > 0) builder.append(",");
+                builder.append("?");
+            }
+            builder.append(")");
+        }
+        return builder.append(")").toString();
+    }
+
+    /**
+     * @return Postgres {@code COPY} of writable columns from the client in text format
+     */
+    public String getCopySql() {
+        return copySql;
+    }
+
+    /**
+     * Builds the clause which turns a multi-row insert into an upsert, clauses are cached by dialect and conflict
+     * columns. Writable columns other than conflict columns are updated. MySQL and MariaDB find conflicts by
+     * unique keys of the table, so conflict columns only exclude columns from the update there.
+     * <p>
+     * MySQL and MariaDB clauses refer to inserted values with {@code VALUES(column)}. MySQL deprecates it since
+     * 8.0.20 in favour of a row alias, which isn't supported by MariaDB and MySQL before 8.0.19, so the deprecated
+     * form is kept while it works on all supported servers.
+     *
+     * @param conflictColumns Columns of the unique key, the id column if it's empty. They must be written by
+     *                        insert, so a generated id can't be a conflict column and conflict columns must be passed
+     *                        for an entity with generated id.
+     * @return {@code ON CONFLICT} clause for Postgres, {@code ON DUPLICATE KEY UPDATE} clause for MySQL and MariaDB
+     */
+    public String getUpsertClause(SqlDialect dialect, String[] conflictColumns) {
+        StringBuilder key = new StringBuilder(dialect.name());
+        for (String column : conflictColumns) {
+            key.append(',').append(column);
+        }
+        String clause = upsertClauses.get(key.toString());
+        if (clause == null) {
+            clause = buildUpsertClause(dialect, conflictColumns);
+            upsertClauses.putIfAbsent(key.toString(), clause);
+        }
+        return clause;
+    }
+
+    private String buildUpsertClause(SqlDialect dialect, String[] conflictColumns) {
+        if (conflictColumns.length == 0) {
+            if (idColumnName == null) {
+                throw new NimbleException("Conflict columns are required for an entity without id");
+            }
+            if (idGenerated) {
+                throw new NimbleException("Conflict columns are required for an entity with generated id, " +
+                        "inserted rows get new ids and never conflict by id");
+            }
+            conflictColumns = new String[]{idColumnName};
+        }
+        for (String column : conflictColumns) {
+            if (!containsIgnoreCase(writableColumnNames, column)) {
+                throw new NimbleException(String.format("Conflict column %s isn't written by insert into %s",
+                        column, tableName));
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        boolean postgres = dialect == SqlDialect.POSTGRES;
+        if (postgres) {
+            builder.append(" on conflict (");
+            for (int i = 0; i < conflictColumns.length; i++) {
+                if (i > 0) builder.append(",");
+                builder.append(conflictColumns[i]);
+            }
+            builder.append(") do update set ");
+        } else {
+            builder.append(" on duplicate key update ");
+        }
+
+        int updateCount = 0;
+        for (String column : writableColumnNames) {
+            if (containsIgnoreCase(conflictColumns, column)) continue;
+            if (updateCount++ > 0) builder.append(",");
+            builder.append(column).append(postgres ? "=excluded." + column : "=values(" + column + ")");
+        }
+        if (updateCount > 0) {
+            return builder.toString();
+        }
+
+        if (postgres) {
+            return builder.substring(0, builder.indexOf(" do update set ")) + " do nothing";
+        }
+        return builder.append(conflictColumns[0]).append("=").append(conflictColumns[0]).toString();
+    }
+
+    private static boolean containsIgnoreCase(String[] values, String value) {
+        for (String item : values) {
+            if (item.equalsIgnoreCase(value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return SQL of update by id or {@code null} if the entity has no id or no writable columns
+     */
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    /**
+     * @return SQL of select by id or {@code null} if the entity has no id
+     */
+    public String getSelectByIdSql() {
+        return selectByIdSql;
+    }
+
+    /**
+     * @return SQL of delete by id or {@code null} if the entity has no id
+     */
+    public String getDeleteByIdSql() {
+        return deleteByIdSql;
+    }
+
+    /**
+     * @return SQL of delete by a list of ids with the passed number of parameters or {@code null} if the entity
+     * has no id
+     */
+    public String getDeleteByIdsSql(int idCount) {
+        if (deleteByIdsPrefix == null) return null;
+        StringBuilder builder = new StringBuilder(deleteByIdsPrefix.length() + idCount * 2);
+        builder.append(deleteByIdsPrefix);
+        for (int i = 0; i < idCount; i++) {
+            if (i > 0) builder.append(",");
+            builder.append("?");
+        }
+        return builder.append(")").toString();
+    }
+}
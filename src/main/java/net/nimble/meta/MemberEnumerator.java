@@ -24,7 +24,7 @@
 
 package net.nimble.meta;
 
-import jdk.nashorn.internal.ir.annotations.Ignore;
+import net.nimble.annotations.Ignore;
 
 import java.lang.reflect.AccessibleObject;
 
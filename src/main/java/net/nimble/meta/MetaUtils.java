@@ -24,226 +24,124 @@
 
 package net.nimble.meta;
 
-import jdk.nashorn.internal.ir.annotations.Ignore;
 import net.nimble.annotations.Column;
-import net.nimble.annotations.Id;
 import net.nimble.annotations.Table;
 import net.nimble.conversion.ConverterManagerImpl;
 import net.nimble.exceptions.NimbleException;
-import net.nimble.meta.finders.FieldByIdFinder;
-import net.nimble.meta.finders.FieldByNameFinder;
-import net.nimble.meta.finders.GetterByIdFinder;
-import net.nimble.meta.finders.MethodByNameFinder;
-import net.nimble.utils.StringUtils;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Naming rules of entities, shared by the reflective descriptors and the annotation processor.
+ */
 public class MetaUtils {
 
     public static String getTableName(Class type) {
-        Table table = (Table) type.getAnnotation(Table.class);
+        return getTableName((Table) type.getAnnotation(Table.class), type.getSimpleName());
+    }
+
+    public static String getTableName(Table table, String simpleName) {
         if (table != null && table.value().length() > 0) {
             return table.value();
         } else {
-            return type.getSimpleName();
+            return simpleName;
         }
     }
 
-    public static Map<String, Object> getColumnMap(Object object) {
-        Map<String, Object> valueMap = new HashMap<>();
-        Method[] methods = object.getClass().getMethods();
-        Field[] fields = object.getClass().getDeclaredFields();
-        for (Method method : methods) {
-            if (method.getDeclaringClass() != object.getClass() || !method.getName().startsWith("get")) continue;
-            if (method.getAnnotation(Ignore.class) != null) continue;
-            Id id = method.getAnnotation(Id.class);
-            if (id != null && id.generate()) continue;
-
-            String columnName = null;
-
-            String fieldName = StringUtils.uncapitalize(method.getName().substring(3));
-            int fieldIndex = ReflectionUtils.findFieldIndex(fields, fieldName, false);
-            if (fieldIndex > -1) {
-                Field field = fields[fieldIndex];
-                fields[fieldIndex] = null;
-                if (field.getAnnotation(Ignore.class) != null) continue;
-                id = field.getAnnotation(Id.class);
-                if (id != null && id.generate()) continue;
-                columnName = MetaUtils.getColumnName(field);
-            }
-
-            if (columnName == null) {
-                columnName = MetaUtils.getColumnName(method);
-                if (columnName == null) {
-                    columnName = fieldName;
-                }
-            }
+    public static String getColumnName(AccessibleObject member) {
+        return getColumnName(member.getAnnotation(Column.class));
+    }
 
-            try {
-                valueMap.put(columnName, method.invoke(object));
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new NimbleException(e);
-            }
+    /**
+     * @return Column name given by the annotation or {@code null} if the column is named after the property
+     */
+    public static String getColumnName(Column column) {
+        if (column != null && column.value().length() > 0) {
+            return column.value();
         }
+        return null;
+    }
 
+    /**
+     * @return Values of the columns which are passed on insert and update, that is all columns except generated id
+     * @deprecated Use {@link EntityDescriptor#getWritableColumns()}
+     */
+    @Deprecated
+    public static Map<String, Object> getColumnMap(Object object) {
+        Map<String, Object> valueMap = new HashMap<>();
+        for (ColumnDescriptor column : getDescriptor(object.getClass()).getWritableColumns()) {
+            valueMap.put(column.getColumnName(), column.getValue(object));
+        }
         return valueMap;
     }
 
-
+    /**
+     * @deprecated Use the setter of {@link EntityDescriptor#getIdColumn()}
+     */
+    @Deprecated
     public static void applyId(Object id, Object object, ConverterManagerImpl converterManager) {
-        Class objectClass = object.getClass();
-        Field[] fields = object.getClass().getDeclaredFields();
-        Method[] methods = object.getClass().getMethods();
-        FieldByNameFinder fieldByNameFinder = new FieldByNameFinder();
-        fieldByNameFinder.setFieldName("id");
-        FieldByIdFinder fieldByIdFinder = new FieldByIdFinder();
-        GetterByIdFinder getterByIdFinder = new GetterByIdFinder();
-        MemberEnumerator memberEnumerator = new MemberEnumerator();
-        memberEnumerator.enumerate(fields, new MemberFinder[]{fieldByNameFinder, fieldByIdFinder});
-        String fieldName = null;
-        if (fieldByIdFinder.getIdField() != null) {
-            fieldName = fieldByIdFinder.getIdField().getName();
-        } else {
-            memberEnumerator.enumerate(methods, getterByIdFinder);
-            if (getterByIdFinder.getIdGetter() != null) {
-                fieldName = StringUtils.uncapitalize(getterByIdFinder.getIdGetter().getName().substring(3));
-            } else if (fieldByNameFinder.getMatchedField() != null) {
-                fieldName = fieldByNameFinder.getMatchedField().getName();
-            }
-        }
-
-        if (fieldName == null) {
-            throw new NimbleException("Can't find Id field for class " + objectClass.getName());
+        ColumnDescriptor idColumn = getDescriptor(object.getClass()).getIdColumn();
+        if (idColumn == null) {
+            throw new NimbleException("Can't find Id field for class " + object.getClass().getName());
         }
-
-        MethodByNameFinder methodByNameFinder = new MethodByNameFinder();
-        methodByNameFinder.setMethodName("set" + StringUtils.capitalize(fieldName));
-        memberEnumerator.enumerate(methods, methodByNameFinder);
-        Method setter = methodByNameFinder.getMatchedMethod();
-
-        if (setter == null) {
-            throw new NimbleException("Can't find setter for field " + fieldName + " in the class " +
-                    objectClass.getName());
-        }
-
-        try {
-            setter.setAccessible(true);
-            setter.invoke(object, converterManager.convertFromDb(id, setter.getParameterTypes()[0]));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new NimbleException(e);
-        }
-
+        idColumn.setValue(object, converterManager.convertFromDb(id, idColumn.getType()));
     }
 
+    /**
+     * @deprecated Use the getter of {@link EntityDescriptor#getIdColumn()}
+     */
+    @Deprecated
     public static Map<String, Object> getIdColumnMap(Object object) {
-        Map<String, Object> result = new HashMap<>();
-        int methodIndex = -1;
-        Method[] methods = object.getClass().getMethods();
-        for (int i = 0; i < methods.length; i++) {
-            Method method = methods[i];
-            if (!method.getName().startsWith("get")) continue;
-            if (method.getAnnotation(Id.class) != null) {
-                methodIndex = i;
-                break;
-            } else if (methodIndex == -1 && method.getName().equals("getId")) {
-                methodIndex = i;
-            }
-        }
-
-        if (methodIndex == -1) {
+        ColumnDescriptor idColumn = getDescriptor(object.getClass()).getIdColumn();
+        if (idColumn == null) {
             throw new NimbleException("Can't find getter method for object's field ID");
         }
-
-        Method method = methods[methodIndex];
-        String columnName = null;
-        String fieldName = StringUtils.uncapitalize(method.getName().substring(3));
-        int fieldIndex = ReflectionUtils.findFieldIndex(object.getClass().getDeclaredFields(),
-                fieldName, true);
-        if (fieldIndex > -1) {
-            columnName = MetaUtils.getColumnName(object.getClass().getDeclaredFields()[fieldIndex]);
-        }
-        if (columnName == null) {
-            columnName = MetaUtils.getColumnName(method);
-        }
-        if (columnName == null) {
-            columnName = fieldName;
-        }
-
-        try {
-            Object value = method.invoke(object);
-            result.put(columnName, value);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new NimbleException(e);
-        }
+        Map<String, Object> result = new HashMap<>();
+        result.put(idColumn.getColumnName(), idColumn.getValue(object));
         return result;
     }
 
-    public static String getColumnName(AccessibleObject member) {
-        Column column = member.getAnnotation(Column.class);
-        if (column != null && column.value().length() > 0) {
-            return column.value();
-        }
-        return null;
-    }
-
+    /**
+     * @return Field of the id property or {@code null} if the id has no field
+     * @deprecated Use {@link EntityDescriptor#getIdColumn()}
+     */
+    @Deprecated
     public static Field getIdField(Class type) {
-        Field[] fields = type.getDeclaredFields();
-        MemberEnumerator enumerator = new MemberEnumerator();
-        FieldByIdFinder fieldByIdFinder = new FieldByIdFinder();
-        FieldByNameFinder fieldByNameFinder = new FieldByNameFinder();
-        fieldByNameFinder.setFieldName("id");
-        enumerator.enumerate(fields, new MemberFinder[]{fieldByIdFinder, fieldByNameFinder});
-        if (fieldByIdFinder.getIdField() != null) {
-            return fieldByIdFinder.getIdField();
-        } else {
-            Method[] methods = type.getMethods();
-            GetterByIdFinder getterByIdFinder = new GetterByIdFinder();
-            enumerator.enumerate(methods, getterByIdFinder);
-            if (getterByIdFinder.getIdGetter() != null) {
-                Method getter = getterByIdFinder.getIdGetter();
-                fieldByNameFinder.setFieldName(StringUtils.uncapitalize(getter.getName().substring(3)));
-                enumerator.enumerate(fields, fieldByNameFinder);
-            }
-            return fieldByNameFinder.getMatchedField();
+        ColumnDescriptor idColumn = getDescriptor(type).getIdColumn();
+        if (idColumn == null) {
+            return null;
         }
+        Field[] fields = ReflectionUtils.getInstanceFields(type);
+        int index = ReflectionUtils.findFieldIndex(fields, idColumn.getName(), false);
+        return index > -1 ? fields[index] : null;
     }
 
+    /**
+     * @return Column name of the id or {@code null} if the class has no id
+     * @deprecated Use {@link EntityDescriptor#getIdColumn()}
+     */
+    @Deprecated
     public static String geIdColumnName(Class type) {
-        Method[] methods = type.getMethods();
-        Field[] fields = type.getDeclaredFields();
-        Method idNameMethod = null;
-        for (int methodIndex = 0; methodIndex < methods.length; methodIndex++) {
-            Method method = methods[methodIndex];
-            String columnName = null;
-            Field field = null;
-            if (method == null || !method.getName().startsWith("get")) continue;
-            String fieldName = StringUtils.uncapitalize(method.getName().substring(3));
-            int fieldIndex = ReflectionUtils.findFieldIndex(fields, fieldName, true);
-            if (fieldIndex > -1) {
-                field = fields[fieldIndex];
-            }
-
-            if ((field != null && field.getAnnotation(Id.class) != null) || method.getAnnotation(Id.class) != null) {
-                if (field != null) columnName = MetaUtils.getColumnName(field);
-                if (columnName == null) columnName = MetaUtils.getColumnName(method);
-                if (columnName == null) columnName = fieldName;
-                return columnName;
-            }
+        ColumnDescriptor idColumn = getDescriptor(type).getIdColumn();
+        return idColumn != null ? idColumn.getColumnName() : null;
+    }
 
-            if (idNameMethod == null && "ID".equals(fieldName.toUpperCase())) {
-                idNameMethod = method;
-            }
-        }
+    private static EntityDescriptor getDescriptor(Class type) {
+        return DescriptorHolder.registry.getDescriptor(type);
+    }
 
-        if (idNameMethod != null) {
-            return idNameMethod.getName().substring(3);
-        } else {
-            return null;
-        }
+    /**
+     * Descriptors of the deprecated methods, created on their first call.
+     */
+    private static class DescriptorHolder {
+        static final EntityDescriptorRegistry registry = new EntityDescriptorRegistry(
+                new ReflectionAccessorFactory(), AccessStrategy.SETTER,
+                new GeneratedEntityRegistry(MetaUtils.class.getClassLoader()));
     }
 }
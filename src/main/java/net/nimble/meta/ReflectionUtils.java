@@ -24,7 +24,14 @@
 
 package net.nimble.meta;
 
+import net.nimble.exceptions.NimbleReflectionException;
+
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ReflectionUtils {
 
@@ -40,4 +47,39 @@ public class ReflectionUtils {
         }
         return -1;
     }
+
+    /**
+     * @return Instance fields declared in the class and in its superclasses, fields of superclasses go first.
+     * Fields hidden by a field with the same name in a subclass are skipped.
+     */
+    public static Field[] getInstanceFields(Class type) {
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Class current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Field> declaredFields = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || !names.add(field.getName())) continue;
+                declaredFields.add(field);
+            }
+            fields.addAll(0, declaredFields);
+        }
+        return fields.toArray(new Field[fields.size()]);
+    }
+
+    /**
+     * @return Instance field with the name declared in the class or in its superclasses, or {@code null}
+     */
+    public static Field findInstanceField(Class type, String fieldName) {
+        Field[] fields = getInstanceFields(type);
+        int index = findFieldIndex(fields, fieldName, true);
+        return index > -1 ? fields[index] : null;
+    }
+
+    public static Field getInstanceField(Class type, String fieldName) {
+        Field field = findInstanceField(type, fieldName);
+        if (field == null) {
+            throw new NimbleReflectionException(new NoSuchFieldException(fieldName));
+        }
+        return field;
+    }
 }
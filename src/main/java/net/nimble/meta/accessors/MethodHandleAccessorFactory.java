@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.accessors;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.mappers.bytecode.AccessorGenerator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Accessors based on method handles, the default factory of {@code Nimble}. Handles are adapted to the
+ * {@code (Object)Object} and {@code (Object,Object)void} shapes once and kept in static final fields of classes
+ * generated by {@link AccessorGenerator}, so the JIT inlines the accessed member into the accessor as it does
+ * with a direct call. If a class can't be generated the handle is called from an instance field, and a member
+ * which can't be unreflected is served by {@link ReflectionAccessorFactory}.
+ * <p>
+ * Accessors behave as reflective ones: setters accept the values {@code Method.invoke} accepts, including
+ * widening of primitives, and reject others with {@code IllegalArgumentException}. Exceptions thrown by getter
+ * and setter methods are wrapped in {@code NimbleException}.
+ */
+public class MethodHandleAccessorFactory implements AccessorFactory {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final List<Class> NUMERIC_TYPES = Arrays.<Class>asList(byte.class, short.class, int.class,
+            long.class, float.class, double.class);
+    private static final List<Class> NUMERIC_WRAPPERS = Arrays.<Class>asList(Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class);
+    private static final MethodHandle CONVERT;
+    private static final MethodHandle WRAP_EXCEPTION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONVERT = lookup.findStatic(MethodHandleAccessorFactory.class, "convert",
+                    MethodType.methodType(Object.class, Class.class, Object.class));
+            WRAP_EXCEPTION = lookup.findStatic(MethodHandleAccessorFactory.class, "wrapException",
+                    MethodType.methodType(Object.class, Exception.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final ReflectionAccessorFactory fallbackFactory = new ReflectionAccessorFactory();
+    private final AccessorGenerator accessorGenerator = new AccessorGenerator();
+
+    @Override
+    public PropertyGetter createGetter(Method getter) {
+        try {
+            getter.setAccessible(true);
+            MethodHandle handle = wrapExceptions(lookup.unreflect(getter));
+            return createGetter(getter, adapt(handle, getter.getModifiers(), GETTER_TYPE));
+        } catch (IllegalAccessException | SecurityException e) {
+            return fallbackFactory.createGetter(getter);
+        }
+    }
+
+    @Override
+    public PropertyGetter createGetter(Field field) {
+        try {
+            field.setAccessible(true);
+            return createGetter(field, adapt(lookup.unreflectGetter(field), field.getModifiers(), GETTER_TYPE));
+        } catch (IllegalAccessException | SecurityException e) {
+            return fallbackFactory.createGetter(field);
+        }
+    }
+
+    @Override
+    public PropertySetter createSetter(Method setter) {
+        try {
+            setter.setAccessible(true);
+            MethodHandle handle = wrapExceptions(lookup.unreflect(setter));
+            return createSetter(setter, adaptSetter(handle, setter.getModifiers(), setter.getParameterTypes()[0]));
+        } catch (IllegalAccessException | SecurityException e) {
+            return fallbackFactory.createSetter(setter);
+        }
+    }
+
+    @Override
+    public PropertySetter createSetter(Field field) {
+        try {
+            field.setAccessible(true);
+            return createSetter(field, adaptSetter(lookup.unreflectSetter(field), field.getModifiers(),
+                    field.getType()));
+        } catch (IllegalAccessException | SecurityException e) {
+            return fallbackFactory.createSetter(field);
+        }
+    }
+
+    private PropertyGetter createGetter(Member member, MethodHandle handle) {
+        PropertyGetter getter = accessorGenerator.createGetter(member, handle);
+        return getter != null ? getter : new HandleGetter(handle);
+    }
+
+    private PropertySetter createSetter(Member member, MethodHandle handle) {
+        PropertySetter setter = accessorGenerator.createSetter(member, handle);
+        return setter != null ? setter : new HandleSetter(handle);
+    }
+
+    private static MethodHandle adapt(MethodHandle handle, int modifiers, MethodType type) {
+        if (Modifier.isStatic(modifiers)) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * Adapts the setter handle and converts the value before the call, see {@link #convert(Class, Object)}.
+     */
+    private static MethodHandle adaptSetter(MethodHandle handle, int modifiers, Class valueType) {
+        return MethodHandles.filterArguments(adapt(handle, modifiers, SETTER_TYPE), 1,
+                MethodHandles.insertArguments(CONVERT, 0, valueType));
+    }
+
+    private static MethodHandle wrapExceptions(MethodHandle handle) {
+        MethodType type = handle.type();
+        MethodHandle handler = MethodHandles.dropArguments(
+                WRAP_EXCEPTION.asType(MethodType.methodType(type.returnType(), Exception.class)), 1,
+                type.parameterList());
+        return MethodHandles.catchException(handle, Exception.class, handler);
+    }
+
+    private static Object wrapException(Exception e) {
+        throw new NimbleException(e);
+    }
+
+    /**
+     * Checks the value the same way as {@code Method.invoke} does it: a primitive property takes a wrapper which
+     * is converted to the property type by identity or widening conversion, a reference property takes
+     * {@code null} and instances of its type.
+     */
+    private static Object convert(Class type, Object value) {
+        if (type.isPrimitive()) {
+            Object converted = widen(type, value);
+            if (converted != null) {
+                return converted;
+            }
+        } else if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        throw new IllegalArgumentException("argument type mismatch");
+    }
+
+    private static Object widen(Class type, Object value) {
+        if (value == null) return null;
+        if (type == boolean.class) return value instanceof Boolean ? value : null;
+        if (type == char.class) return value instanceof Character ? value : null;
+
+        int source;
+        if (value instanceof Character) {
+            value = (int) (Character) value;
+            source = NUMERIC_TYPES.indexOf(int.class);
+        } else {
+            source = NUMERIC_WRAPPERS.indexOf(value.getClass());
+        }
+        int target = NUMERIC_TYPES.indexOf(type);
+        if (source < 0 || source > target) return null;
+        if (source == target) return value;
+
+        Number number = (Number) value;
+        if (type == short.class) return number.shortValue();
+        if (type == int.class) return number.intValue();
+        if (type == long.class) return number.longValue();
+        if (type == float.class) return number.floatValue();
+        return number.doubleValue();
+    }
+
+    private static class HandleGetter implements PropertyGetter {
+        private final MethodHandle handle;
+
+        HandleGetter(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Object get(Object object) {
+            try {
+                return (Object) handle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new NimbleException(e);
+            }
+        }
+    }
+
+    private static class HandleSetter implements PropertySetter {
+        private final MethodHandle handle;
+
+        HandleSetter(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void set(Object object, Object value) {
+            try {
+                handle.invokeExact(object, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new NimbleException(e);
+            }
+        }
+    }
+}
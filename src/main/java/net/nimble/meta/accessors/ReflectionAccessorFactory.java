@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.accessors;
+
+import net.nimble.exceptions.NimbleException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class ReflectionAccessorFactory implements AccessorFactory {
+
+    @Override
+    public PropertyGetter createGetter(final Method getter) {
+        getter.setAccessible(true);
+        return new PropertyGetter() {
+            @Override
+            public Object get(Object object) {
+                try {
+                    return getter.invoke(object);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new NimbleException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public PropertyGetter createGetter(final Field field) {
+        field.setAccessible(true);
+        return new PropertyGetter() {
+            @Override
+            public Object get(Object object) {
+                try {
+                    return field.get(object);
+                } catch (IllegalAccessException e) {
+                    throw new NimbleException(String.format("Can't read field value of field %s of class %s",
+                            field.getName(), field.getDeclaringClass().getName()), e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public PropertySetter createSetter(final Method setter) {
+        setter.setAccessible(true);
+        return new PropertySetter() {
+            @Override
+            public void set(Object object, Object value) {
+                try {
+                    setter.invoke(object, value);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new NimbleException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public PropertySetter createSetter(final Field field) {
+        field.setAccessible(true);
+        return new PropertySetter() {
+            @Override
+            public void set(Object object, Object value) {
+                try {
+                    field.set(object, value);
+                } catch (IllegalAccessException e) {
+                    throw new NimbleException(String.format("Can't write field value of field %s of class %s",
+                            field.getName(), field.getDeclaringClass().getName()), e);
+                }
+            }
+        };
+    }
+}
@@ -25,9 +25,9 @@
 package net.nimble.meta.extracts;
 
 import net.nimble.exceptions.NimbleException;
-import net.nimble.exceptions.NimbleReflectionException;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.accessors.PropertyGetter;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.List;
@@ -35,46 +35,45 @@ import java.util.Map;
 
 public class ObjectValueExtract implements ValueExtract {
 
+    private final AccessorFactory accessorFactory;
+    private final ClassValue<Map<String, PropertyGetter>> getters = new ClassValue<Map<String, PropertyGetter>>() {
+        @Override
+        protected Map<String, PropertyGetter> computeValue(Class<?> type) {
+            return createGetterMap(type);
+        }
+    };
+
+    public ObjectValueExtract(AccessorFactory accessorFactory) {
+        this.accessorFactory = accessorFactory;
+    }
+
     @Override
     public Map<String, Object> getValueMap(List<String> valueNames, Object object) {
         Map<String, Object> valueMap = new HashMap<>();
         if (object == null || valueNames.size() == 0) return valueMap;
 
-        Class type = object.getClass();
-        Method[] methods = type.getMethods();
+        Map<String, PropertyGetter> getterMap = getters.get(object.getClass());
         for (String valueName : valueNames) {
-
-            String valueNameUpper = valueName.toUpperCase();
-            Method getter = null;
-            for (int i = 0; i < methods.length; i++) {
-                Method method = methods[i];
-                if (method == null) continue;
-
-                String methodName = method.getName();
-                if (methodName.length() <= 3 || !methodName.startsWith("get")) {
-                    methods[i] = null;
-                    continue;
-                }
-
-                if (methodName.substring(3).toUpperCase().equals(valueNameUpper)) {
-                    methods[i] = null;
-                    getter = method;
-                    break;
-                }
-            }
-
+            PropertyGetter getter = getterMap.get(valueName.toUpperCase());
             if (getter == null) {
                 throw new NimbleException("Can't find getter method for parameter :" + valueName);
             }
-            try {
-                getter.setAccessible(true);
-                Object value = getter.invoke(object);
-                valueMap.put(valueName, value);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new NimbleReflectionException(e);
-            }
+            valueMap.put(valueName, getter.get(object));
         }
 
         return valueMap;
     }
+
+    private Map<String, PropertyGetter> createGetterMap(Class type) {
+        Map<String, PropertyGetter> getterMap = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            String methodName = method.getName();
+            if (methodName.length() <= 3 || !methodName.startsWith("get")) continue;
+            String valueName = methodName.substring(3).toUpperCase();
+            if (!getterMap.containsKey(valueName)) {
+                getterMap.put(valueName, accessorFactory.createGetter(method));
+            }
+        }
+        return getterMap;
+    }
 }
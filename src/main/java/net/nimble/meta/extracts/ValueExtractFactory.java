@@ -26,16 +26,21 @@ package net.nimble.meta.extracts;
 
 import net.nimble.NbParams;
 import net.nimble.NbRow;
+import net.nimble.meta.accessors.AccessorFactory;
 
 import java.util.Map;
 
 public class ValueExtractFactory {
 
-    private final ObjectValueExtract objectValueExtract = new ObjectValueExtract();
+    private final ObjectValueExtract objectValueExtract;
     private final MapValueExtract mapValueExtract = new MapValueExtract();
     private final NbParamsValueExtract nbParamsValueExtract = new NbParamsValueExtract();
     private final NbRowValueExtract nbRowValueExtract = new NbRowValueExtract();
 
+    public ValueExtractFactory(AccessorFactory accessorFactory) {
+        this.objectValueExtract = new ObjectValueExtract(accessorFactory);
+    }
+
     public ValueExtract getExtractor(Object object) {
         if (object instanceof Map) {
             return mapValueExtract;
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.generated;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.mappers.ObjectMapper;
+
+/**
+ * Metadata of an entity generated at compile time by {@code net.nimble.processor.EntityProcessor}.
+ * Implementations are registered in {@code META-INF/services} and are preferred to the metadata built
+ * with reflection.
+ */
+public interface GeneratedEntity {
+    Class getEntityClass();
+
+    /**
+     * @param accessorFactory Factory used for private fields which generated code can't read directly
+     */
+    EntityDescriptor createDescriptor(AccessorFactory accessorFactory);
+
+    /**
+     * @return Mapper of result set rows or {@code null} if the class can't be instantiated by generated code
+     */
+    ObjectMapper createMapper(ConverterManagerImpl converterManager);
+}
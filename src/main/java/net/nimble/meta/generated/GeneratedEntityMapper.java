@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.generated;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.mappers.ObjectMapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Base class of mappers generated by the entity annotation processor. Subclasses resolve columns to
+ * properties with a switch over column names and call setters of the entity directly.
+ */
+public abstract class GeneratedEntityMapper implements ObjectMapper {
+
+    private final ConverterManagerImpl converterManager;
+    private final Class objectClass;
+    private final String[] propertyNames;
+    private final Class[] propertyTypes;
+    private int[] properties;
+
+    protected GeneratedEntityMapper(ConverterManagerImpl converterManager, Class objectClass,
+                                    String[] propertyNames, Class[] propertyTypes) {
+        this.converterManager = converterManager;
+        this.objectClass = objectClass;
+        this.propertyNames = propertyNames;
+        this.propertyTypes = propertyTypes;
+    }
+
+    @Override
+    public Object create(ResultSet resultSet) {
+        try {
+            if (properties == null) {
+                properties = resolveProperties(resultSet.getMetaData());
+            }
+
+            Object object = newInstance();
+            for (int i = 0; i < properties.length; i++) {
+                int property = properties[i];
+                Object value = resultSet.getObject(i + 1);
+                Object converted = converterManager.convertFromDb(value, propertyTypes[property]);
+                if (converted == null && propertyTypes[property].isPrimitive()) {
+                    throw cantApply(value, property, null);
+                }
+                try {
+                    setProperty(object, property, converted);
+                } catch (ClassCastException e) {
+                    throw cantApply(value, property, e);
+                }
+            }
+            return object;
+        } catch (SQLException e) {
+            throw new NimbleException("Can't read values of the passed RowSet", e);
+        }
+    }
+
+    /**
+     * @param columnName Upper-cased name of the column
+     * @return Index of the property which receives values of the column or {@code -1} if there is no one
+     */
+    protected abstract int findProperty(String columnName);
+
+    protected abstract Object newInstance();
+
+    protected abstract void setProperty(Object object, int property, Object value);
+
+    private int[] resolveProperties(ResultSetMetaData metaData) throws SQLException {
+        int[] result = new int[metaData.getColumnCount()];
+        for (int i = 0; i < result.length; i++) {
+            String columnName = metaData.getColumnName(i + 1);
+            result[i] = findProperty(columnName.toUpperCase());
+            if (result[i] < 0) {
+                throw new NimbleException("Can't find field for column '" + columnName + "' in the class " +
+                        objectClass.getName());
+            }
+        }
+        return result;
+    }
+
+    private NimbleException cantApply(Object value, int property, Throwable cause) {
+        return new NimbleException(String.format("Can't apply value of type %s to field %s",
+                value == null ? null : value.getClass().getName(), propertyNames[property]), cause);
+    }
+}
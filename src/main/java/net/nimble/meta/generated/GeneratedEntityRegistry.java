@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.generated;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps generated entity metadata found by {@code ServiceLoader} in the class path. Entries which can't be
+ * loaded, for instance stale entries of removed classes, are logged and skipped, their entities are handled
+ * with reflection.
+ */
+public class GeneratedEntityRegistry {
+
+    private static final Logger logger = Logger.getLogger(GeneratedEntityRegistry.class.getName());
+
+    private final Map<Class, GeneratedEntity> entities = new HashMap<>();
+
+    public GeneratedEntityRegistry(ClassLoader classLoader) {
+        Iterator<GeneratedEntity> iterator = ServiceLoader.load(GeneratedEntity.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) break;
+                GeneratedEntity entity = iterator.next();
+                entities.put(entity.getEntityClass(), entity);
+            } catch (ServiceConfigurationError | LinkageError e) {
+                logger.log(Level.WARNING, "Generated entity is skipped", e);
+            }
+        }
+    }
+
+    /**
+     * @return Generated metadata of the class or {@code null} if there is no one
+     */
+    public GeneratedEntity getEntity(Class type) {
+        return entities.get(type);
+    }
+}
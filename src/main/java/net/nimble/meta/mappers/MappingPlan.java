@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers;
+
+import net.nimble.conversion.FromDbConversion;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.accessors.PropertySetter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Resolved mapping of result set columns to the constructor and the setters of a class. Setter at position
+ * {@code i} receives the value of the column {@code i + 1}, columns passed to the constructor have no setter.
+ * A plan is immutable and may be shared between threads.
+ */
+public class MappingPlan {
+
+    private final Class objectClass;
+    private final Constructor constructor;
+    private final int[] argumentColumns;
+    private final String[] fieldNames;
+    private final Method[] setterMethods;
+    private final PropertySetter[] setters;
+    private final Class[] types;
+    private final FromDbConversion[] conversions;
+
+    /**
+     * @param argumentColumns Indexes of columns passed to the constructor, one for every constructor parameter
+     * @param setterMethods   Setter methods by columns, {@code null} for columns written to fields directly
+     * @param types           Types of values by columns
+     * @param conversions     Conversions of values to the types by columns
+     */
+    MappingPlan(Class objectClass, Constructor constructor, int[] argumentColumns, String[] fieldNames,
+                Method[] setterMethods, PropertySetter[] setters, Class[] types, FromDbConversion[] conversions) {
+        this.objectClass = objectClass;
+        this.constructor = constructor;
+        this.argumentColumns = argumentColumns;
+        this.fieldNames = fieldNames;
+        this.setterMethods = setterMethods;
+        this.setters = setters;
+        this.types = types;
+        this.conversions = conversions;
+    }
+
+    public Class getObjectClass() {
+        return objectClass;
+    }
+
+    public Constructor getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * @return {@code true} if the object is created by a constructor which takes column values
+     */
+    public boolean isConstructorMapping() {
+        return argumentColumns.length > 0;
+    }
+
+    /**
+     * @return Setters of the object class, setter at position {@code i} receives value of the column {@code i + 1}.
+     * Columns passed to the constructor or written to fields have {@code null} setters.
+     */
+    public Method[] getSetterMethods() {
+        return setterMethods.clone();
+    }
+
+    public Class[] getTypes() {
+        return types.clone();
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames.clone();
+    }
+
+    public FromDbConversion[] getConversions() {
+        return conversions.clone();
+    }
+
+    public Object create(ResultSet resultSet) throws SQLException {
+        Object object = newInstance(resultSet);
+        for (int i = 0; i < setters.length; i++) {
+            if (setters[i] == null) continue;
+            Object value = resultSet.getObject(i + 1);
+            try {
+                setters[i].set(object, conversions[i].convert(value));
+            } catch (IllegalArgumentException e) {
+                throw cantApply(value, i, e);
+            }
+        }
+        return object;
+    }
+
+    private Object newInstance(ResultSet resultSet) throws SQLException {
+        Object[] arguments = new Object[argumentColumns.length];
+        for (int i = 0; i < arguments.length; i++) {
+            int column = argumentColumns[i];
+            Object value = resultSet.getObject(column + 1);
+            arguments[i] = conversions[column].convert(value);
+            if (arguments[i] == null && types[column].isPrimitive()) {
+                throw cantApply(value, column, null);
+            }
+        }
+
+        try {
+            return constructor.newInstance(arguments);
+        } catch (IllegalArgumentException e) {
+            throw new NimbleException("Can't apply values of the row to the constructor of class " +
+                    objectClass.getName(), e);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new NimbleException("Can't create a new instance of class " + objectClass.getName(), e);
+        }
+    }
+
+    private NimbleException cantApply(Object value, int column, Throwable cause) {
+        return new NimbleException(String.format("Can't apply value of type %s to field %s",
+                value == null ? null : value.getClass().getName(), fieldNames[column]), cause);
+    }
+}
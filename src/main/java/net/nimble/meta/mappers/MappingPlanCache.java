@@ -0,0 +1,296 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.MappingConstructor;
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.conversion.FromDbConversion;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.MemberEnumerator;
+import net.nimble.meta.MemberFinder;
+import net.nimble.meta.ReflectionUtils;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.accessors.PropertySetter;
+import net.nimble.meta.finders.FieldByColumnFinder;
+import net.nimble.meta.finders.FieldByNameFinder;
+import net.nimble.meta.finders.GetterByColumnFinder;
+import net.nimble.meta.finders.MethodByNameFinder;
+import net.nimble.utils.StringUtils;
+
+import java.beans.ConstructorProperties;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps mapping plans by class and by the list of result set columns, so that the search of setters is
+ * done once for every query shape instead of once for every row.
+ */
+public class MappingPlanCache {
+
+    private final ConverterManagerImpl converterManager;
+    private final AccessorFactory accessorFactory;
+    private final AccessStrategy accessStrategy;
+    private final ClassValue<Map<ColumnSignature, MappingPlan>> plans =
+            new ClassValue<Map<ColumnSignature, MappingPlan>>() {
+                @Override
+                protected Map<ColumnSignature, MappingPlan> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    public MappingPlanCache(ConverterManagerImpl converterManager, AccessorFactory accessorFactory) {
+        this(converterManager, accessorFactory, AccessStrategy.SETTER);
+    }
+
+    public MappingPlanCache(ConverterManagerImpl converterManager, AccessorFactory accessorFactory,
+                            AccessStrategy accessStrategy) {
+        this.converterManager = converterManager;
+        this.accessorFactory = accessorFactory;
+        this.accessStrategy = accessStrategy;
+    }
+
+    public MappingPlan getPlan(Class objectClass, ResultSetMetaData metaData) throws SQLException {
+        String[] columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+
+        Map<ColumnSignature, MappingPlan> classPlans = plans.get(objectClass);
+        ColumnSignature signature = new ColumnSignature(columnNames);
+        MappingPlan plan = classPlans.get(signature);
+        if (plan == null) {
+            plan = createPlan(objectClass, columnNames);
+            classPlans.put(signature, plan);
+        }
+        return plan;
+    }
+
+    private MappingPlan createPlan(Class objectClass, String[] columnNames) {
+        Constructor constructor = findConstructor(objectClass, columnNames.length);
+        constructor.setAccessible(true);
+
+        Method[] methods = objectClass.getMethods();
+        Field[] fields = ReflectionUtils.getInstanceFields(objectClass);
+        String[] fieldNames = new String[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            fieldNames[i] = findFieldName(columnNames[i], fields, methods);
+        }
+
+        int[] argumentColumns = bindArguments(constructor, columnNames, fieldNames);
+        Class[] types = new Class[columnNames.length];
+        Class[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < argumentColumns.length; i++) {
+            int column = argumentColumns[i];
+            types[column] = parameterTypes[i];
+            if (fieldNames[column] == null) {
+                fieldNames[column] = columnNames[column];
+            }
+        }
+
+        MemberEnumerator memberEnumerator = new MemberEnumerator();
+        MethodByNameFinder methodByNameFinder = new MethodByNameFinder();
+        Method[] setterMethods = new Method[columnNames.length];
+        PropertySetter[] setters = new PropertySetter[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            if (types[i] != null) continue;
+            String fieldName = fieldNames[i];
+            if (fieldName == null) {
+                throw new NimbleException("Can't find field for column '" + columnNames[i] + "' in the class " +
+                        objectClass.getName());
+            }
+
+            if (accessStrategy != AccessStrategy.FIELD) {
+                methodByNameFinder.setMethodName("set" + StringUtils.capitalize(fieldName));
+                memberEnumerator.enumerate(methods.clone(), methodByNameFinder);
+                Method setter = methodByNameFinder.getMatchedMethod();
+                if (setter != null) {
+                    setterMethods[i] = setter;
+                    setters[i] = accessorFactory.createSetter(setter);
+                    types[i] = setter.getParameterTypes()[0];
+                }
+            }
+            if (setters[i] == null && accessStrategy != AccessStrategy.SETTER) {
+                Field field = ReflectionUtils.findInstanceField(objectClass, fieldName);
+                if (field != null) {
+                    setters[i] = accessorFactory.createSetter(field);
+                    types[i] = field.getType();
+                }
+            }
+
+            if (setters[i] == null) {
+                throw new NimbleException("Can't find " + (accessStrategy == AccessStrategy.SETTER ?
+                        "setter method for the field " : "field or setter method for ") + fieldName +
+                        " in the class " + objectClass.getName());
+            }
+        }
+
+        FromDbConversion[] conversions = new FromDbConversion[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            conversions[i] = converterManager.getFromDbConversion(types[i]);
+        }
+
+        return new MappingPlan(objectClass, constructor, argumentColumns, fieldNames, setterMethods, setters,
+                types, conversions);
+    }
+
+    /**
+     * Constructor marked with {@link MappingConstructor} or {@link ConstructorProperties} is preferred, then
+     * the no-arg constructor, then the only constructor which takes all columns.
+     */
+    private static Constructor findConstructor(Class objectClass, int columnCount) {
+        Constructor mappingConstructor = null;
+        Constructor defaultConstructor = null;
+        Constructor allColumnsConstructor = null;
+        int allColumnsCount = 0;
+        for (Constructor constructor : objectClass.getDeclaredConstructors()) {
+            if (constructor.getAnnotation(MappingConstructor.class) != null ||
+                    constructor.getAnnotation(ConstructorProperties.class) != null) {
+                if (mappingConstructor != null) {
+                    throw new NimbleException("More than one mapping constructor in the class " +
+                            objectClass.getName());
+                }
+                mappingConstructor = constructor;
+            } else if (constructor.getParameterTypes().length == 0) {
+                defaultConstructor = constructor;
+            } else if (constructor.getParameterTypes().length == columnCount) {
+                allColumnsConstructor = constructor;
+                allColumnsCount++;
+            }
+        }
+
+        if (mappingConstructor != null) {
+            return mappingConstructor;
+        } else if (defaultConstructor != null) {
+            return defaultConstructor;
+        } else if (allColumnsCount == 1) {
+            return allColumnsConstructor;
+        }
+        throw new NimbleException("Can't create a new instance of class " + objectClass.getName() +
+                ", there is no constructor to map columns to");
+    }
+
+    private static int[] bindArguments(Constructor constructor, String[] columnNames, String[] fieldNames) {
+        Annotation[][] parameterAnnotations = constructor.getParameterAnnotations();
+        ConstructorProperties properties = (ConstructorProperties) constructor.getAnnotation(ConstructorProperties.class);
+        String[] names = new String[parameterAnnotations.length];
+        boolean byName = false;
+        for (int i = 0; i < names.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof Column && ((Column) annotation).value().length() > 0) {
+                    names[i] = ((Column) annotation).value();
+                }
+            }
+            if (names[i] == null && properties != null && i < properties.value().length) {
+                names[i] = properties.value()[i];
+            }
+            byName |= names[i] != null;
+        }
+
+        int[] argumentColumns = new int[names.length];
+        if (!byName) {
+            if (names.length > columnNames.length) {
+                throw new NimbleException("Constructor of the class " + constructor.getDeclaringClass().getName() +
+                        " takes more parameters than there are columns");
+            }
+            for (int i = 0; i < argumentColumns.length; i++) {
+                argumentColumns[i] = i;
+            }
+            return argumentColumns;
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            argumentColumns[i] = -1;
+            for (int j = 0; j < columnNames.length && names[i] != null; j++) {
+                if (columnNames[j].equalsIgnoreCase(names[i]) || names[i].equals(fieldNames[j])) {
+                    argumentColumns[i] = j;
+                    break;
+                }
+            }
+            if (argumentColumns[i] < 0) {
+                throw new NimbleException("Can't find column for parameter " + (names[i] != null ? names[i] : i) +
+                        " of the constructor of class " + constructor.getDeclaringClass().getName());
+            }
+        }
+        return argumentColumns;
+    }
+
+    /**
+     * Column is matched to a field by the {@link Column} annotation of the field, then by the annotation of
+     * a getter, then by the name of the field.
+     *
+     * @return Name of the field or {@code null} if no field matches the column
+     */
+    private static String findFieldName(String columnName, Field[] fields, Method[] methods) {
+        MemberEnumerator memberEnumerator = new MemberEnumerator();
+        FieldByColumnFinder fieldByColumnFinder = new FieldByColumnFinder();
+        FieldByNameFinder fieldByNameFinder = new FieldByNameFinder();
+        fieldByColumnFinder.setColumnName(columnName);
+        fieldByNameFinder.setFieldName(columnName);
+        memberEnumerator.enumerate(fields.clone(), new MemberFinder[]{fieldByColumnFinder, fieldByNameFinder});
+        if (fieldByColumnFinder.getMatchedField() != null) {
+            return fieldByColumnFinder.getMatchedField().getName();
+        }
+
+        GetterByColumnFinder getterByColumnFinder = new GetterByColumnFinder();
+        getterByColumnFinder.setColumnName(columnName);
+        memberEnumerator.enumerate(methods.clone(), getterByColumnFinder);
+        if (getterByColumnFinder.getMatchedMethod() != null) {
+            return StringUtils.uncapitalize(getterByColumnFinder.getMatchedMethod().getName().substring(3));
+        } else if (fieldByNameFinder.getMatchedField() != null) {
+            return fieldByNameFinder.getMatchedField().getName();
+        }
+        return null;
+    }
+
+    private static class ColumnSignature {
+        private final String[] columnNames;
+        private final int hashCode;
+
+        ColumnSignature(String[] columnNames) {
+            this.columnNames = columnNames;
+            this.hashCode = Arrays.hashCode(columnNames);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof ColumnSignature &&
+                    Arrays.equals(columnNames, ((ColumnSignature) object).columnNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
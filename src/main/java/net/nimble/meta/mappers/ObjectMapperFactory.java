@@ -26,15 +26,66 @@ package net.nimble.meta.mappers;
 
 import net.nimble.NbRow;
 import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.generated.GeneratedEntity;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import net.nimble.meta.mappers.bytecode.MapperGenerator;
 
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.Map;
 
 public class ObjectMapperFactory {
 
     private final ConverterManagerImpl converterManager;
+    private final MappingPlanCache mappingPlanCache;
+    private final MapperGenerator mapperGenerator;
+    private final GeneratedEntityRegistry generatedEntityRegistry;
+    private final AccessStrategy accessStrategy;
+    private volatile boolean generateMappers = false;
 
-    public ObjectMapperFactory(ConverterManagerImpl converterManager) {
+    public ObjectMapperFactory(ConverterManagerImpl converterManager, AccessorFactory accessorFactory,
+                               GeneratedEntityRegistry generatedEntityRegistry) {
+        this(converterManager, accessorFactory, generatedEntityRegistry, AccessStrategy.SETTER);
+    }
+
+    /**
+     * @param accessStrategy Strategy of writing properties, mappers generated at compile time follow the setter
+     *                       strategy and are used only with it
+     */
+    public ObjectMapperFactory(ConverterManagerImpl converterManager, AccessorFactory accessorFactory,
+                               GeneratedEntityRegistry generatedEntityRegistry, AccessStrategy accessStrategy) {
         this.converterManager = converterManager;
+        this.generatedEntityRegistry = generatedEntityRegistry;
+        this.accessStrategy = accessStrategy;
+        this.mappingPlanCache = new MappingPlanCache(converterManager, accessorFactory, accessStrategy);
+        this.mapperGenerator = new MapperGenerator();
+    }
+
+    public boolean isGenerateMappers() {
+        return generateMappers;
+    }
+
+    /**
+     * @param generateMappers If {@code true}, entities are mapped by classes generated at runtime for every
+     *                        entity and result set columns, see {@link MapperGenerator}.
+     */
+    public void setGenerateMappers(boolean generateMappers) {
+        this.generateMappers = generateMappers;
+    }
+
+    /**
+     * Prepares mapping of rows with the passed columns to the type, so that the first query with the same
+     * columns doesn't pay for the search of setters.
+     */
+    public void warmUp(Class type, ResultSetMetaData metaData) throws SQLException {
+        if (type == NbRow.class || Map.class.isAssignableFrom(type)) return;
+        if (accessStrategy == AccessStrategy.SETTER && generatedEntityRegistry.getEntity(type) != null) return;
+        MappingPlan plan = mappingPlanCache.getPlan(type, metaData);
+        if (generateMappers) {
+            mapperGenerator.getMapper(plan);
+        }
     }
 
     public ObjectMapper getObjectCreator(Class type) {
@@ -43,6 +94,14 @@ public class ObjectMapperFactory {
         } else if (Map.class.isAssignableFrom(type)) {
             return new MapMapper();
         }
-        return new BeanMapper(type, converterManager);
+        GeneratedEntity generatedEntity = accessStrategy == AccessStrategy.SETTER ?
+                generatedEntityRegistry.getEntity(type) : null;
+        if (generatedEntity != null) {
+            ObjectMapper mapper = generatedEntity.createMapper(converterManager);
+            if (mapper != null) {
+                return mapper;
+            }
+        }
+        return new BeanMapper(type, mappingPlanCache, generateMappers ? mapperGenerator : null);
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.meta.accessors.PropertySetter;
+import net.nimble.meta.mappers.bytecode.ClassFileWriter.Code;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Member;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a class for every accessor which keeps the method handle of the accessed member in a static final
+ * field. The JIT treats static final fields as constants, so the handle is inlined into the accessor the same
+ * way as a direct call of the member. Every accessor class has its own class loader and may be unloaded together
+ * with the accessor.
+ */
+public class AccessorGenerator {
+
+    private static final String ACCESSOR_PACKAGE = "net/nimble/meta/mappers/bytecode/";
+    private static final String BASE_CLASS = "net/nimble/meta/mappers/bytecode/GeneratedAccessor";
+    private static final String HANDLE_CLASS = "java/lang/invoke/MethodHandle";
+    private static final String HANDLE_DESCRIPTOR = "Ljava/lang/invoke/MethodHandle;";
+    private static final String HANDLE_FIELD = "HANDLE";
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final Logger logger = Logger.getLogger(AccessorGenerator.class.getName());
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    /**
+     * @param handle Handle of the {@code (Object)Object} type which reads the member
+     * @return Generated getter or {@code null} if the class can't be generated
+     */
+    public PropertyGetter createGetter(Member member, MethodHandle handle) {
+        if (!handle.type().equals(GETTER_TYPE)) {
+            throw new IllegalArgumentException("Getter handle must be of type " + GETTER_TYPE);
+        }
+        return (PropertyGetter) generate(member, handle, PropertyGetter.class);
+    }
+
+    /**
+     * @param handle Handle of the {@code (Object,Object)void} type which writes the member
+     * @return Generated setter or {@code null} if the class can't be generated
+     */
+    public PropertySetter createSetter(Member member, MethodHandle handle) {
+        if (!handle.type().equals(SETTER_TYPE)) {
+            throw new IllegalArgumentException("Setter handle must be of type " + SETTER_TYPE);
+        }
+        return (PropertySetter) generate(member, handle, PropertySetter.class);
+    }
+
+    private static Object generate(Member member, MethodHandle handle, Class accessorType) {
+        String className = ACCESSOR_PACKAGE + member.getDeclaringClass().getSimpleName() + "_" + member.getName() +
+                "Accessor" + classCounter.incrementAndGet();
+        Class<?> accessorClass = null;
+        try {
+            byte[] bytes = createClassFile(className, accessorType == PropertySetter.class);
+            GeneratedClassLoader classLoader = new GeneratedClassLoader(GeneratedAccessor.class.getClassLoader());
+            accessorClass = classLoader.define(className.replace('/', '.'), bytes);
+            GeneratedAccessor.putHandle(accessorClass, handle);
+            return accessorType.cast(accessorClass.getConstructor().newInstance());
+        } catch (IllegalStateException | LinkageError | ClassCastException | ReflectiveOperationException e) {
+            logger.log(Level.FINE, "Can't generate accessor for " + member + ", the handle is called directly", e);
+            return null;
+        } finally {
+            if (accessorClass != null) {
+                GeneratedAccessor.removeHandle(accessorClass);
+            }
+        }
+    }
+
+    private static byte[] createClassFile(String className, boolean setter) {
+        ClassFileWriter writer = new ClassFileWriter();
+        writer.addField(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+                HANDLE_FIELD, HANDLE_DESCRIPTOR);
+        int handleField = writer.fieldConstant(className, HANDLE_FIELD, HANDLE_DESCRIPTOR);
+
+        Code initializer = new Code(1, 0)
+                .op(Code.LDC_W, writer.classConstant(className))
+                .op(Code.INVOKESTATIC, writer.methodConstant(BASE_CLASS, "takeHandle",
+                        "(Ljava/lang/Class;)" + HANDLE_DESCRIPTOR, false))
+                .op(Code.PUTSTATIC, handleField)
+                .op(Code.RETURN);
+        writer.addMethod(ClassFileWriter.ACC_STATIC, "<clinit>", "()V", initializer);
+
+        Code constructor = new Code(1, 1)
+                .op(Code.ALOAD_0)
+                .op(Code.INVOKESPECIAL, writer.methodConstant(BASE_CLASS, "<init>", "()V", false))
+                .op(Code.RETURN);
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", constructor);
+
+        String accessorInterface;
+        if (setter) {
+            Code set = new Code(3, 3)
+                    .op(Code.GETSTATIC, handleField)
+                    .op(Code.ALOAD_1)
+                    .op(Code.ALOAD_2)
+                    .op(Code.INVOKEVIRTUAL, writer.methodConstant(HANDLE_CLASS, "invokeExact",
+                            SETTER_TYPE.toMethodDescriptorString(), false))
+                    .op(Code.RETURN);
+            writer.addMethod(ClassFileWriter.ACC_PUBLIC, "set", SETTER_TYPE.toMethodDescriptorString(), set);
+            accessorInterface = "net/nimble/meta/accessors/PropertySetter";
+        } else {
+            Code get = new Code(2, 2)
+                    .op(Code.GETSTATIC, handleField)
+                    .op(Code.ALOAD_1)
+                    .op(Code.INVOKEVIRTUAL, writer.methodConstant(HANDLE_CLASS, "invokeExact",
+                            GETTER_TYPE.toMethodDescriptorString(), false))
+                    .op(Code.ARETURN);
+            writer.addMethod(ClassFileWriter.ACC_PUBLIC, "get", GETTER_TYPE.toMethodDescriptorString(), get);
+            accessorInterface = "net/nimble/meta/accessors/PropertyGetter";
+        }
+
+        return writer.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER,
+                className, BASE_CLASS, new String[]{accessorInterface});
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer of class files. It supports only what generated mappers and accessors need: a class with
+ * fields without initial values and methods with straight-line code. As the code has no branches, class files of version 51 need no stack map
+ * frames. Exceeding limits of the class file format, such as the size of method code or of the constant pool,
+ * causes {@code IllegalStateException}.
+ */
+class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_PROTECTED = 0x0004;
+
+    private static final int CLASS_VERSION = 51;
+    private static final int MAX_CODE_LENGTH = 0xFFFF;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private int constantCount = 1;
+
+    byte[] toByteArray(int access, String name, String superName, String[] interfaces) {
+        try {
+            int thisIndex = classConstant(name);
+            int superIndex = classConstant(superName);
+            int[] interfaceIndexes = new int[interfaces.length];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaceIndexes[i] = classConstant(interfaces[i]);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(constantCount);
+            pool.flush();
+            poolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndexes.length);
+            for (int interfaceIndex : interfaceIndexes) {
+                out.writeShort(interfaceIndex);
+            }
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void addField(int access, String name, String descriptor) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+            out.writeShort(0);
+            out.flush();
+            fields.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void addMethod(int access, String name, String descriptor, Code code) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(utf8Constant(name));
+            out.writeShort(utf8Constant(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8Constant("Code"));
+            byte[] instructions = code.toByteArray();
+            if (instructions.length > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("Code of method " + name + " is too large");
+            }
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.flush();
+            methods.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int utf8Constant(String value) {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            try {
+                pool.writeByte(1);
+                pool.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            index = register(key);
+        }
+        return index;
+    }
+
+    int classConstant(String internalName) {
+        String key = "C" + internalName;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int nameIndex = utf8Constant(internalName);
+            writeEntry(7, nameIndex);
+            index = register(key);
+        }
+        return index;
+    }
+
+    int methodConstant(String owner, String name, String descriptor, boolean isInterface) {
+        String key = (isInterface ? "I" : "M") + owner + "." + name + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int classIndex = classConstant(owner);
+            int nameAndTypeIndex = nameAndTypeConstant(name, descriptor);
+            writeEntry(isInterface ? 11 : 10, classIndex, nameAndTypeIndex);
+            index = register(key);
+        }
+        return index;
+    }
+
+    int fieldConstant(String owner, String name, String descriptor) {
+        String key = "F" + owner + "." + name + ":" + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int classIndex = classConstant(owner);
+            int nameAndTypeIndex = nameAndTypeConstant(name, descriptor);
+            writeEntry(9, classIndex, nameAndTypeIndex);
+            index = register(key);
+        }
+        return index;
+    }
+
+    private int nameAndTypeConstant(String name, String descriptor) {
+        String key = "T" + name + ":" + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int nameIndex = utf8Constant(name);
+            int descriptorIndex = utf8Constant(descriptor);
+            writeEntry(12, nameIndex, descriptorIndex);
+            index = register(key);
+        }
+        return index;
+    }
+
+    private void writeEntry(int tag, int... indexes) {
+        try {
+            pool.writeByte(tag);
+            for (int index : indexes) {
+                pool.writeShort(index);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int register(String key) {
+        if (constantCount > 0xFFFF) {
+            throw new IllegalStateException("Constant pool is too large");
+        }
+        int index = constantCount++;
+        constants.put(key, index);
+        return index;
+    }
+
+    static class Code {
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_1 = 0x2b;
+        static final int ALOAD_2 = 0x2c;
+        static final int ALOAD_3 = 0x2d;
+        static final int ASTORE_2 = 0x4d;
+        static final int SIPUSH = 0x11;
+        static final int LDC_W = 0x13;
+        static final int POP = 0x57;
+        static final int POP2 = 0x58;
+        static final int DUP = 0x59;
+        static final int ARETURN = 0xb0;
+        static final int RETURN = 0xb1;
+        static final int GETSTATIC = 0xb2;
+        static final int PUTSTATIC = 0xb3;
+        static final int INVOKEVIRTUAL = 0xb6;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKESTATIC = 0xb8;
+        static final int INVOKEINTERFACE = 0xb9;
+        static final int NEW = 0xbb;
+        static final int CHECKCAST = 0xc0;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxStack;
+        private final int maxLocals;
+
+        Code(int maxStack, int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code op(int opcode, int index) {
+            bytes.write(opcode);
+            bytes.write(index >> 8);
+            bytes.write(index);
+            return this;
+        }
+
+        Code invokeInterface(int index, int argumentSlots) {
+            op(INVOKEINTERFACE, index);
+            bytes.write(argumentSlots + 1);
+            bytes.write(0);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
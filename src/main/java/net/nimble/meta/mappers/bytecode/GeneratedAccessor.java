@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class of accessors generated by {@link AccessorGenerator}. A generated accessor takes its method handle
+ * in the static initializer and keeps it in a static final field.
+ */
+public abstract class GeneratedAccessor {
+
+    private static final Map<Class, MethodHandle> pendingHandles = new ConcurrentHashMap<>();
+
+    protected GeneratedAccessor() {
+    }
+
+    static void putHandle(Class accessorClass, MethodHandle handle) {
+        pendingHandles.put(accessorClass, handle);
+    }
+
+    static void removeHandle(Class accessorClass) {
+        pendingHandles.remove(accessorClass);
+    }
+
+    /**
+     * Called once by the static initializer of a generated accessor.
+     */
+    protected static MethodHandle takeHandle(Class accessorClass) {
+        MethodHandle handle = pendingHandles.remove(accessorClass);
+        if (handle == null) {
+            throw new IllegalStateException("There is no method handle for the class " + accessorClass.getName());
+        }
+        return handle;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import net.nimble.conversion.FromDbConversion;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.mappers.ObjectMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Base class of mappers generated by {@link MapperGenerator}. Generated subclasses implement
+ * {@link #map(ResultSet)} as a sequence of result set reads and direct setter calls.
+ * <p>
+ * Primitive properties are read with typed getters of {@code ResultSet} unless a converter to the property type
+ * is registered. A NULL value of a primitive property causes an error as it does with reflective mapping.
+ */
+public abstract class GeneratedMapper implements ObjectMapper {
+
+    private final FromDbConversion[] conversions;
+    private final String[] fieldNames;
+    private final Class objectClass;
+
+    protected GeneratedMapper(FromDbConversion[] conversions, String[] fieldNames, Class objectClass) {
+        this.conversions = conversions;
+        this.fieldNames = fieldNames;
+        this.objectClass = objectClass;
+    }
+
+    @Override
+    public Object create(ResultSet resultSet) {
+        try {
+            return map(resultSet);
+        } catch (SQLException e) {
+            throw new NimbleException("Can't read values of the passed RowSet", e);
+        } catch (ClassCastException e) {
+            throw new NimbleException("Can't apply values of the row to the class " + objectClass.getName(), e);
+        }
+    }
+
+    protected abstract Object map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Converts value of a column which is mapped to a property of a reference type.
+     */
+    protected final Object convert(Object value, int index) {
+        return conversions[index].convert(value);
+    }
+
+    protected final boolean readBoolean(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Boolean) readConverted(resultSet, index);
+        boolean value = resultSet.getBoolean(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final byte readByte(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Byte) readConverted(resultSet, index);
+        byte value = resultSet.getByte(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final short readShort(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Short) readConverted(resultSet, index);
+        short value = resultSet.getShort(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final int readInt(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Integer) readConverted(resultSet, index);
+        int value = resultSet.getInt(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final long readLong(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Long) readConverted(resultSet, index);
+        long value = resultSet.getLong(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final float readFloat(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Float) readConverted(resultSet, index);
+        float value = resultSet.getFloat(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    protected final double readDouble(ResultSet resultSet, int index) throws SQLException {
+        if (conversions[index].hasConverters()) return (Double) readConverted(resultSet, index);
+        double value = resultSet.getDouble(index + 1);
+        checkNull(resultSet, index);
+        return value;
+    }
+
+    private Object readConverted(ResultSet resultSet, int index) throws SQLException {
+        Object value = resultSet.getObject(index + 1);
+        Object converted = conversions[index].convert(value);
+        if (converted == null) {
+            throw cantApply(value, index);
+        }
+        return converted;
+    }
+
+    private void checkNull(ResultSet resultSet, int index) throws SQLException {
+        if (resultSet.wasNull()) {
+            throw cantApply(null, index);
+        }
+    }
+
+    private NimbleException cantApply(Object value, int index) {
+        return new NimbleException(String.format("Can't apply value of type %s to field %s",
+                value == null ? null : value.getClass().getName(), fieldNames[index]));
+    }
+}
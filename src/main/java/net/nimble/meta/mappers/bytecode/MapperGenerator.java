@@ -0,0 +1,190 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import net.nimble.conversion.FromDbConversion;
+import net.nimble.meta.mappers.bytecode.ClassFileWriter.Code;
+import net.nimble.meta.mappers.MappingPlan;
+import net.nimble.meta.mappers.ObjectMapper;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates a dedicated mapper class for every mapping plan. The generated code creates the object with its
+ * no-arg constructor and calls setters directly. Values are read and converted by {@link GeneratedMapper}
+ * the same way as {@link MappingPlan} does it. A plan which can't be compiled, for instance when the mapper
+ * can't be linked with the entity class or the code exceeds limits of a class file, is mapped reflectively.
+ */
+public class MapperGenerator {
+
+    private static final String MAPPER_PACKAGE = "net/nimble/meta/mappers/bytecode/";
+    private static final String BASE_CLASS = internalName(GeneratedMapper.class);
+    private static final String RESULT_SET_CLASS = internalName(ResultSet.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = "(" + descriptor(FromDbConversion[].class) +
+            descriptor(String[].class) + descriptor(Class.class) + ")V";
+    private static final Logger logger = Logger.getLogger(MapperGenerator.class.getName());
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    private final Map<MappingPlan, ObjectMapper> mappers = new ConcurrentHashMap<>();
+    private final Set<MappingPlan> unsupportedPlans =
+            Collections.newSetFromMap(new ConcurrentHashMap<MappingPlan, Boolean>());
+
+    /**
+     * @return Generated mapper for the plan or {@code null} if the plan can't be compiled, for instance when
+     * the class or its no-arg constructor is not public.
+     */
+    public ObjectMapper getMapper(MappingPlan plan) {
+        ObjectMapper mapper = mappers.get(plan);
+        if (mapper != null || unsupportedPlans.contains(plan)) {
+            return mapper;
+        }
+        mapper = isSupported(plan) ? generate(plan) : null;
+        if (mapper != null) {
+            mappers.put(plan, mapper);
+        } else {
+            unsupportedPlans.add(plan);
+        }
+        return mapper;
+    }
+
+    private ObjectMapper generate(MappingPlan plan) {
+        Class objectClass = plan.getObjectClass();
+        String className = MAPPER_PACKAGE + objectClass.getSimpleName() + "Mapper" + classCounter.incrementAndGet();
+        try {
+            byte[] bytes = createClassFile(className, plan);
+            GeneratedClassLoader classLoader = new GeneratedClassLoader(objectClass.getClassLoader());
+            Class<?> mapperClass = classLoader.define(className.replace('/', '.'), bytes);
+            return (ObjectMapper) mapperClass.getConstructor(FromDbConversion[].class, String[].class, Class.class)
+                    .newInstance(plan.getConversions(), plan.getFieldNames(), objectClass);
+        } catch (IllegalStateException | LinkageError | ClassCastException | ReflectiveOperationException e) {
+            logger.log(Level.FINE, "Can't generate mapper for the class " + objectClass.getName() +
+                    ", it's mapped reflectively", e);
+            return null;
+        }
+    }
+
+    private static byte[] createClassFile(String className, MappingPlan plan) {
+        String objectClass = internalName(plan.getObjectClass());
+        Method[] setters = plan.getSetterMethods();
+        ClassFileWriter writer = new ClassFileWriter();
+
+        Code constructor = new Code(4, 4)
+                .op(Code.ALOAD_0)
+                .op(Code.ALOAD_1)
+                .op(Code.ALOAD_2)
+                .op(Code.ALOAD_3)
+                .op(Code.INVOKESPECIAL, writer.methodConstant(BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR, false))
+                .op(Code.RETURN);
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, constructor);
+
+        Code map = new Code(4, 3)
+                .op(Code.NEW, writer.classConstant(objectClass))
+                .op(Code.DUP)
+                .op(Code.INVOKESPECIAL, writer.methodConstant(objectClass, "<init>", "()V", false))
+                .op(Code.ASTORE_2);
+        for (int i = 0; i < setters.length; i++) {
+            Class type = setters[i].getParameterTypes()[0];
+            map.op(Code.ALOAD_2);
+            if (type.isPrimitive()) {
+                String readerName = "read" + Character.toUpperCase(type.getName().charAt(0)) +
+                        type.getName().substring(1);
+                map.op(Code.ALOAD_0)
+                        .op(Code.ALOAD_1)
+                        .op(Code.SIPUSH, i)
+                        .op(Code.INVOKEVIRTUAL, writer.methodConstant(className, readerName,
+                                "(" + descriptor(ResultSet.class) + "I)" + descriptor(type), false));
+            } else {
+                map.op(Code.ALOAD_0)
+                        .op(Code.ALOAD_1)
+                        .op(Code.SIPUSH, i + 1)
+                        .invokeInterface(writer.methodConstant(RESULT_SET_CLASS, "getObject",
+                                "(I)Ljava/lang/Object;", true), 1)
+                        .op(Code.SIPUSH, i)
+                        .op(Code.INVOKEVIRTUAL, writer.methodConstant(className, "convert",
+                                "(Ljava/lang/Object;I)Ljava/lang/Object;", false))
+                        .op(Code.CHECKCAST, writer.classConstant(type.isArray() ?
+                                descriptor(type) : internalName(type)));
+            }
+
+            Class returnType = setters[i].getReturnType();
+            map.op(Code.INVOKEVIRTUAL, writer.methodConstant(objectClass, setters[i].getName(),
+                    "(" + descriptor(type) + ")" + descriptor(returnType), false));
+            if (returnType == long.class || returnType == double.class) {
+                map.op(Code.POP2);
+            } else if (returnType != void.class) {
+                map.op(Code.POP);
+            }
+        }
+        map.op(Code.ALOAD_2).op(Code.ARETURN);
+        writer.addMethod(ClassFileWriter.ACC_PROTECTED, "map", "(" + descriptor(ResultSet.class) + ")" +
+                descriptor(Object.class), map);
+
+        return writer.toByteArray(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER,
+                className, BASE_CLASS, new String[0]);
+    }
+
+    private static boolean isSupported(MappingPlan plan) {
+        Class objectClass = plan.getObjectClass();
+        if (plan.isConstructorMapping() || objectClass.getClassLoader() == null ||
+                !Modifier.isPublic(objectClass.getModifiers()) ||
+                !Modifier.isPublic(plan.getConstructor().getModifiers()) ||
+                plan.getSetterMethods().length > Short.MAX_VALUE) {
+            return false;
+        }
+        for (Method setter : plan.getSetterMethods()) {
+            if (setter == null || Modifier.isStatic(setter.getModifiers()) || setter.getParameterTypes()[0] == char.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String internalName(Class type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class type) {
+        if (type == void.class) return "V";
+        if (type == boolean.class) return "Z";
+        if (type == byte.class) return "B";
+        if (type == char.class) return "C";
+        if (type == short.class) return "S";
+        if (type == int.class) return "I";
+        if (type == long.class) return "J";
+        if (type == float.class) return "F";
+        if (type == double.class) return "D";
+        if (type.isArray()) return type.getName().replace('.', '/');
+        return "L" + internalName(type) + ";";
+    }
+}
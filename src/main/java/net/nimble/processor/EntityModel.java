@@ -0,0 +1,420 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.processor;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Ignore;
+import net.nimble.annotations.MappingConstructor;
+import net.nimble.annotations.Table;
+import net.nimble.meta.MetaUtils;
+import net.nimble.utils.StringUtils;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import java.beans.ConstructorProperties;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compile-time counterpart of {@code EntityDescriptorRegistry} and {@code MappingPlanCache}. Resolves columns,
+ * id and setters of an entity by the same rules as the runtime code does with reflection.
+ */
+class EntityModel {
+
+    private final TypeElement type;
+    private final List<VariableElement> fields;
+    private final List<ExecutableElement> methods = new ArrayList<>();
+    private final List<Property> columns = new ArrayList<>();
+    private final List<Property> mappedProperties = new ArrayList<>();
+    private final Map<String, Integer> columnKeys = new LinkedHashMap<>();
+    private Property idColumn;
+
+    EntityModel(TypeElement type, Elements elements) {
+        this.type = type;
+        this.fields = collectInstanceFields(type);
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getModifiers().contains(Modifier.PUBLIC)) {
+                methods.add(method);
+            }
+        }
+        resolveColumns();
+        resolveMapping();
+    }
+
+    TypeElement getType() {
+        return type;
+    }
+
+    String getTableName() {
+        return MetaUtils.getTableName(type.getAnnotation(Table.class), type.getSimpleName().toString());
+    }
+
+    List<VariableElement> getFields() {
+        return fields;
+    }
+
+    List<Property> getColumns() {
+        return columns;
+    }
+
+    Property getIdColumn() {
+        return idColumn;
+    }
+
+    /**
+     * @return Properties which can receive values of result set columns
+     */
+    List<Property> getMappedProperties() {
+        return mappedProperties;
+    }
+
+    /**
+     * @return Indexes of mapped properties by upper-cased column names
+     */
+    Map<String, Integer> getColumnKeys() {
+        return columnKeys;
+    }
+
+    /**
+     * @return {@code true} if generated code can create the entity with the no-arg constructor and the entity
+     * has no constructor marked for mapping
+     */
+    boolean isInstantiable() {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        boolean instantiable = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getAnnotation(MappingConstructor.class) != null ||
+                    constructor.getAnnotation(ConstructorProperties.class) != null) {
+                return false;
+            }
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                instantiable = true;
+            }
+        }
+        return instantiable;
+    }
+
+    private void resolveColumns() {
+        String idName = findIdName();
+
+        List<ExecutableElement> getters = new ArrayList<>();
+        for (ExecutableElement method : methods) {
+            if (!method.getEnclosingElement().equals(type) || !isGetter(method) || isIgnored(method)) continue;
+            getters.add(method);
+        }
+        Collections.sort(getters, new Comparator<ExecutableElement>() {
+            @Override
+            public int compare(ExecutableElement first, ExecutableElement second) {
+                int firstIndex = getFieldIndex(first);
+                int secondIndex = getFieldIndex(second);
+                if (firstIndex != secondIndex) {
+                    return firstIndex < secondIndex ? -1 : 1;
+                }
+                return first.getSimpleName().toString().compareTo(second.getSimpleName().toString());
+            }
+        });
+
+        List<VariableElement> freeFields = new ArrayList<>(fields);
+        for (ExecutableElement getter : getters) {
+            String name = getPropertyName(getter);
+            VariableElement field = null;
+            int fieldIndex = findFieldIndex(freeFields, name);
+            if (fieldIndex > -1) {
+                field = freeFields.get(fieldIndex);
+                freeFields.set(fieldIndex, null);
+                if (isIgnored(field)) continue;
+            }
+
+            Property column = createColumn(name, field, getter, idName);
+            if (column.isId()) {
+                idColumn = column;
+            }
+            columns.add(column);
+        }
+
+        if (idColumn == null && idName != null) {
+            ExecutableElement getter = null;
+            for (ExecutableElement method : methods) {
+                if (isGetter(method) && getPropertyName(method).equalsIgnoreCase(idName)) {
+                    getter = method;
+                    break;
+                }
+            }
+            int fieldIndex = findFieldIndex(fields, idName);
+            VariableElement field = fieldIndex > -1 ? fields.get(fieldIndex) : null;
+            if (getter != null || field != null) {
+                idColumn = createColumn(getter != null ? getPropertyName(getter) : idName, field, getter, idName);
+            }
+        }
+    }
+
+    private Property createColumn(String name, VariableElement field, ExecutableElement getter, String idName) {
+        Id id = getter != null ? getter.getAnnotation(Id.class) : null;
+        if (id == null && field != null) {
+            id = field.getAnnotation(Id.class);
+        }
+        boolean isId = id != null || name.equalsIgnoreCase(idName);
+
+        String columnName = null;
+        if (field != null) columnName = getColumnName(field);
+        if (columnName == null && getter != null) columnName = getColumnName(getter);
+        if (columnName == null) columnName = name;
+
+        ExecutableElement setter = findSetter(name);
+        TypeMirror propertyType;
+        if (setter != null) {
+            propertyType = setter.getParameters().get(0).asType();
+        } else if (getter != null) {
+            propertyType = getter.getReturnType();
+        } else {
+            propertyType = field.asType();
+        }
+        return new Property(name, columnName, propertyType, getter, field, setter, isId,
+                isId && id != null && id.generate());
+    }
+
+    private String findIdName() {
+        String fieldById = null;
+        String fieldByName = null;
+        for (VariableElement field : fields) {
+            if (isIgnored(field)) continue;
+            if (field.getAnnotation(Id.class) != null) {
+                fieldById = field.getSimpleName().toString();
+                break;
+            }
+            if (field.getSimpleName().toString().toUpperCase().equals("ID")) {
+                fieldByName = field.getSimpleName().toString();
+            }
+        }
+        if (fieldById != null) {
+            return fieldById;
+        }
+
+        ExecutableElement getterById = null;
+        for (ExecutableElement method : methods) {
+            if (!isIgnored(method) && method.getAnnotation(Id.class) != null) {
+                getterById = method;
+                break;
+            }
+        }
+        if (getterById != null && isGetter(getterById)) {
+            return getPropertyName(getterById);
+        } else if (fieldByName != null) {
+            return fieldByName;
+        }
+
+        for (ExecutableElement method : methods) {
+            if (isGetter(method) && "ID".equals(method.getSimpleName().toString().substring(3).toUpperCase())) {
+                return getPropertyName(method);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Column is matched to a field by the {@link Column} annotation of the field, then by the annotation of
+     * a getter, then by the name of the field. Later passes are overridden by earlier ones.
+     */
+    private void resolveMapping() {
+        Map<String, String> names = new HashMap<>();
+        for (VariableElement field : fields) {
+            if (isIgnored(field)) continue;
+            names.put(field.getSimpleName().toString().toUpperCase(), field.getSimpleName().toString());
+        }
+        Map<String, String> getterNames = new HashMap<>();
+        for (ExecutableElement method : methods) {
+            String methodName = method.getSimpleName().toString();
+            String columnName = getColumnName(method);
+            if (isIgnored(method) || !isGetter(method) || columnName == null) continue;
+            String key = columnName.toUpperCase();
+            if (!getterNames.containsKey(key)) {
+                getterNames.put(key, StringUtils.uncapitalize(methodName.substring(3)));
+            }
+        }
+        names.putAll(getterNames);
+        Map<String, String> fieldNames = new HashMap<>();
+        for (VariableElement field : fields) {
+            String columnName = getColumnName(field);
+            if (isIgnored(field) || columnName == null) continue;
+            String key = columnName.toUpperCase();
+            if (!fieldNames.containsKey(key)) {
+                fieldNames.put(key, field.getSimpleName().toString());
+            }
+        }
+        names.putAll(fieldNames);
+
+        List<String> keys = new ArrayList<>(names.keySet());
+        Collections.sort(keys);
+        Map<String, Integer> propertyIndexes = new HashMap<>();
+        for (String key : keys) {
+            String name = names.get(key);
+            Integer index = propertyIndexes.get(name);
+            if (index == null) {
+                ExecutableElement setter = findSetter(name);
+                if (setter == null) continue;
+                index = mappedProperties.size();
+                mappedProperties.add(new Property(name, null, setter.getParameters().get(0).asType(), null, null,
+                        setter, false, false));
+                propertyIndexes.put(name, index);
+            }
+            columnKeys.put(key, index);
+        }
+    }
+
+    private ExecutableElement findSetter(String name) {
+        String setterName = "set" + StringUtils.capitalize(name);
+        for (ExecutableElement method : methods) {
+            if (isIgnored(method) || !method.getSimpleName().contentEquals(setterName)) continue;
+            return method.getParameters().size() == 1 ? method : null;
+        }
+        return null;
+    }
+
+    private int getFieldIndex(ExecutableElement getter) {
+        int index = findFieldIndex(fields, getPropertyName(getter));
+        return index > -1 ? index : fields.size();
+    }
+
+    private static int findFieldIndex(List<VariableElement> fields, String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            if (field != null && field.getSimpleName().toString().toUpperCase().equals(name.toUpperCase())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@code ReflectionUtils.getInstanceFields}: fields of superclasses go first, static fields and fields
+     * hidden by a subclass are skipped.
+     */
+    private static List<VariableElement> collectInstanceFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            List<VariableElement> declaredFields = new ArrayList<>();
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC) ||
+                        !names.add(field.getSimpleName().toString())) continue;
+                declaredFields.add(field);
+            }
+            fields.addAll(0, declaredFields);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ?
+                    (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return fields;
+    }
+
+    private static boolean isGetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        return name.length() > 3 && name.startsWith("get") && method.getParameters().isEmpty();
+    }
+
+    private static boolean isIgnored(Element element) {
+        return element.getAnnotation(Ignore.class) != null;
+    }
+
+    private static String getColumnName(Element element) {
+        return MetaUtils.getColumnName(element.getAnnotation(Column.class));
+    }
+
+    private static String getPropertyName(ExecutableElement getter) {
+        return StringUtils.uncapitalize(getter.getSimpleName().toString().substring(3));
+    }
+
+    static class Property {
+        private final String name;
+        private final String columnName;
+        private final TypeMirror type;
+        private final ExecutableElement getter;
+        private final VariableElement field;
+        private final ExecutableElement setter;
+        private final boolean id;
+        private final boolean generated;
+
+        Property(String name, String columnName, TypeMirror type, ExecutableElement getter, VariableElement field,
+                 ExecutableElement setter, boolean id, boolean generated) {
+            this.name = name;
+            this.columnName = columnName;
+            this.type = type;
+            this.getter = getter;
+            this.field = field;
+            this.setter = setter;
+            this.id = id;
+            this.generated = generated;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getColumnName() {
+            return columnName;
+        }
+
+        TypeMirror getType() {
+            return type;
+        }
+
+        ExecutableElement getGetter() {
+            return getter;
+        }
+
+        VariableElement getField() {
+            return field;
+        }
+
+        ExecutableElement getSetter() {
+            return setter;
+        }
+
+        boolean isId() {
+            return id;
+        }
+
+        boolean isGenerated() {
+            return generated;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.processor;
+
+import net.nimble.annotations.Table;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates descriptors, binders and mappers for classes annotated with {@link Table}. Generated classes are
+ * registered as {@code net.nimble.meta.generated.GeneratedEntity} services and are used by {@code Nimble}
+ * instead of reflection. Classes which can't be accessed from their package are skipped with a warning.
+ */
+@SupportedAnnotationTypes("net.nimble.annotations.Table")
+public class EntityProcessor extends AbstractProcessor {
+
+    static final String SERVICE_FILE = "META-INF/services/net.nimble.meta.generated.GeneratedEntity";
+
+    private final Set<String> generatedClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Table.class)) {
+            if (element.getKind() != ElementKind.CLASS) continue;
+            TypeElement type = (TypeElement) element;
+            if (!isAccessible(type)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Entity class isn't accessible from its package, code isn't generated", type);
+                continue;
+            }
+
+            EntityModel model = new EntityModel(type, processingEnv.getElementUtils());
+            String packageName = EntitySourceWriter.getPackageName(processingEnv.getElementUtils(), type);
+            String className = EntitySourceWriter.getClassName(type);
+            String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+            try {
+                JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+                try (Writer writer = file.openWriter()) {
+                    writer.write(new EntitySourceWriter(processingEnv.getElementUtils(),
+                            processingEnv.getTypeUtils(), model).write());
+                }
+                generatedClasses.add(qualifiedName);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Can't write generated entity " + qualifiedName + ": " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes entries generated in all rounds together with entries of the existing service file, so that an
+     * incremental compilation of a part of the entities keeps the others registered. Existing entries whose
+     * classes are no longer available are dropped.
+     */
+    private void writeServiceFile() {
+        if (generatedClasses.isEmpty()) return;
+        readServiceFile();
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String className : generatedClasses) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Can't write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private void readServiceFile() {
+        CharSequence content;
+        try {
+            content = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE)
+                    .getCharContent(true);
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        for (String line : content.toString().split("\\r?\\n")) {
+            int commentStart = line.indexOf('#');
+            String className = (commentStart > -1 ? line.substring(0, commentStart) : line).trim();
+            if (className.isEmpty() || generatedClasses.contains(className)) continue;
+            if (processingEnv.getElementUtils().getTypeElement(className) != null) {
+                generatedClasses.add(className);
+            }
+        }
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+        for (Element element = type; element.getKind().isClass() || element.getKind().isInterface();
+             element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) return false;
+        }
+        return true;
+    }
+}
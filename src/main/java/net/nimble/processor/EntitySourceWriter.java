@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the source of a {@code GeneratedEntity} implementation for an entity. Generated class is placed in
+ * the package of the entity, so that it can call getters and setters and read non-private fields directly.
+ */
+class EntitySourceWriter {
+
+    static final String SUFFIX = "_NbEntity";
+
+    private final Elements elements;
+    private final Types types;
+    private final EntityModel model;
+    private final String entityName;
+    private final StringBuilder builder = new StringBuilder();
+
+    EntitySourceWriter(Elements elements, Types types, EntityModel model) {
+        this.elements = elements;
+        this.types = types;
+        this.model = model;
+        this.entityName = model.getType().getQualifiedName().toString();
+    }
+
+    static String getPackageName(Elements elements, TypeElement type) {
+        PackageElement packageElement = elements.getPackageOf(type);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    static String getClassName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing.getKind().isClass() || enclosing.getKind().isInterface()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    String write() {
+        String packageName = getPackageName(elements, model.getType());
+        String className = getClassName(model.getType());
+        if (!packageName.isEmpty()) {
+            line(0, "package " + packageName + ";");
+            line(0, "");
+        }
+        line(0, "public final class " + className + " implements net.nimble.meta.generated.GeneratedEntity {");
+        line(0, "");
+        line(1, "@Override");
+        line(1, "public Class getEntityClass() {");
+        line(2, "return " + entityName + ".class;");
+        line(1, "}");
+        line(0, "");
+        writeCreateDescriptor();
+        line(0, "");
+        line(1, "@Override");
+        line(1, "public net.nimble.meta.mappers.ObjectMapper createMapper(" +
+                "net.nimble.conversion.ConverterManagerImpl converterManager) {");
+        line(2, model.isInstantiable() ? "return new Mapper(converterManager);" : "return null;");
+        line(1, "}");
+        line(0, "");
+        writeBinder();
+        if (model.isInstantiable()) {
+            line(0, "");
+            writeMapper();
+        }
+        line(0, "}");
+        return builder.toString();
+    }
+
+    private void writeCreateDescriptor() {
+        List<EntityModel.Property> columns = model.getColumns();
+        line(1, "@Override");
+        line(1, "public net.nimble.meta.EntityDescriptor createDescriptor(" +
+                "net.nimble.meta.accessors.AccessorFactory accessorFactory) {");
+        line(2, "java.util.List<net.nimble.meta.ColumnDescriptor> columns = new java.util.ArrayList<>(" +
+                columns.size() + ");");
+        for (EntityModel.Property column : columns) {
+            writeColumn("columns.add(", column, ");");
+        }
+
+        EntityModel.Property idColumn = model.getIdColumn();
+        if (idColumn == null) {
+            line(2, "net.nimble.meta.ColumnDescriptor idColumn = null;");
+        } else if (columns.contains(idColumn)) {
+            line(2, "net.nimble.meta.ColumnDescriptor idColumn = columns.get(" + columns.indexOf(idColumn) + ");");
+        } else {
+            writeColumn("net.nimble.meta.ColumnDescriptor idColumn = ", idColumn, ";");
+        }
+
+        List<VariableElement> fields = model.getFields();
+        line(2, "String[] fieldNames = new String[" + fields.size() + "];");
+        line(2, "net.nimble.meta.accessors.PropertyGetter[] fieldGetters = " +
+                "new net.nimble.meta.accessors.PropertyGetter[" + fields.size() + "];");
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            line(2, "fieldNames[" + i + "] = " + literal(field.getSimpleName().toString()) + ";");
+            if (isDirectlyReadable(field)) {
+                line(2, "fieldGetters[" + i + "] = new net.nimble.meta.accessors.PropertyGetter() {");
+                writeGetterMethod(3, "((" + entityName + ") object)." + field.getSimpleName());
+                line(2, "};");
+            } else {
+                line(2, "fieldGetters[" + i + "] = accessorFactory.createGetter(" +
+                        "net.nimble.meta.ReflectionUtils.getInstanceField(" + entityName + ".class, " +
+                        literal(field.getSimpleName().toString()) + "));");
+            }
+        }
+        line(2, "return new net.nimble.meta.EntityDescriptor(" + entityName + ".class, " +
+                literal(model.getTableName()) + ", columns, idColumn, fieldNames, fieldGetters, new Binder());");
+        line(1, "}");
+    }
+
+    private void writeColumn(String prefix, EntityModel.Property column, String suffix) {
+        line(2, prefix + "new net.nimble.meta.ColumnDescriptor(" + literal(column.getName()) + ", " +
+                literal(column.getColumnName()) + ", " + erasure(column.getType()) + ".class,");
+        if (column.getGetter() != null) {
+            line(4, "new net.nimble.meta.accessors.PropertyGetter() {");
+            writeGetterMethod(5, "((" + entityName + ") object)." + column.getGetter().getSimpleName() + "()");
+            line(4, "},");
+        } else if (isDirectlyReadable(column.getField())) {
+            line(4, "new net.nimble.meta.accessors.PropertyGetter() {");
+            writeGetterMethod(5, "((" + entityName + ") object)." + column.getField().getSimpleName());
+            line(4, "},");
+        } else {
+            line(4, "accessorFactory.createGetter(net.nimble.meta.ReflectionUtils.getInstanceField(" + entityName +
+                    ".class, " + literal(column.getField().getSimpleName().toString()) + ")),");
+        }
+        if (column.getSetter() != null) {
+            TypeMirror type = column.getSetter().getParameters().get(0).asType();
+            line(4, "new net.nimble.meta.accessors.PropertySetter() {");
+            line(5, "@Override");
+            line(5, "public void set(Object object, Object value) {");
+            line(6, "if (" + (isPrimitive(type) ? "!" : "value != null && !") + "(value instanceof " +
+                    boxed(type) + ")) {");
+            line(7, "throw new IllegalArgumentException(\"argument type mismatch\");");
+            line(6, "}");
+            line(6, "((" + entityName + ") object)." + column.getSetter().getSimpleName() + "((" + boxed(type) +
+                    ") value);");
+            line(5, "}");
+            line(4, "},");
+        } else {
+            line(4, "null,");
+        }
+        line(4, column.isId() + ", " + column.isGenerated() + ")" + suffix);
+    }
+
+    private void writeGetterMethod(int indent, String expression) {
+        line(indent, "@Override");
+        line(indent, "public Object get(Object object) {");
+        line(indent + 1, "return " + expression + ";");
+        line(indent, "}");
+    }
+
+    private void writeBinder() {
+        line(1, "private static final class Binder implements net.nimble.meta.EntityBinder {");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public int bind(java.sql.PreparedStatement statement, Object object, int index,");
+        line(6, "net.nimble.conversion.ConverterManagerImpl converterManager) throws java.sql.SQLException {");
+        line(3, entityName + " entity = (" + entityName + ") object;");
+        for (EntityModel.Property column : model.getColumns()) {
+            if (column.isGenerated()) continue;
+            line(3, "statement.setObject(index++, converterManager.convertToDb(entity." +
+                    column.getGetter().getSimpleName() + "()));");
+        }
+        line(3, "return index;");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void writeMapper() {
+        List<EntityModel.Property> properties = model.getMappedProperties();
+        line(1, "private static final class Mapper extends net.nimble.meta.generated.GeneratedEntityMapper {");
+        line(0, "");
+        line(2, "Mapper(net.nimble.conversion.ConverterManagerImpl converterManager) {");
+        line(3, "super(converterManager, " + entityName + ".class, new String[]{" + propertyNames(properties) +
+                "},");
+        line(5, "new Class[]{" + propertyTypes(properties) + "});");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "protected int findProperty(String columnName) {");
+        line(3, "switch (columnName) {");
+        for (Map.Entry<String, Integer> entry : model.getColumnKeys().entrySet()) {
+            line(4, "case " + literal(entry.getKey()) + ":");
+            line(5, "return " + entry.getValue() + ";");
+        }
+        line(4, "default:");
+        line(5, "return -1;");
+        line(3, "}");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "protected Object newInstance() {");
+        line(3, "return new " + entityName + "();");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "protected void setProperty(Object object, int property, Object value) {");
+        line(3, entityName + " entity = (" + entityName + ") object;");
+        line(3, "switch (property) {");
+        for (int i = 0; i < properties.size(); i++) {
+            EntityModel.Property property = properties.get(i);
+            line(4, "case " + i + ":");
+            line(5, "entity." + property.getSetter().getSimpleName() + "((" + boxed(property.getType()) +
+                    ") value);");
+            line(5, "break;");
+        }
+        line(3, "}");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private String propertyNames(List<EntityModel.Property> properties) {
+        StringBuilder result = new StringBuilder();
+        for (EntityModel.Property property : properties) {
+            if (result.length() > 0) result.append(", ");
+            result.append(literal(property.getName()));
+        }
+        return result.toString();
+    }
+
+    private String propertyTypes(List<EntityModel.Property> properties) {
+        StringBuilder result = new StringBuilder();
+        for (EntityModel.Property property : properties) {
+            if (result.length() > 0) result.append(", ");
+            result.append(erasure(property.getType())).append(".class");
+        }
+        return result.toString();
+    }
+
+    private boolean isDirectlyReadable(VariableElement field) {
+        return field.getKind() == ElementKind.FIELD && !field.getModifiers().contains(Modifier.PRIVATE) &&
+                !field.getModifiers().contains(Modifier.STATIC) && field.getEnclosingElement().equals(model.getType());
+    }
+
+    private static boolean isPrimitive(TypeMirror type) {
+        return type.getKind().isPrimitive();
+    }
+
+    private String erasure(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private String boxed(TypeMirror type) {
+        if (isPrimitive(type)) {
+            return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+
+    private String literal(String value) {
+        return elements.getConstantExpression(value);
+    }
+
+    private void line(int indent, String text) {
+        if (!text.isEmpty()) {
+            for (int i = 0; i < indent; i++) {
+                builder.append("    ");
+            }
+            builder.append(text);
+        }
+        builder.append('\n');
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.exceptions.NimbleException;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Encodes rows as tab separated text with backslash escapes into a reusable UTF-8 byte buffer. It's the text
+ * format of Postgres {@code COPY ... FROM STDIN} and the default format of MySQL {@code LOAD DATA}, which differ
+ * only in booleans, binaries and NUL chars. Strings are escaped and encoded char by char, integers, dates, times,
+ * timestamps and UUIDs are written digit by digit, so no intermediate strings are built for them. Decimals are
+ * written in plain notation, floating point numbers and other types as their {@code toString()}. The encoder
+ * isn't thread-safe.
+ */
+public class DelimitedTextEncoder {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = {'\\', 'N'};
+
+    private final boolean postgres;
+    private byte[] buffer;
+    private int size;
+    private boolean rowStarted;
+
+    public DelimitedTextEncoder(SqlDialect dialect, int initialCapacity) {
+        this.postgres = dialect == SqlDialect.POSTGRES;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    /**
+     * Writes a value converted to a database type. Dates, times and timestamps are written in the time zone of
+     * the JVM, like their {@code toString()}. Values of types without special encoding are written as their
+     * {@code toString()}.
+     */
+    public void writeValue(Object value) {
+        if (rowStarted) {
+            writeByte('\t');
+        }
+        rowStarted = true;
+
+        if (value == null) {
+            writeBytes(NULL);
+        } else if (value instanceof CharSequence) {
+            writeText((CharSequence) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+                value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            if (postgres) {
+                writeByte((Boolean) value ? 't' : 'f');
+            } else {
+                writeByte((Boolean) value ? '1' : '0');
+            }
+        } else if (value instanceof byte[]) {
+            writeBinary((byte[]) value);
+        } else if (value instanceof Timestamp) {
+            writeTimestamp((Timestamp) value);
+        } else if (value instanceof java.sql.Date) {
+            writeDate((java.sql.Date) value);
+        } else if (value instanceof Time) {
+            writeTime((Time) value);
+        } else if (value instanceof BigDecimal) {
+            writeText(((BigDecimal) value).toPlainString());
+        } else if (value instanceof UUID) {
+            writeUuid((UUID) value);
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    public void endRow() {
+        writeByte('\n');
+        rowStarted = false;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+        rowStarted = false;
+    }
+
+    private void writeText(CharSequence text) {
+        int length = text.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    writeEscape('\\');
+                    break;
+                case '\n':
+                    writeEscape('n');
+                    break;
+                case '\r':
+                    writeEscape('r');
+                    break;
+                case '\t':
+                    writeEscape('t');
+                    break;
+                case '\0':
+                    if (postgres) {
+                        throw new NimbleException("Postgres text can't contain NUL characters");
+                    }
+                    writeEscape('0');
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        writeCodePoint(Character.toCodePoint(c, text.charAt(i + 1)));
+                        i++;
+                    } else {
+                        writeCodePoint(c);
+                    }
+            }
+        }
+    }
+
+    private void writeEscape(char c) {
+        writeByte('\\');
+        writeByte(c);
+    }
+
+    private void writeCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            writeByte(codePoint);
+        } else if (codePoint < 0x800) {
+            writeByte(0xc0 | (codePoint >> 6));
+            writeByte(0x80 | (codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                writeByte('?');
+                return;
+            }
+            writeByte(0xe0 | (codePoint >> 12));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+            writeByte(0x80 | (codePoint & 0x3f));
+        } else {
+            writeByte(0xf0 | (codePoint >> 18));
+            writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+            writeByte(0x80 | (codePoint & 0x3f));
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeText(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int start = size;
+        do {
+            buffer[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void writeDate(java.util.Date date) {
+        writeDigits(date.getYear() + 1900, 4);
+        writeByte('-');
+        writeDigits(date.getMonth() + 1, 2);
+        writeByte('-');
+        writeDigits(date.getDate(), 2);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void writeTime(java.util.Date time) {
+        writeDigits(time.getHours(), 2);
+        writeByte(':');
+        writeDigits(time.getMinutes(), 2);
+        writeByte(':');
+        writeDigits(time.getSeconds(), 2);
+    }
+
+    /**
+     * Writes {@code yyyy-mm-dd hh:mm:ss} with fractional seconds without trailing zeros.
+     */
+    private void writeTimestamp(Timestamp timestamp) {
+        writeDate(timestamp);
+        writeByte(' ');
+        writeTime(timestamp);
+        int nanos = timestamp.getNanos();
+        if (nanos == 0) {
+            return;
+        }
+        int digits = 9;
+        while (nanos % 10 == 0) {
+            nanos /= 10;
+            digits--;
+        }
+        writeByte('.');
+        writeDigits(nanos, digits);
+    }
+
+    /**
+     * Writes a non-negative value with leading zeros up to the width, a year beyond the width gets more digits.
+     */
+    private void writeDigits(int value, int width) {
+        int length = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        ensureCapacity(Math.max(width, length));
+        for (int i = length; i < width; i++) {
+            buffer[size++] = '0';
+        }
+        writeLong(value);
+    }
+
+    private void writeUuid(UUID uuid) {
+        long high = uuid.getMostSignificantBits();
+        long low = uuid.getLeastSignificantBits();
+        writeHex(high >>> 32, 8);
+        writeByte('-');
+        writeHex(high >>> 16, 4);
+        writeByte('-');
+        writeHex(high, 4);
+        writeByte('-');
+        writeHex(low >>> 48, 4);
+        writeByte('-');
+        writeHex(low, 12);
+    }
+
+    /**
+     * Writes the lowest hex digits of the value.
+     */
+    private void writeHex(long value, int digits) {
+        ensureCapacity(digits);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer[size++] = HEX[(int) (value >>> shift) & 0x0f];
+        }
+    }
+
+    /**
+     * Writes bytea in hex format for Postgres, the backslash of the prefix is escaped for the text format.
+     * MySQL gets raw bytes with escapes.
+     */
+    private void writeBinary(byte[] value) {
+        if (!postgres) {
+            ensureCapacity(value.length * 2);
+            for (byte b : value) {
+                byte escape = getEscape(b);
+                if (escape != 0) {
+                    buffer[size++] = '\\';
+                    buffer[size++] = escape;
+                } else {
+                    buffer[size++] = b;
+                }
+            }
+            return;
+        }
+        ensureCapacity(value.length * 2 + 3);
+        buffer[size++] = '\\';
+        buffer[size++] = '\\';
+        buffer[size++] = 'x';
+        for (byte b : value) {
+            buffer[size++] = HEX[(b >> 4) & 0x0f];
+            buffer[size++] = HEX[b & 0x0f];
+        }
+    }
+
+    private static byte getEscape(byte b) {
+        switch (b) {
+            case '\\':
+                return '\\';
+            case '\n':
+                return 'n';
+            case '\r':
+                return 'r';
+            case '\t':
+                return 't';
+            case 0:
+                return '0';
+            default:
+                return 0;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + extra)];
+            System.arraycopy(buffer, 0, newBuffer, 0, size);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+/**
+ * Ways of passing array and collection values of query parameters to the database.
+ */
+public enum ListExpansion {
+
+    /**
+     * A question mark for every item. Every size of a list produces a new SQL text and a new statement.
+     */
+    EXACT,
+
+    /**
+     * Number of question marks is rounded up to a power of two and extra marks get the last item, so that lists
+     * of different sizes share a few SQL texts. Empty lists are rejected, since there is no item to repeat.
+     */
+    BUCKETS,
+
+    /**
+     * The list is bound as a single SQL array, {@code IN} lists with the parameter are rewritten to
+     * {@code = ANY(?)} and {@code NOT IN} lists to {@code <> ALL(?)}. A parameter which is the whole argument of
+     * {@code ANY(...)} or {@code ALL(...)} is bound as an array too, other list parameters get a question mark for
+     * every item, as with {@link #EXACT}. Supported by Postgres only.
+     */
+    ARRAY;
+
+    /**
+     * @return Number of question marks for a list with the passed number of items
+     */
+    public int getMarkCount(int size) {
+        switch (this) {
+            case BUCKETS:
+                return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+            case ARRAY:
+                return 1;
+            default:
+                return size;
+        }
+    }
+}
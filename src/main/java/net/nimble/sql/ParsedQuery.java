@@ -0,0 +1,246 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.exceptions.NimbleException;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable result of parsing a query with named parameters. The query is kept as SQL segments between
+ * parameters, segment {@code i} precedes parameter {@code i} and the last segment follows the last parameter.
+ * Every distinct parameter name gets a slot, so that values can be kept in an array instead of a map.
+ */
+public class ParsedQuery {
+
+    private static final Pattern IN_LIST_START = Pattern.compile("\\b(not\\s+)?in\\s*\\(\\s*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern IN_LIST_END = Pattern.compile("^\\s*\\)");
+    private static final Pattern ARRAY_ARGUMENT_START = Pattern.compile("\\b(any|all)\\s*\\(\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String[] segments;
+    private final String[] paramNames;
+    private final String[] slotNames;
+    private final int[] slots;
+    private final int[] inListStarts;
+    private final boolean[] notInLists;
+    private final boolean[] arrayArguments;
+    private final String sql;
+
+    public ParsedQuery(String[] segments, String[] paramNames) {
+        if (segments.length != paramNames.length + 1) {
+            throw new IllegalArgumentException("There must be one segment more than parameters");
+        }
+        this.segments = segments;
+        this.paramNames = paramNames;
+        this.slots = new int[paramNames.length];
+        this.inListStarts = new int[paramNames.length];
+        this.notInLists = new boolean[paramNames.length];
+        this.arrayArguments = new boolean[paramNames.length];
+
+        Map<String, Integer> slotMap = new HashMap<>();
+        for (int i = 0; i < paramNames.length; i++) {
+            Integer slot = slotMap.get(paramNames[i]);
+            if (slot == null) {
+                slot = slotMap.size();
+                slotMap.put(paramNames[i], slot);
+            }
+            slots[i] = slot;
+
+            inListStarts[i] = -1;
+            Matcher matcher = IN_LIST_START.matcher(segments[i]);
+            if (matcher.find() && IN_LIST_END.matcher(segments[i + 1]).find()) {
+                inListStarts[i] = matcher.start();
+                notInLists[i] = matcher.group(1) != null;
+            }
+            arrayArguments[i] = ARRAY_ARGUMENT_START.matcher(segments[i]).find() &&
+                    IN_LIST_END.matcher(segments[i + 1]).find();
+        }
+        this.slotNames = new String[slotMap.size()];
+        for (Map.Entry<String, Integer> entry : slotMap.entrySet()) {
+            slotNames[entry.getValue()] = entry.getKey();
+        }
+        this.sql = buildSql(null, null, ListExpansion.EXACT);
+    }
+
+    /**
+     * @return Names of parameters in the order of their appearance, a name repeats if the parameter is used
+     * several times
+     */
+    public String[] getParamNames() {
+        return paramNames.clone();
+    }
+
+    public int getParamCount() {
+        return paramNames.length;
+    }
+
+    public String getParamName(int index) {
+        return paramNames[index];
+    }
+
+    /**
+     * @return Distinct names of parameters, the position of a name is its slot
+     */
+    public String[] getSlotNames() {
+        return slotNames.clone();
+    }
+
+    public int getSlotCount() {
+        return slotNames.length;
+    }
+
+    /**
+     * @return Slot of the parameter with the passed position in the query
+     */
+    public int getSlot(int index) {
+        return slots[index];
+    }
+
+    /**
+     * @return Slot of the parameter with the passed name or -1 if the query has no such parameter
+     */
+    public int findSlot(String paramName) {
+        for (int i = 0; i < slotNames.length; i++) {
+            if (slotNames[i].equals(paramName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Strategy which the value of the parameter is expanded with. {@link ListExpansion#ARRAY} applies only
+     * to a parameter which is the whole {@code IN} list and so is rewritten to {@code = ANY(?)}, or the whole
+     * argument of {@code ANY(...)} or {@code ALL(...)} in the query. Other parameters get a question mark for every
+     * item.
+     */
+    public ListExpansion getListExpansion(int index, ListExpansion listExpansion) {
+        if (listExpansion == ListExpansion.ARRAY && inListStarts[index] < 0 && !arrayArguments[index]) {
+            return ListExpansion.EXACT;
+        }
+        return listExpansion;
+    }
+
+    /**
+     * @return SQL with a single question mark for every parameter
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Replaces parameters with question marks. Array and collection values get a mark for every item. If there
+     * are no such values the cached SQL is returned without any allocation.
+     */
+    public String expand(Map<String, Object> valueMap) {
+        return expand(valueMap, ListExpansion.EXACT);
+    }
+
+    /**
+     * Replaces parameters with question marks, array and collection values are expanded according to
+     * the passed strategy. If the SQL doesn't depend on values the cached SQL is returned without any allocation.
+     */
+    public String expand(Map<String, Object> valueMap, ListExpansion listExpansion) {
+        for (int i = 0; i < paramNames.length; i++) {
+            if (changesSql(i, valueMap.get(paramNames[i]), listExpansion)) {
+                return buildSql(valueMap, null, listExpansion);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Same as {@link #expand(Map, ListExpansion)} for values kept by slots.
+     */
+    public String expand(Object[] slotValues, ListExpansion listExpansion) {
+        for (int i = 0; i < paramNames.length; i++) {
+            if (changesSql(i, slotValues[slots[i]], listExpansion)) {
+                return buildSql(null, slotValues, listExpansion);
+            }
+        }
+        return sql;
+    }
+
+    private boolean changesSql(int paramIndex, Object value, ListExpansion listExpansion) {
+        if (!isMultiValue(value)) return false;
+        return getListExpansion(paramIndex, listExpansion) != ListExpansion.ARRAY || inListStarts[paramIndex] >= 0;
+    }
+
+    private String buildSql(Map<String, Object> valueMap, Object[] slotValues, ListExpansion listExpansion) {
+        int length = paramNames.length;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < paramNames.length; i++) {
+            Object value = null;
+            if (valueMap != null) {
+                value = valueMap.get(paramNames[i]);
+            } else if (slotValues != null) {
+                value = slotValues[slots[i]];
+            }
+
+            ListExpansion expansion = getListExpansion(i, listExpansion);
+            if (expansion == ListExpansion.ARRAY && isMultiValue(value) && inListStarts[i] >= 0) {
+                builder.append(segments[i], 0, inListStarts[i]);
+                builder.append(notInLists[i] ? "<> ALL(?" : "= ANY(?");
+                continue;
+            }
+
+            builder.append(segments[i]);
+            if (isMultiValue(value)) {
+                int size = value instanceof Collection ? ((Collection) value).size() : Array.getLength(value);
+                if (size == 0 && expansion == ListExpansion.BUCKETS) {
+                    throw new NimbleException(String.format("List value of parameter :%s is empty, " +
+                            "BUCKETS expansion needs at least one item", paramNames[i]));
+                }
+                appendParamMarks(builder, expansion.getMarkCount(size));
+            } else {
+                builder.append('?');
+            }
+        }
+        builder.append(segments[paramNames.length]);
+        return builder.toString();
+    }
+
+    private static boolean isMultiValue(Object value) {
+        return value != null && (value.getClass().isArray() || value instanceof Collection);
+    }
+
+    private static void appendParamMarks(StringBuilder builder, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(',');
+            builder.append('?');
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of parsed queries keyed by query text. When the cache is full the least recently used query is
+ * evicted to make room for a new one, hit and miss counters help to choose the capacity. Queries are parsed
+ * outside of the lock of the cache.
+ */
+public class QueryCache {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<String, ParsedQuery> queries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final SqlDialect dialect;
+    private volatile int capacity;
+
+    public QueryCache(SqlDialect dialect) {
+        this(dialect, DEFAULT_CAPACITY);
+    }
+
+    public QueryCache(SqlDialect dialect, int capacity) {
+        this.dialect = dialect;
+        setCapacity(capacity);
+    }
+
+    public ParsedQuery get(String query) {
+        ParsedQuery parsedQuery;
+        synchronized (queries) {
+            parsedQuery = queries.get(query);
+        }
+        if (parsedQuery != null) {
+            hitCount.incrementAndGet();
+            return parsedQuery;
+        }
+
+        missCount.incrementAndGet();
+        parsedQuery = QueryProcessor.parse(query, dialect);
+        if (capacity > 0) {
+            synchronized (queries) {
+                queries.put(query, parsedQuery);
+                evictIfFull();
+            }
+        }
+        return parsedQuery;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param capacity Maximal number of cached queries, zero turns caching off
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity can't be negative");
+        }
+        this.capacity = capacity;
+    }
+
+    public int size() {
+        synchronized (queries) {
+            return queries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public void clear() {
+        synchronized (queries) {
+            queries.clear();
+        }
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    private void evictIfFull() {
+        Iterator<String> iterator = queries.keySet().iterator();
+        while (queries.size() > capacity && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+/**
+ * Single-pass scanner of named parameters ({@code :name}) in SQL. Parameters aren't recognized inside string
+ * literals, quoted identifiers, comments and Postgres dollar-quoted bodies, and {@code ::} casts are skipped.
+ * MySQL and MariaDB have backslash escapes in strings, backtick identifiers and {@code #} comments, Postgres
+ * has dollar quotes, escape strings ({@code E'...'}) and nested block comments.
+ */
+class QueryLexer {
+
+    private final String query;
+    private final int length;
+    private final boolean mysql;
+    private final boolean postgres;
+    private int position;
+    private int paramStart;
+    private int paramEnd;
+
+    /**
+     * @param dialect Dialect of the query, {@code null} means standard SQL only
+     */
+    QueryLexer(String query, SqlDialect dialect) {
+        this.query = query;
+        this.length = query.length();
+        this.mysql = dialect == SqlDialect.MYSQL || dialect == SqlDialect.MARIADB;
+        this.postgres = dialect == SqlDialect.POSTGRES;
+    }
+
+    /**
+     * Moves to the next parameter.
+     *
+     * @return {@code false} if there are no more parameters
+     */
+    boolean nextParam() {
+        while (position < length) {
+            char c = query.charAt(position);
+            switch (c) {
+                case '\'':
+                    position = skipString(position, mysql || postgres && isEscapeStringPrefix(position));
+                    break;
+                case '"':
+                    position = skipQuoted(position, '"');
+                    break;
+                case '`':
+                    position = mysql ? skipQuoted(position, '`') : position + 1;
+                    break;
+                case '-':
+                    position = charAt(position + 1) == '-' ? skipLine(position) : position + 1;
+                    break;
+                case '#':
+                    position = mysql ? skipLine(position) : position + 1;
+                    break;
+                case '/':
+                    position = charAt(position + 1) == '*' ? skipBlockComment(position) : position + 1;
+                    break;
+                case '$':
+                    position = postgres ? skipDollarQuoted(position) : position + 1;
+                    break;
+                case ':':
+                    if (charAt(position + 1) == ':') {
+                        position += 2;
+                        break;
+                    }
+                    int end = position + 1;
+                    while (end < length && isWordChar(query.charAt(end))) {
+                        end++;
+                    }
+                    if (end > position + 1) {
+                        paramStart = position;
+                        paramEnd = end;
+                        position = end;
+                        return true;
+                    }
+                    position = end;
+                    break;
+                default:
+                    position++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Position of the colon of the current parameter
+     */
+    int getParamStart() {
+        return paramStart;
+    }
+
+    /**
+     * @return Position next to the last character of the current parameter
+     */
+    int getParamEnd() {
+        return paramEnd;
+    }
+
+    String getParamName() {
+        return query.substring(paramStart + 1, paramEnd);
+    }
+
+    private int skipString(int start, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (c == '\\' && backslashEscapes) {
+                i += 2;
+            } else if (c == '\'') {
+                if (charAt(i + 1) != '\'') return i + 1;
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private int skipQuoted(int start, char quote) {
+        int i = start + 1;
+        while (i < length) {
+            if (query.charAt(i) == quote) {
+                if (charAt(i + 1) != quote) return i + 1;
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private int skipLine(int start) {
+        int end = query.indexOf('\n', start);
+        return end < 0 ? length : end + 1;
+    }
+
+    private int skipBlockComment(int start) {
+        int depth = 1;
+        int i = start + 2;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (c == '*' && charAt(i + 1) == '/') {
+                i += 2;
+                if (--depth == 0) return i;
+            } else if (postgres && c == '/' && charAt(i + 1) == '*') {
+                i += 2;
+                depth++;
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    private int skipDollarQuoted(int start) {
+        if (start > 0 && isWordChar(query.charAt(start - 1))) {
+            return start + 1;
+        }
+        int tagEnd = start + 1;
+        while (tagEnd < length && query.charAt(tagEnd) != '$') {
+            char c = query.charAt(tagEnd);
+            if (!(Character.isLetter(c) || c == '_' || tagEnd > start + 1 && Character.isDigit(c))) {
+                return start + 1;
+            }
+            tagEnd++;
+        }
+        if (tagEnd >= length) {
+            return start + 1;
+        }
+
+        String tag = query.substring(start, tagEnd + 1);
+        int end = query.indexOf(tag, tagEnd + 1);
+        return end < 0 ? length : end + tag.length();
+    }
+
+    private boolean isEscapeStringPrefix(int quotePosition) {
+        if (quotePosition == 0) return false;
+        char c = query.charAt(quotePosition - 1);
+        return (c == 'E' || c == 'e') && (quotePosition == 1 || !isWordChar(query.charAt(quotePosition - 2)));
+    }
+
+    private char charAt(int index) {
+        return index < length ? query.charAt(index) : 0;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
@@ -27,6 +27,10 @@ package net.nimble.sql;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * @deprecated Replaced by {@link ParsedQuery}
+ */
+@Deprecated
 public class QueryParamNames {
     private final List<String> names = new ArrayList<>();
     private final List<int []> indexes = new ArrayList<>();
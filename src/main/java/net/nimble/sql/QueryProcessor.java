@@ -25,25 +25,59 @@
 package net.nimble.sql;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class QueryProcessor {
 
-    private static Pattern pattern = Pattern.compile("(?::)([\\w_]+)");
+    private static final String[] NO_PARAMS = new String[0];
 
+    public static ParsedQuery parse(String query) {
+        return parse(query, null);
+    }
+
+    /**
+     * @param dialect Dialect which defines quoting and comments of the query, {@code null} means standard SQL
+     */
+    public static ParsedQuery parse(String query, SqlDialect dialect) {
+        QueryLexer lexer = new QueryLexer(query, dialect);
+        if (!lexer.nextParam()) {
+            return new ParsedQuery(new String[]{query}, NO_PARAMS);
+        }
+
+        List<String> segments = new ArrayList<>();
+        List<String> paramNames = new ArrayList<>();
+        int lastPosition = 0;
+        do {
+            segments.add(query.substring(lastPosition, lexer.getParamStart()));
+            paramNames.add(lexer.getParamName());
+            lastPosition = lexer.getParamEnd();
+        } while (lexer.nextParam());
+        segments.add(query.substring(lastPosition));
+        return new ParsedQuery(segments.toArray(new String[segments.size()]),
+                paramNames.toArray(new String[paramNames.size()]));
+    }
+
+    /**
+     * @deprecated Use {@link #parse(String, SqlDialect)}, the parsed query keeps parameter names and SQL segments
+     */
+    @Deprecated
     public static QueryParamNames extractParamNames(String query) {
         QueryParamNames result = new QueryParamNames();
-        Matcher matcher = pattern.matcher(query);
-        while (matcher.find()) {
-            result.getNames().add(matcher.group(1));
-            result.getIndexes().add(new int[]{matcher.start(), matcher.end()});
+        QueryLexer lexer = new QueryLexer(query, null);
+        while (lexer.nextParam()) {
+            result.getNames().add(lexer.getParamName());
+            result.getIndexes().add(new int[]{lexer.getParamStart(), lexer.getParamEnd()});
         }
         return result;
     }
 
+    /**
+     * @deprecated Use {@link ParsedQuery#expand(Map)}
+     */
+    @Deprecated
     public static String replaceParamNames(String query, QueryParamNames parsingResult, Map<String, Object> valueMap) {
         StringBuilder builder = new StringBuilder(query.length());
         int lastPosition = 0;
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements of one connection, keyed by SQL text and generated keys mode. A statement taken
+ * with {@link #prepare(String, boolean)} is checked out until it's returned with {@link #release(PreparedStatement)},
+ * so nested or overlapping users of the same SQL get separate statements, and only idle statements are evicted
+ * and closed. The cache isn't thread-safe, like the connection.
+ */
+public class StatementCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final int capacity;
+    private final Map<Key, PreparedStatement> idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<PreparedStatement, Key> checkedOut = new IdentityHashMap<>();
+
+    /**
+     * @param capacity Maximal number of idle statements kept open, zero turns caching off
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes an idle statement with the same SQL or prepares a new one if there is none, for example if the cached
+     * statement is checked out and its result set is still read.
+     */
+    public PreparedStatement prepare(String sql, boolean returnGeneratedKeys) throws SQLException {
+        if (capacity == 0) {
+            return create(sql, returnGeneratedKeys);
+        }
+
+        Key key = new Key(sql, returnGeneratedKeys);
+        PreparedStatement statement = idleStatements.remove(key);
+        if (statement != null) {
+            statement.clearParameters();
+        } else {
+            statement = create(sql, returnGeneratedKeys);
+        }
+        checkedOut.put(statement, key);
+        return statement;
+    }
+
+    /**
+     * Returns the statement to the cache. The statement is closed if it wasn't taken from the cache, if the cache
+     * already has an idle statement with the same SQL or if caching is off. The least recently used idle statements
+     * are closed when there are more of them than the capacity.
+     */
+    public void release(PreparedStatement statement) throws SQLException {
+        Key key = checkedOut.remove(statement);
+        if (key == null || statement.isClosed() || idleStatements.containsKey(key)) {
+            statement.close();
+            return;
+        }
+
+        idleStatements.put(key, statement);
+        Iterator<PreparedStatement> iterator = idleStatements.values().iterator();
+        while (idleStatements.size() > capacity) {
+            PreparedStatement eldest = iterator.next();
+            iterator.remove();
+            eldest.close();
+        }
+    }
+
+    /**
+     * @return Number of idle statements
+     */
+    public int size() {
+        return idleStatements.size();
+    }
+
+    /**
+     * @return Number of statements taken and not released yet
+     */
+    public int getCheckedOutCount() {
+        return checkedOut.size();
+    }
+
+    /**
+     * Closes all idle statements. Statements which are still checked out are left to their users.
+     */
+    public void close() throws SQLException {
+        SQLException exception = null;
+        for (PreparedStatement statement : idleStatements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (exception == null) exception = e;
+            }
+        }
+        idleStatements.clear();
+        checkedOut.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+    private PreparedStatement create(String sql, boolean returnGeneratedKeys) throws SQLException {
+        return returnGeneratedKeys ?
+                connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
+                connection.prepareStatement(sql);
+    }
+
+    private static class Key {
+        private final String sql;
+        private final boolean returnGeneratedKeys;
+
+        Key(String sql, boolean returnGeneratedKeys) {
+            this.sql = sql;
+            this.returnGeneratedKeys = returnGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) return false;
+            Key key = (Key) object;
+            return returnGeneratedKeys == key.returnGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + (returnGeneratedKeys ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps statements created by one connection, so that statements left open are closed together with
+ * the connection instead of holding server cursors and driver buffers of a pooled connection. In leak detection
+ * mode the place of allocation is recorded for every statement and reported for the statements which were not
+ * closed by their owners. The tracker isn't thread-safe, like the connection.
+ * <p>
+ * Result sets aren't tracked on their own. JDBC closes result sets together with their statement, so a result set
+ * left open is released when its statement is closed by the owner or by {@link #closeAll()}, and its leak is
+ * reported as the leak of the statement. A result set which is left open while its statement is still used, for
+ * example the result set of a statement of {@link StatementCache}, is closed on the next execution of the statement.
+ * Result sets of {@link java.sql.DatabaseMetaData} are owned by the driver and aren't covered.
+ */
+public class StatementTracker {
+
+    private static final Logger LOGGER = Logger.getLogger(StatementTracker.class.getName());
+    private static final int MIN_PURGE_THRESHOLD = 64;
+
+    private final Map<Statement, Throwable> statements = new IdentityHashMap<>();
+    private final boolean leakDetection;
+    private int purgeThreshold = MIN_PURGE_THRESHOLD;
+
+    /**
+     * @param leakDetection If {@code true}, allocation stack traces are recorded and leaks are logged
+     */
+    public StatementTracker(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    public <T extends Statement> T track(T statement) throws SQLException {
+        if (statements.size() >= purgeThreshold) {
+            purgeClosed();
+            purgeThreshold = Math.max(MIN_PURGE_THRESHOLD, statements.size() * 2);
+        }
+        statements.put(statement, leakDetection ? new Throwable("Statement allocated here") : null);
+        return statement;
+    }
+
+    public int getOpenCount() throws SQLException {
+        purgeClosed();
+        return statements.size();
+    }
+
+    /**
+     * Closes all statements which are still open.
+     *
+     * @return Number of statements which were left open
+     */
+    public int closeAll() throws SQLException {
+        SQLException exception = null;
+        int leakCount = 0;
+        for (Map.Entry<Statement, Throwable> entry : statements.entrySet()) {
+            try {
+                if (entry.getKey().isClosed()) continue;
+                leakCount++;
+                if (leakDetection) {
+                    LOGGER.log(Level.WARNING, "Statement was not closed before its connection", entry.getValue());
+                }
+                entry.getKey().close();
+            } catch (SQLException e) {
+                if (exception == null) exception = e;
+            }
+        }
+        statements.clear();
+        if (exception != null) {
+            throw exception;
+        }
+        return leakCount;
+    }
+
+    private void purgeClosed() throws SQLException {
+        Iterator<Statement> iterator = statements.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isClosed()) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.annotations.Table;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+
+public class GenerateMappersTests {
+
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "mappers"), SqlDialect.MYSQL);
+        nimble.setGenerateMappers(true);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void mapsPrimitiveProperties() throws SQLException {
+        Person person = PeopleFactory.createTyrion();
+        person.setWeight(45.5);
+        connection.insert(person);
+
+        Measure[] measures = connection.query("select id, weight from person").fetchList(Measure.class);
+        Assert.assertEquals(1, measures.length);
+        Assert.assertEquals(person.getId(), measures[0].getId());
+        Assert.assertEquals(45.5, measures[0].getWeight(), 0);
+    }
+
+    @Test(expected = NimbleException.class)
+    public void nullOfPrimitivePropertyFails() throws SQLException {
+        Person person = PeopleFactory.createTyrion();
+        person.setWeight(null);
+        connection.insert(person);
+
+        connection.query("select id, weight from person").fetchList(Measure.class);
+    }
+
+    @Table("person")
+    public static class Measure {
+        private int id;
+        private double weight;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MySQL dialect sends multi-row inserts, Postgres dialect sends JDBC batches.
+ */
+@RunWith(Parameterized.class)
+public class InsertAllTests {
+
+    private final SqlDialect dialect;
+    private final String mode;
+    private NbConnection connection;
+
+    public InsertAllTests(SqlDialect dialect, String mode) {
+        this.dialect = dialect;
+        this.mode = mode;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> dialects() {
+        return Arrays.asList(new Object[]{SqlDialect.MYSQL, "MySQL"},
+                new Object[]{SqlDialect.POSTGRES, "PostgreSQL"});
+    }
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource(mode, "insert_all"), dialect);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void insertsInChunksAndSetsIds() throws SQLException {
+        List<Person> people = createPeople(10);
+        Assert.assertEquals(10, connection.insertAll(people, 4));
+
+        for (int i = 0; i < people.size(); i++) {
+            Person person = people.get(i);
+            Assert.assertTrue(person.getId() > 0);
+            if (i > 0) {
+                Assert.assertTrue(person.getId() > people.get(i - 1).getId());
+            }
+            Person loaded = connection.load(person.getId(), Person.class);
+            Assert.assertEquals(person.getFirstName(), loaded.getFirstName());
+            Assert.assertEquals(person.getGender(), loaded.getGender());
+        }
+    }
+
+    @Test
+    public void usesBatchSizeOfNimble() throws SQLException {
+        List<Person> people = createPeople(3);
+        Assert.assertEquals(3, connection.insertAll(people));
+        Assert.assertEquals(3, (int) connection.query("select count(*) from person").fetchValue(Integer.class));
+    }
+
+    @Test
+    public void emptyCollectionInsertsNothing() throws SQLException {
+        Assert.assertEquals(0, connection.insertAll(Collections.emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchSizeMustBePositive() throws SQLException {
+        connection.insertAll(createPeople(1), 0);
+    }
+
+    static List<Person> createPeople(int count) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Person person = i % 2 == 0 ? PeopleFactory.createTyrion() : PeopleFactory.createCercei();
+            person.setFirstName("P" + i);
+            people.add(person);
+        }
+        return people;
+    }
+}
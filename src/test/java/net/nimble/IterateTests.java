@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RunWith(Parameterized.class)
+public class IterateTests {
+
+    private final SqlDialect dialect;
+    private final String mode;
+    private NbConnection connection;
+    private int openCount;
+
+    public IterateTests(SqlDialect dialect, String mode) {
+        this.dialect = dialect;
+        this.mode = mode;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> dialects() {
+        return Arrays.asList(new Object[]{SqlDialect.MARIADB, "MySQL"},
+                new Object[]{SqlDialect.POSTGRES, "PostgreSQL"});
+    }
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource(mode, "iterate"), dialect);
+        connection = nimble.getConnection();
+        connection.insertAll(InsertAllTests.createPeople(5));
+        openCount = connection.getOpenStatementCount();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void readsAllRowsAndClosesStatement() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (NbResultIterator<Person> iterator = connection.query("select * from person order by id")
+                .setFetchSize(2).iterate(Person.class)) {
+            while (iterator.hasNext()) {
+                names.add(iterator.next().getFirstName());
+            }
+            Assert.assertEquals(openCount, connection.getOpenStatementCount());
+        }
+        Assert.assertEquals(Arrays.asList("P0", "P1", "P2", "P3", "P4"), names);
+    }
+
+    @Test
+    public void earlyCloseReleasesStatement() throws SQLException {
+        NbResultIterator<NbRow> iterator = connection.query("select * from person where first_name like :name")
+                .addParam("name", "P%").iterate(NbRow.class);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertNotNull(iterator.next().getString("FIRST_NAME"));
+        Assert.assertEquals(openCount + 1, connection.getOpenStatementCount());
+        iterator.close();
+        iterator.close();
+        Assert.assertEquals(openCount, connection.getOpenStatementCount());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void emptyResultHasNoRows() throws SQLException {
+        NbResultIterator<Map> iterator = connection.query("select * from person where 1 = 0").iterate(Map.class);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(openCount, connection.getOpenStatementCount());
+        iterator.next();
+    }
+
+    @Test
+    public void forEachStopsWhenHandlerReturnsFalse() throws SQLException {
+        final List<String> names = new ArrayList<>();
+        long count = connection.query("select * from person order by id").forEach(Person.class,
+                new NbRowHandler<Person>() {
+                    @Override
+                    public boolean handle(Person person) {
+                        names.add(person.getFirstName());
+                        return names.size() < 3;
+                    }
+                });
+        Assert.assertEquals(3, count);
+        Assert.assertEquals(Arrays.asList("P0", "P1", "P2"), names);
+        Assert.assertEquals(openCount, connection.getOpenStatementCount());
+    }
+
+    @Test
+    public void autoCommitIsRestoredOnClose() throws SQLException {
+        NbResultIterator<Person> iterator = connection.query("select * from person").iterate(Person.class);
+        Assert.assertEquals(dialect != SqlDialect.POSTGRES, connection.getAutoCommit());
+        iterator.close();
+        Assert.assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    public void callerTransactionIsLeftAsIs() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.query("delete from person where first_name = 'P0'").execute();
+        try (NbResultIterator<Person> iterator = connection.query("select * from person").iterate(Person.class)) {
+            Assert.assertTrue(iterator.hasNext());
+        }
+        Assert.assertFalse(connection.getAutoCommit());
+        connection.rollback();
+        Assert.assertEquals(5, (int) connection.query("select count(*) from person").fetchValue(Integer.class));
+    }
+
+    @Test
+    public void autoCommitSetDuringIterationIsKept() throws SQLException {
+        NbResultIterator<Person> iterator = connection.query("select * from person").iterate(Person.class);
+        connection.setAutoCommit(false);
+        iterator.close();
+        Assert.assertFalse(connection.getAutoCommit());
+        connection.setAutoCommit(true);
+    }
+
+    @Test
+    public void autoCommitIsRestoredAfterLastIterator() throws SQLException {
+        NbResultIterator<Person> first = connection.query("select * from person").iterate(Person.class);
+        NbResultIterator<Person> second = connection.query("select * from person").iterate(Person.class);
+        first.close();
+        Assert.assertEquals(dialect != SqlDialect.POSTGRES, connection.getAutoCommit());
+        second.close();
+        Assert.assertTrue(connection.getAutoCommit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fetchSizeCantBeNegative() {
+        connection.query("select * from person").setFetchSize(-1);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class LoadAllTests {
+
+    private Nimble nimble;
+    private NbConnection connection;
+    private List<Person> people;
+
+    @Before
+    public void init() throws SQLException {
+        nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "load_all"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+        people = InsertAllTests.createPeople(7);
+        connection.insertAll(people);
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void loadsInOrderOfIdsAndSkipsMissing() throws SQLException {
+        nimble.setBatchSize(3);
+        List<Object> ids = new ArrayList<>();
+        for (int i = people.size() - 1; i >= 0; i--) {
+            ids.add((long) people.get(i).getId());
+            if (i == 3) ids.add(-1);
+        }
+
+        Map<Object, Person> loaded = connection.loadAll(ids, Person.class);
+        Assert.assertEquals(7, loaded.size());
+        int position = people.size() - 1;
+        for (Map.Entry<Object, Person> entry : loaded.entrySet()) {
+            Person person = people.get(position--);
+            Assert.assertEquals(person.getId(), entry.getKey());
+            Assert.assertEquals(person.getFirstName(), entry.getValue().getFirstName());
+        }
+    }
+
+    @Test
+    public void listHasNullsForMissingIds() throws SQLException {
+        List<Person> loaded = connection.loadAllList(Arrays.asList(people.get(1).getId(), -1, people.get(0).getId()),
+                Person.class);
+        Assert.assertEquals(3, loaded.size());
+        Assert.assertEquals(people.get(1).getFirstName(), loaded.get(0).getFirstName());
+        Assert.assertNull(loaded.get(1));
+        Assert.assertEquals(people.get(0).getFirstName(), loaded.get(2).getFirstName());
+    }
+
+    @Test
+    public void loadsByCompositeKeys() throws SQLException {
+        Collection<Object[]> keys = Arrays.asList(new Object[]{"P2", "Lannister"}, new Object[]{"P0", "Stark"},
+                new Object[]{"P0", "Lannister"});
+        Map<List<Object>, Person> loaded = connection.loadAllByKeys(keys, new String[]{"first_name", "LAST_NAME"},
+                Person.class);
+        Assert.assertEquals(2, loaded.size());
+        List<List<Object>> loadedKeys = new ArrayList<>(loaded.keySet());
+        Assert.assertEquals(Arrays.<Object>asList("P2", "Lannister"), loadedKeys.get(0));
+        Assert.assertEquals(Arrays.<Object>asList("P0", "Lannister"), loadedKeys.get(1));
+        Assert.assertEquals(people.get(2).getId(), loaded.get(loadedKeys.get(0)).getId());
+    }
+
+    @Test(expected = NimbleException.class)
+    public void keyValuesMustMatchColumns() throws SQLException {
+        connection.loadAllByKeys(Arrays.<Object[]>asList(new Object[]{"P0"}), new String[]{"first_name", "last_name"},
+                Person.class);
+    }
+
+    @Test(expected = NimbleException.class)
+    public void unknownKeyColumnIsRejected() throws SQLException {
+        connection.loadAllByKeys(Arrays.<Object[]>asList(new Object[]{"P0"}), new String[]{"nick_name"},
+                Person.class);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The driver is replaced by a statement which reads the input stream of {@code LOAD DATA LOCAL INFILE} and counts
+ * the received lines, so that no MySQL server is needed.
+ */
+public class LoadDataTests {
+
+    private final RecordingDriver driver = new RecordingDriver();
+
+    @Test
+    public void streamsEntitiesAsDelimitedText() throws SQLException {
+        Person tyrion = PeopleFactory.createTyrion();
+        Person jaime = PeopleFactory.createJaime();
+        jaime.setLastName("Lannister\tthe Kingslayer");
+        jaime.setWeight(null);
+        try (NbConnection connection = driver.createNimble().getConnection()) {
+            Assert.assertEquals(2, connection.loadData(Arrays.asList(tyrion, jaime), Person.class));
+        }
+
+        Assert.assertEquals("load data local infile 'nimble' into table Person character set utf8mb4 " +
+                "fields terminated by '\\t' escaped by '\\\\' lines terminated by '\\n' " +
+                "(first_name,last_name,birth_date,gender,weight,height,cash_amount)", driver.sql);
+        String[] lines = driver.getText().split("\n");
+        Assert.assertEquals(2, lines.length);
+        Assert.assertTrue(lines[0], lines[0].startsWith("Tyrion\tLannister\t1955-06-07 00:00:00\tMALE\t45.99\t"));
+        Assert.assertTrue(lines[1], lines[1].startsWith("Jaime\tLannister\\tthe Kingslayer\t"));
+        Assert.assertEquals("\\N", lines[1].split("\t")[4]);
+    }
+
+    @Test
+    public void streamsRowsLargerThanBuffer() throws SQLException {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Person person = PeopleFactory.createCercei();
+            person.setFirstName("Person " + i);
+            people.add(person);
+        }
+        try (NbConnection connection = driver.createNimble().getConnection()) {
+            Assert.assertEquals(5000, connection.loadData(people.iterator(), Person.class));
+        }
+        Assert.assertTrue(driver.data.length > 64 * 1024);
+        String[] lines = driver.getText().split("\n");
+        Assert.assertEquals(5000, lines.length);
+        Assert.assertTrue(lines[4999], lines[4999].startsWith("Person 4999\t"));
+    }
+
+    @Test
+    public void loadsRowsWithColumnsOfFirstRow() throws SQLException {
+        ConverterManagerImpl converterManager = new ConverterManagerImpl();
+        String[] columns = {"first_name", "last_name"};
+        List<NbRow> rows = Arrays.asList(new NbRow(columns, new Object[]{"Arya", "Stark"}, converterManager),
+                new NbRow(columns, new Object[]{"Jon", null}, converterManager));
+        try (NbConnection connection = driver.createNimble().getConnection()) {
+            Assert.assertEquals(2, connection.loadData("person", rows.iterator()));
+            Assert.assertEquals(0, connection.loadData("person", Collections.<NbRow>emptyIterator()));
+        }
+        Assert.assertTrue(driver.sql, driver.sql.endsWith("(first_name,last_name)"));
+        Assert.assertEquals("Arya\tStark\nJon\t\\N\n", driver.getText());
+    }
+
+    @Test(expected = NimbleException.class)
+    public void requiresMysqlDialect() throws SQLException {
+        Nimble nimble = new Nimble(driver.createDataSource(), SqlDialect.POSTGRES);
+        try (NbConnection connection = nimble.getConnection()) {
+            connection.loadData(Collections.<Person>emptyList(), Person.class);
+        }
+    }
+
+    @Test
+    public void rejectsDriverWithoutInputStreams() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "load_data"), SqlDialect.MYSQL);
+        try (NbConnection connection = nimble.getConnection()) {
+            connection.loadData(Collections.singletonList(PeopleFactory.createTyrion()), Person.class);
+            Assert.fail();
+        } catch (NimbleException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("LOAD DATA LOCAL INFILE"));
+        }
+    }
+
+    private static class RecordingDriver {
+        private String sql;
+        private byte[] data;
+
+        Nimble createNimble() {
+            return new Nimble(createDataSource(), SqlDialect.MYSQL);
+        }
+
+        DataSource createDataSource() {
+            final Connection connection = (Connection) createProxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("createStatement")) {
+                        return createStatement();
+                    }
+                    return defaultValue(method);
+                }
+            });
+            return (DataSource) createProxy(DataSource.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    return method.getName().equals("getConnection") ? connection : defaultValue(method);
+                }
+            });
+        }
+
+        String getText() {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        private Statement createStatement() {
+            return (Statement) Proxy.newProxyInstance(LoadDataTests.class.getClassLoader(),
+                    new Class[]{Statement.class, JdbcStatement.class}, new InvocationHandler() {
+                        private InputStream input;
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+                            switch (method.getName()) {
+                                case "setLocalInfileInputStream":
+                                    input = (InputStream) args[0];
+                                    return null;
+                                case "executeUpdate":
+                                    sql = (String) args[0];
+                                    data = readAll(input);
+                                    int count = 0;
+                                    for (byte b : data) {
+                                        if (b == '\n') count++;
+                                    }
+                                    return count;
+                                default:
+                                    return defaultValue(method);
+                            }
+                        }
+                    });
+        }
+
+        private static byte[] readAll(InputStream input) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int count;
+            while ((count = input.read(buffer, 0, buffer.length)) >= 0) {
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        }
+
+        private static Object createProxy(Class type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(LoadDataTests.class.getClassLoader(), new Class[]{type}, handler);
+        }
+
+        private static Object defaultValue(Method method) {
+            Class type = method.getReturnType();
+            if (type == boolean.class) return false;
+            if (type == int.class) return 0;
+            if (type == long.class) return 0L;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Table;
+import net.nimble.conversion.ToDbConverter;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiRowInsertTests {
+
+    private Nimble nimble;
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "multi_row"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void lastChunkIsSplitIntoPowersOfTwo() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(11);
+        Assert.assertEquals(11, connection.insertAll(people, 4));
+        // Chunks of 4, 4, 2 and 1 rows prepare three statements
+        Assert.assertEquals(3, connection.getOpenStatementCount());
+        assertInserted(people);
+    }
+
+    @Test
+    public void chunkSizesAreBounded() throws SQLException {
+        List<Person> people = new ArrayList<>();
+        for (int count = 1; count <= 40; count++) {
+            List<Person> group = InsertAllTests.createPeople(count);
+            connection.insertAll(group, 16);
+            people.addAll(group);
+        }
+        // Full chunks of 16 rows and tails of 8, 4, 2 and 1 rows
+        Assert.assertEquals(5, connection.getOpenStatementCount());
+        Assert.assertEquals(people.size(), (int) connection.query("select count(*) from person")
+                .fetchValue(Integer.class));
+    }
+
+    @Test
+    public void packetSizeIsEstimatedFromConvertedValues() throws SQLException {
+        nimble.getConverterManager().addToDbConverter(new ToDbConverter<Note>() {
+            @Override
+            public Object convert(Note value) {
+                return value.text;
+            }
+        });
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table notes (id int auto_increment primary key, body varchar(1000))");
+        }
+        List<NoteRow> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            NoteRow row = new NoteRow();
+            row.setBody(new Note(new String(new char[300]).replace('\0', 'a')));
+            rows.add(row);
+        }
+        nimble.setMaxPacketSize(1000);
+        Assert.assertEquals(3, connection.insertAll(rows, 100));
+        // Every converted row takes more than half of the packet, so rows are sent one by one
+        Assert.assertEquals(1, connection.getOpenStatementCount());
+        Assert.assertEquals(300, (int) connection.query("select min(length(body)) from notes")
+                .fetchValue(Integer.class));
+    }
+
+    @Test
+    public void packetSizeLimitsChunks() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(7);
+        nimble.setMaxPacketSize(400);
+        Assert.assertEquals(7, connection.insertAll(people, 100));
+        assertInserted(people);
+    }
+
+    @Test
+    public void rowLargerThanPacketIsSentAlone() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(3);
+        nimble.setMaxPacketSize(1);
+        Assert.assertEquals(3, connection.insertAll(people, 100));
+        Assert.assertEquals(1, connection.getOpenStatementCount());
+        assertInserted(people);
+    }
+
+    public static class Note {
+        private final String text;
+
+        public Note(String text) {
+            this.text = text;
+        }
+    }
+
+    @Table("notes")
+    public static class NoteRow {
+        private int id;
+        private Note body;
+
+        @Id
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public Note getBody() {
+            return body;
+        }
+
+        public void setBody(Note body) {
+            this.body = body;
+        }
+    }
+
+    private void assertInserted(List<Person> people) throws SQLException {
+        Assert.assertEquals(people.size(), (int) connection.query("select count(*) from person")
+                .fetchValue(Integer.class));
+        for (Person person : people) {
+            Assert.assertEquals(person.getFirstName(), connection.load(person.getId(), Person.class).getFirstName());
+        }
+    }
+}
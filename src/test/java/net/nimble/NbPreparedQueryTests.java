@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+public class NbPreparedQueryTests {
+
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "prepared"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void executesManyTimesWithOneStatement() throws SQLException {
+        try (NbPreparedQuery insert = connection.prepare("insert into person (first_name, last_name, birth_date) " +
+                "values (:firstName, :lastName, '2000-01-01')")) {
+            int openCount = connection.getOpenStatementCount();
+            for (String name : new String[]{"Tyrion", "Jaime", "Cercei"}) {
+                Assert.assertEquals(1, insert.bind("firstName", name).bind("lastName", "Lannister").execute());
+                Assert.assertTrue(insert.getGeneratedKey(Integer.class) > 0);
+            }
+            Assert.assertEquals(openCount + 1, connection.getOpenStatementCount());
+        }
+
+        try (NbPreparedQuery select = connection.prepare("select count(*) from person where first_name=:name")) {
+            Assert.assertEquals(1, (int) select.bind("name", "Jaime").fetchValue(Integer.class));
+            Assert.assertEquals(0, (int) select.bind("name", "Arya").fetchValue(Integer.class));
+        }
+    }
+
+    @Test
+    public void valuesStayBoundUntilReplaced() throws SQLException {
+        insertPeople();
+        try (NbPreparedQuery query = connection.prepare(
+                "select * from person where last_name=:lastName and gender=:gender order by id")) {
+            int index = query.getParamIndex("gender");
+            query.bind("lastName", "Lannister").bind(index, "MALE");
+            Assert.assertEquals(2, query.fetchList(Person.class).length);
+            Person[] women = query.bind(index, "FEMALE").fetchList(Person.class);
+            Assert.assertEquals(1, women.length);
+            Assert.assertEquals("Cercei", women[0].getFirstName());
+        }
+    }
+
+    @Test
+    public void listValuesRePrepareStatement() throws SQLException {
+        insertPeople();
+        try (NbPreparedQuery query = connection.prepare("select * from person where first_name in (:names)")) {
+            Assert.assertEquals(2, query.bind("names", Arrays.asList("Tyrion", "Jaime")).fetchRowList().length);
+            int openCount = connection.getOpenStatementCount();
+            Assert.assertEquals(3, query.bind("names", new String[]{"Tyrion", "Jaime", "Cercei"})
+                    .fetchMapList().length);
+            Assert.assertEquals(openCount, connection.getOpenStatementCount());
+        }
+    }
+
+    @Test
+    public void bindsBeanProperties() throws SQLException {
+        try (NbPreparedQuery insert = connection.prepare("insert into person (first_name, last_name, birth_date, " +
+                "gender) values (:firstName, :lastName, :birthDate, :gender)")) {
+            insert.bindBean(PeopleFactory.createTyrion()).execute();
+            insert.bindBean(PeopleFactory.createCercei()).execute();
+        }
+        Person[] people = connection.query("select * from person order by id").fetchList(Person.class);
+        Assert.assertEquals(2, people.length);
+        Assert.assertEquals("Tyrion", people[0].getFirstName());
+        Assert.assertEquals("Cercei", people[1].getFirstName());
+    }
+
+    @Test
+    public void closeReleasesStatement() throws SQLException {
+        int openCount = connection.getOpenStatementCount();
+        NbPreparedQuery query = connection.prepare("select :a");
+        query.bind("a", 1).fetchValue();
+        Assert.assertEquals(openCount + 1, connection.getOpenStatementCount());
+        query.close();
+        Assert.assertEquals(openCount, connection.getOpenStatementCount());
+    }
+
+    @Test(expected = NimbleException.class)
+    public void unboundParamIsRejected() throws SQLException {
+        try (NbPreparedQuery query = connection.prepare("select :a, :b")) {
+            query.bind("a", 1).fetchValue();
+        }
+    }
+
+    @Test(expected = NimbleException.class)
+    public void clearedParamIsRejected() throws SQLException {
+        try (NbPreparedQuery query = connection.prepare("select :a")) {
+            query.bind("a", 1).fetchValue();
+            query.clearParams().fetchValue();
+        }
+    }
+
+    @Test(expected = NimbleException.class)
+    public void unknownParamIsRejected() throws SQLException {
+        try (NbPreparedQuery query = connection.prepare("select :a")) {
+            query.bind("b", 1);
+        }
+    }
+
+    @Test
+    public void paramIndexOutOfRangeIsRejected() throws SQLException {
+        try (NbPreparedQuery query = connection.prepare("select :a + :b + :a")) {
+            Assert.assertEquals(4, (int) query.bind(0, 1).bind(1, 2).fetchValue(Integer.class));
+            for (int index : new int[]{-1, 2}) {
+                try {
+                    query.bind(index, 3);
+                    Assert.fail();
+                } catch (NimbleException e) {
+                    Assert.assertTrue(e.getMessage(), e.getMessage().contains("index " + index));
+                }
+            }
+        }
+    }
+
+    private void insertPeople() throws SQLException {
+        connection.insert(PeopleFactory.createTyrion());
+        connection.insert(PeopleFactory.createJaime());
+        connection.insert(PeopleFactory.createCercei());
+    }
+}
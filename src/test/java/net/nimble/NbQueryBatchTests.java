@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.utils.DbUtils;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NbQueryBatchTests {
+
+    private static final String INSERT = "insert into person (first_name, last_name, birth_date) " +
+            "values (:firstName, :lastName, '2000-01-01')";
+
+    private Nimble nimble;
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "query_batch"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void executesParamSetsAndReturnsKeys() {
+        NbQuery query = connection.query(INSERT).addParam("lastName", "Lannister");
+        query.addParam("firstName", "Tyrion").addBatch();
+        query.addBatchMap(Collections.<String, Object>singletonMap("firstName", "Jaime"));
+        query.addBatchParams(new NbParams().add("firstName", "Cercei"));
+        int[] counts = query.executeBatch();
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, counts);
+
+        Integer[] keys = query.getGeneratedKeys(Integer.class);
+        Assert.assertEquals(3, keys.length);
+        Assert.assertTrue(keys[0] < keys[1] && keys[1] < keys[2]);
+        Assert.assertEquals(keys[0], query.getGeneratedKey(Integer.class));
+        Assert.assertEquals(3, (int) connection.query("select count(*) from person where last_name='Lannister'")
+                .fetchValue(Integer.class));
+    }
+
+    @Test
+    public void splitsBatchBySizeAndSql() {
+        nimble.setBatchSize(2);
+        connection.query("insert into person (first_name, last_name, birth_date) values " +
+                "('A', 'Stark', '2000-01-01'), ('B', 'Stark', '2000-01-01'), ('C', 'Stark', '2000-01-01')").execute();
+        NbQuery query = connection.query("update person set last_name=:lastName where first_name in (:names)");
+        query.addBatchMap(params("Snow", Arrays.asList("A")));
+        query.addBatchMap(params("Stark", Arrays.asList("A")));
+        query.addBatchMap(params("Tully", Arrays.asList("A")));
+        query.addBatchMap(params("Snow", Arrays.asList("B", "C")));
+        Assert.assertArrayEquals(new int[]{1, 1, 1, 2}, query.executeBatch());
+        Assert.assertEquals("Tully", connection.query("select last_name from person where first_name='A'")
+                .fetchValue(String.class));
+        Assert.assertEquals(2, (int) connection.query("select count(*) from person where last_name='Snow'")
+                .fetchValue(Integer.class));
+    }
+
+    @Test
+    public void bindsBeanProperties() {
+        NbQuery query = connection.query(INSERT);
+        query.addBatchBean(PeopleFactory.createTyrion()).addBatchBean(PeopleFactory.createJaime());
+        Assert.assertArrayEquals(new int[]{1, 1}, query.executeBatch());
+    }
+
+    @Test
+    public void batchIsClearedAfterExecution() {
+        NbQuery query = connection.query(INSERT).addParam("lastName", "Lannister");
+        query.addParam("firstName", "Tyrion").addBatch();
+        query.executeBatch();
+        Assert.assertEquals(0, query.executeBatch().length);
+        Assert.assertEquals(0, query.getGeneratedKeys(Integer.class).length);
+
+        query.addBatch().clearBatch();
+        Assert.assertEquals(0, query.executeBatch().length);
+    }
+
+    @Test
+    public void batchIsClearedAfterFailure() {
+        NbQuery query = connection.query(INSERT);
+        query.addBatchMap(Collections.<String, Object>singletonMap("firstName", "Tyrion"));
+        try {
+            query.executeBatch();
+            Assert.fail();
+        } catch (NimbleException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(":lastName"));
+        }
+        Assert.assertEquals(0, query.executeBatch().length);
+    }
+
+    private static Map<String, Object> params(String lastName, Object names) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastName", lastName);
+        params.put("names", names);
+        return params;
+    }
+}
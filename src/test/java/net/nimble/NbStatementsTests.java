@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.sql.ListExpansion;
+import net.nimble.sql.ParsedQuery;
+import net.nimble.sql.QueryProcessor;
+import net.nimble.sql.SqlDialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class NbStatementsTests {
+
+    private final ConverterManagerImpl converterManager = new ConverterManagerImpl();
+
+    @Test
+    public void exactBindsEveryItem() throws SQLException {
+        List<String> calls = new ArrayList<>();
+        int next = NbStatements.setParam(recordingStatement(calls), 1, Arrays.asList(1, 2, 3), converterManager,
+                ListExpansion.EXACT);
+        Assert.assertEquals(4, next);
+        Assert.assertEquals(Arrays.asList("setObject 1 1", "setObject 2 2", "setObject 3 3"), calls);
+    }
+
+    @Test
+    public void bucketsRepeatLastItem() throws SQLException {
+        List<String> calls = new ArrayList<>();
+        int next = NbStatements.setParam(recordingStatement(calls), 2, new int[]{1, 2, 3}, converterManager,
+                ListExpansion.BUCKETS);
+        Assert.assertEquals(6, next);
+        Assert.assertEquals(Arrays.asList("setObject 2 1", "setObject 3 2", "setObject 4 3", "setObject 5 3"),
+                calls);
+    }
+
+    @Test
+    public void arrayBindsOnlyRewrittenParams() throws SQLException {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (:a) or b in (0, :b)",
+                SqlDialect.POSTGRES);
+        List<String> calls = new ArrayList<>();
+        PreparedStatement statement = recordingStatement(calls);
+        int index = NbStatements.setParam(statement, 1, Arrays.asList(1, 2), converterManager,
+                query.getListExpansion(0, ListExpansion.ARRAY));
+        index = NbStatements.setParam(statement, index, Arrays.asList(3, 4), converterManager,
+                query.getListExpansion(1, ListExpansion.ARRAY));
+        Assert.assertEquals(4, index);
+        Assert.assertEquals(Arrays.asList("createArrayOf int4 [1, 2]", "setArray 1", "setObject 2 3",
+                "setObject 3 4"), calls);
+    }
+
+    @Test
+    public void scalarIsBoundOnce() throws SQLException {
+        List<String> calls = new ArrayList<>();
+        Assert.assertEquals(2, NbStatements.setParam(recordingStatement(calls), 1, "text", converterManager,
+                ListExpansion.ARRAY));
+        Assert.assertEquals(Arrays.asList("setObject 1 text"), calls);
+    }
+
+    private static PreparedStatement recordingStatement(final List<String> calls) {
+        final Connection connection = (Connection) Proxy.newProxyInstance(NbStatementsTests.class.getClassLoader(),
+                new Class[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (!method.getName().equals("createArrayOf")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        calls.add("createArrayOf " + args[0] + " " + Arrays.toString((Object[]) args[1]));
+                        return Proxy.newProxyInstance(NbStatementsTests.class.getClassLoader(),
+                                new Class[]{Array.class}, this);
+                    }
+                });
+        return (PreparedStatement) Proxy.newProxyInstance(NbStatementsTests.class.getClassLoader(),
+                new Class[]{PreparedStatement.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getConnection":
+                                return connection;
+                            case "setObject":
+                                calls.add("setObject " + args[0] + " " + args[1]);
+                                return null;
+                            case "setArray":
+                                calls.add("setArray " + args[0]);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+}
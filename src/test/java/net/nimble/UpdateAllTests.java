@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Table;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+public class UpdateAllTests {
+
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "update_all"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void returnsCountsInOrderOfObjects() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(5);
+        connection.insertAll(people);
+        for (Person person : people) {
+            person.setLastName("Stark");
+        }
+        Person missing = InsertAllTests.createPeople(1).get(0);
+        missing.setId(-1);
+
+        int[] counts = connection.updateAll(Arrays.asList(people.get(0), missing, people.get(1), people.get(2),
+                people.get(3), people.get(4)), 2);
+        Assert.assertArrayEquals(new int[]{1, 0, 1, 1, 1, 1}, counts);
+        Assert.assertEquals(5, (int) connection.query("select count(*) from person where last_name='Stark'")
+                .fetchValue(Integer.class));
+    }
+
+    @Test
+    public void keepsOrderAcrossClasses() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(2);
+        connection.insertAll(people);
+        PersonName renamed = new PersonName();
+        renamed.setId(people.get(1).getId());
+        renamed.setFirstName("Arya");
+        PersonName missing = new PersonName();
+        missing.setId(-1);
+        missing.setFirstName("Sansa");
+
+        int[] counts = connection.updateAll(Arrays.asList(missing, people.get(0), renamed));
+        Assert.assertArrayEquals(new int[]{0, 1, 1}, counts);
+        Assert.assertEquals("Arya", connection.load(people.get(1).getId(), Person.class).getFirstName());
+    }
+
+    @Test
+    public void emptyCollectionUpdatesNothing() throws SQLException {
+        Assert.assertEquals(0, connection.updateAll(Arrays.asList()).length);
+    }
+
+    @Test
+    public void entityWithoutWritableColumnsIsRejected() throws SQLException {
+        PersonId person = new PersonId();
+        person.setId(1);
+        try {
+            connection.update(person);
+            Assert.fail();
+        } catch (NimbleException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("without writable columns"));
+        }
+        try {
+            connection.updateAll(Arrays.asList(person));
+            Assert.fail();
+        } catch (NimbleException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("without writable columns"));
+        }
+    }
+
+    @Table("person")
+    public static class PersonId {
+        private int id;
+
+        @Id
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+
+    @Table("person")
+    public static class PersonName {
+        private int id;
+        @Column("first_name")
+        private String firstName;
+
+        @Id
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+    }
+}
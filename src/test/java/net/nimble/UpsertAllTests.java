@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Table;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+public class UpsertAllTests {
+
+    private NbConnection connection;
+
+    @Before
+    public void init() throws SQLException {
+        Nimble nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "upsert_all"), SqlDialect.MYSQL);
+        connection = nimble.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create unique index person_first_name on person(first_name)");
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void insertsAndUpdatesByConflictColumns() throws SQLException {
+        List<Person> people = InsertAllTests.createPeople(5);
+        connection.upsertAll(people, 2, "first_name");
+        Assert.assertEquals(5, countPeople("1=1"));
+
+        for (Person person : people) {
+            person.setLastName("Stark");
+        }
+        people.addAll(InsertAllTests.createPeople(7).subList(5, 7));
+        connection.upsertAll(people, 3, "first_name");
+        Assert.assertEquals(7, countPeople("1=1"));
+        Assert.assertEquals(5, countPeople("last_name='Stark'"));
+    }
+
+    @Test(expected = NimbleException.class)
+    public void generatedIdRequiresConflictColumns() throws SQLException {
+        connection.upsertAll(InsertAllTests.createPeople(1));
+    }
+
+    @Test(expected = NimbleException.class)
+    public void entityWithoutWritableColumnsIsRejected() throws SQLException {
+        connection.upsertAll(Collections.singletonList(new PersonId()), "id");
+    }
+
+    private int countPeople(String condition) {
+        return connection.query("select count(*) from person where " + condition).fetchValue(Integer.class);
+    }
+
+    @Table("person")
+    public static class PersonId {
+        private int id;
+
+        @Id
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble;
+
+import net.nimble.annotations.Table;
+import net.nimble.sql.SqlDialect;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.DbUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+
+public class WarmUpTests {
+
+    private Nimble nimble;
+
+    @Before
+    public void init() throws SQLException {
+        nimble = new Nimble(DbUtils.createH2DataSource("MySQL", "warmup"), SqlDialect.MYSQL);
+    }
+
+    @Test
+    public void warmsUpEntities() {
+        WarmUpResult result = nimble.warmUp(Person.class);
+        Assert.assertTrue(result.isSuccessful());
+        Assert.assertEquals(1, result.getEntityCount());
+        Assert.assertTrue(result.getDurationNanos() > 0);
+    }
+
+    @Test
+    public void failingEntityDoesNotStopOthers() {
+        WarmUpResult result = nimble.warmUp(Missing.class, Person.class);
+        Assert.assertFalse(result.isSuccessful());
+        Assert.assertEquals(1, result.getEntityCount());
+        Assert.assertEquals(1, result.getFailures().size());
+        Assert.assertTrue(result.getFailures().get(Missing.class) instanceof SQLException);
+        Assert.assertTrue(result.toString(), result.toString().contains("1 failed"));
+    }
+
+    @Table("missing_table")
+    public static class Missing {
+        private int id;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Ignore;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EntityDescriptorRegistryTests {
+
+    @Test
+    public void autoStrategyDiscoversFieldsWithoutGetters() {
+        EntityDescriptor descriptor = getDescriptor(AccessStrategy.AUTO, FieldHolder.class);
+        Assert.assertEquals(Arrays.asList("id", "name", "amount"), getColumnNames(descriptor));
+        Assert.assertEquals("id", descriptor.getIdColumn().getName());
+
+        FieldHolder holder = new FieldHolder();
+        holder.name = "Tyrion";
+        ColumnDescriptor name = descriptor.getColumns().get(1);
+        Assert.assertEquals("Tyrion", name.getValue(holder));
+        name.setValue(holder, "Jaime");
+        Assert.assertEquals("Jaime", holder.name);
+    }
+
+    @Test
+    public void autoStrategyKeepsGettersAndIgnoredProperties() {
+        EntityDescriptor descriptor = getDescriptor(AccessStrategy.AUTO, MixedHolder.class);
+        Assert.assertEquals(Arrays.asList("id", "title", "code"), getColumnNames(descriptor));
+    }
+
+    @Test
+    public void setterStrategyFindsNoColumnsWithoutGetters() {
+        EntityDescriptor descriptor = getDescriptor(AccessStrategy.SETTER, FieldHolder.class);
+        Assert.assertTrue(descriptor.getColumns().isEmpty());
+    }
+
+    @Test
+    public void fieldStrategyIncludesFieldsOfSuperclasses() {
+        EntityDescriptor descriptor = getDescriptor(AccessStrategy.FIELD, ChildHolder.class);
+        Assert.assertEquals(Arrays.asList("id", "created", "name"), getColumnNames(descriptor));
+        Assert.assertEquals("id", descriptor.getIdColumn().getName());
+        Assert.assertTrue(descriptor.isGeneratedId());
+    }
+
+    @Test
+    public void fieldNamesIncludeFieldsOfSuperclasses() {
+        EntityDescriptor descriptor = getDescriptor(AccessStrategy.SETTER, ChildHolder.class);
+        Assert.assertArrayEquals(new String[]{"id", "created", "name"}, descriptor.getFieldNames());
+        Assert.assertArrayEquals(descriptor.getFieldNames(),
+                getFieldNames(ReflectionUtils.getInstanceFields(ChildHolder.class)));
+    }
+
+    private static EntityDescriptor getDescriptor(AccessStrategy accessStrategy, Class type) {
+        return new EntityDescriptorRegistry(new ReflectionAccessorFactory(), accessStrategy,
+                new GeneratedEntityRegistry(EntityDescriptorRegistryTests.class.getClassLoader())).getDescriptor(type);
+    }
+
+    private static List<String> getColumnNames(EntityDescriptor descriptor) {
+        List<String> names = new ArrayList<>();
+        for (ColumnDescriptor column : descriptor.getColumns()) {
+            names.add(column.getColumnName());
+        }
+        return names;
+    }
+
+    private static String[] getFieldNames(java.lang.reflect.Field[] fields) {
+        String[] names = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].getName();
+        }
+        return names;
+    }
+
+    public static class FieldHolder {
+        private static final String CONSTANT = "constant";
+        private int id;
+        private String name;
+        private double amount;
+        private transient String cache;
+    }
+
+    public static class MixedHolder {
+        private int id;
+        private String title;
+        @Column("code")
+        private String internalCode;
+        private String secret;
+        @Ignore
+        private String skipped;
+
+        public String getTitle() {
+            return title;
+        }
+
+        @Ignore
+        public String getSecret() {
+            return secret;
+        }
+    }
+
+    public static class BaseHolder {
+        @Id
+        protected int id;
+        protected long created;
+    }
+
+    public static class ChildHolder extends BaseHolder {
+        private String name;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.Id;
+import net.nimble.annotations.Table;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import net.nimble.sql.SqlDialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EntitySqlTests {
+
+    private static final EntityDescriptorRegistry registry = new EntityDescriptorRegistry(
+            new ReflectionAccessorFactory(), AccessStrategy.SETTER,
+            new GeneratedEntityRegistry(EntitySqlTests.class.getClassLoader()));
+
+    @Test
+    public void buildsCrudSqlOfWritableColumns() {
+        EntitySql sql = getSql(Account.class);
+        Assert.assertEquals("insert into accounts(name,balance) values (?,?)", sql.getInsertSql());
+        Assert.assertEquals("update accounts set name=?,balance=? where id=?", sql.getUpdateSql());
+        Assert.assertEquals("select * from accounts where id=?", sql.getSelectByIdSql());
+        Assert.assertEquals("delete from accounts where id=?", sql.getDeleteByIdSql());
+    }
+
+    @Test
+    public void buildsMultiRowSql() {
+        EntitySql sql = getSql(Account.class);
+        Assert.assertEquals("insert into accounts(name,balance) values (?,?),(?,?),(?,?)", sql.getInsertSql(3));
+        Assert.assertEquals(sql.getInsertSql(), sql.getInsertSql(1));
+        Assert.assertSame(sql.getInsertSql(3), sql.getInsertSql(3));
+        String upsertClause = sql.getUpsertClause(SqlDialect.MYSQL, new String[]{"name"});
+        Assert.assertEquals(sql.getInsertSql(2) + upsertClause, sql.getInsertSql(2, upsertClause));
+        Assert.assertSame(sql.getInsertSql(2, upsertClause), sql.getInsertSql(2, upsertClause));
+        Assert.assertEquals("delete from accounts where id in (?,?,?)", sql.getDeleteByIdsSql(3));
+    }
+
+    @Test
+    public void buildsSelectByKeysSql() {
+        EntitySql sql = getSql(Account.class);
+        Assert.assertEquals("select * from accounts where id in (?)", sql.getSelectByKeysSql(new String[]{"id"}, 1));
+        Assert.assertEquals("select * from accounts where id in (?,?,?)",
+                sql.getSelectByKeysSql(new String[]{"id"}, 3));
+        Assert.assertEquals("select * from accounts where (name,balance) in ((?,?),(?,?))",
+                sql.getSelectByKeysSql(new String[]{"name", "balance"}, 2));
+    }
+
+    @Test
+    public void sqlIsBuiltOncePerEntity() {
+        Assert.assertSame(getSql(Account.class), getSql(Account.class));
+        Assert.assertSame(getSql(Account.class).getInsertSql(), getSql(Account.class).getInsertSql());
+    }
+
+    @Test
+    public void entityWithoutIdHasNoSqlById() {
+        EntitySql sql = getSql(LogRecord.class);
+        Assert.assertEquals("insert into LogRecord(message,log_level) values (?,?)", sql.getInsertSql());
+        Assert.assertNull(sql.getUpdateSql());
+        Assert.assertNull(sql.getSelectByIdSql());
+        Assert.assertNull(sql.getDeleteByIdSql());
+    }
+
+    @Test
+    public void entityWithOnlyGeneratedIdHasNoUpdateSql() {
+        EntitySql sql = getSql(Counter.class);
+        Assert.assertNull(sql.getUpdateSql());
+        Assert.assertEquals("delete from Counter where id=?", sql.getDeleteByIdSql());
+    }
+
+    @Test
+    public void upsertByAssignedId() {
+        EntitySql sql = getSql(Country.class);
+        Assert.assertEquals(" on conflict (code) do update set name=excluded.name",
+                sql.getUpsertClause(SqlDialect.POSTGRES, new String[0]));
+        Assert.assertEquals(" on duplicate key update name=values(name)",
+                sql.getUpsertClause(SqlDialect.MYSQL, new String[0]));
+        Assert.assertSame(sql.getUpsertClause(SqlDialect.MARIADB, new String[0]),
+                sql.getUpsertClause(SqlDialect.MARIADB, new String[0]));
+    }
+
+    @Test
+    public void upsertByConflictColumns() {
+        EntitySql sql = getSql(Account.class);
+        Assert.assertEquals(" on conflict (name) do update set balance=excluded.balance",
+                sql.getUpsertClause(SqlDialect.POSTGRES, new String[]{"name"}));
+        Assert.assertEquals(" on duplicate key update balance=values(balance)",
+                sql.getUpsertClause(SqlDialect.MYSQL, new String[]{"NAME"}));
+    }
+
+    @Test
+    public void upsertWithoutColumnsToUpdate() {
+        EntitySql sql = getSql(Account.class);
+        String[] allColumns = {"name", "balance"};
+        Assert.assertEquals(" on conflict (name,balance) do nothing",
+                sql.getUpsertClause(SqlDialect.POSTGRES, allColumns));
+        Assert.assertEquals(" on duplicate key update name=name", sql.getUpsertClause(SqlDialect.MYSQL, allColumns));
+    }
+
+    @Test(expected = NimbleException.class)
+    public void upsertByGeneratedIdIsRejected() {
+        getSql(Account.class).getUpsertClause(SqlDialect.POSTGRES, new String[0]);
+    }
+
+    @Test(expected = NimbleException.class)
+    public void generatedIdCantBeConflictColumn() {
+        getSql(Account.class).getUpsertClause(SqlDialect.MYSQL, new String[]{"id"});
+    }
+
+    @Test(expected = NimbleException.class)
+    public void upsertWithoutIdNeedsConflictColumns() {
+        getSql(LogRecord.class).getUpsertClause(SqlDialect.POSTGRES, new String[0]);
+    }
+
+    static EntitySql getSql(Class type) {
+        return registry.getDescriptor(type).getSql();
+    }
+
+    @Table("accounts")
+    public static class Account {
+        private int id;
+        private String name;
+        private double balance;
+
+        @Id
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getBalance() {
+            return balance;
+        }
+
+        public void setBalance(double balance) {
+            this.balance = balance;
+        }
+    }
+
+    public static class Counter {
+        private long id;
+
+        @Id
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+    }
+
+    public static class Country {
+        @Id(generate = false)
+        private String code;
+        private String name;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class LogRecord {
+        private String message;
+        @Column("log_level")
+        private int level;
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.PeopleFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+@SuppressWarnings("deprecation")
+public class MetaUtilsTests {
+
+    @Test
+    public void columnMapHasWritableColumns() {
+        Person person = PeopleFactory.createTyrion();
+        person.setId(3);
+        Map<String, Object> columns = MetaUtils.getColumnMap(person);
+        Assert.assertEquals("Tyrion", columns.get("first_name"));
+        Assert.assertEquals("Lannister", columns.get("last_name"));
+        Assert.assertFalse(columns.containsKey("id"));
+    }
+
+    @Test
+    public void appliesAndReadsId() {
+        Person person = PeopleFactory.createTyrion();
+        MetaUtils.applyId(7L, person, new ConverterManagerImpl());
+        Assert.assertEquals(7, person.getId());
+        Assert.assertEquals(Collections.<String, Object>singletonMap("id", 7), MetaUtils.getIdColumnMap(person));
+    }
+
+    @Test
+    public void findsIdFieldAndColumn() {
+        Assert.assertEquals("id", MetaUtils.getIdField(Person.class).getName());
+        Assert.assertEquals("id", MetaUtils.geIdColumnName(Person.class));
+        Assert.assertNull(MetaUtils.geIdColumnName(EntitySqlTests.LogRecord.class));
+    }
+}
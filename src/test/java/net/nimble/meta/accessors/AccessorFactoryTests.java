@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.accessors;
+
+import net.nimble.exceptions.NimbleException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class AccessorFactoryTests {
+
+    private final AccessorFactory factory;
+
+    public AccessorFactoryTests(AccessorFactory factory) {
+        this.factory = factory;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> factories() {
+        return Arrays.asList(new Object[]{new ReflectionAccessorFactory()},
+                new Object[]{new MethodHandleAccessorFactory()});
+    }
+
+    @Test
+    public void readsAndWritesThroughMethods() throws Exception {
+        Holder holder = new Holder();
+        factory.createSetter(Holder.class.getMethod("setCount", int.class)).set(holder, 5);
+        factory.createSetter(Holder.class.getMethod("setName", String.class)).set(holder, "Tyrion");
+
+        Assert.assertEquals(5, factory.createGetter(Holder.class.getMethod("getCount")).get(holder));
+        Assert.assertEquals("Tyrion", factory.createGetter(Holder.class.getMethod("getName")).get(holder));
+    }
+
+    @Test
+    public void readsAndWritesPrivateFields() throws Exception {
+        Holder holder = new Holder();
+        factory.createSetter(Holder.class.getDeclaredField("count")).set(holder, 7);
+        factory.createSetter(Holder.class.getDeclaredField("name")).set(holder, "Jaime");
+
+        Assert.assertEquals(7, factory.createGetter(Holder.class.getDeclaredField("count")).get(holder));
+        Assert.assertEquals("Jaime", factory.createGetter(Holder.class.getDeclaredField("name")).get(holder));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsValueOfWrongType() throws Exception {
+        factory.createSetter(Holder.class.getMethod("setCount", int.class)).set(new Holder(), "five");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullForPrimitive() throws Exception {
+        factory.createSetter(Holder.class.getDeclaredField("count")).set(new Holder(), null);
+    }
+
+    @Test
+    public void widensPrimitiveValues() throws Exception {
+        Holder holder = new Holder();
+        factory.createSetter(Holder.class.getMethod("setTotal", long.class)).set(holder, 5);
+        Assert.assertEquals(5L, factory.createGetter(Holder.class.getMethod("getTotal")).get(holder));
+        factory.createSetter(Holder.class.getDeclaredField("total")).set(holder, (short) 6);
+        Assert.assertEquals(6L, holder.getTotal());
+        factory.createSetter(Holder.class.getDeclaredField("count")).set(holder, 'a');
+        Assert.assertEquals(97, holder.getCount());
+        factory.createSetter(Holder.class.getDeclaredField("ratio")).set(holder, 3L);
+        Assert.assertEquals(3.0, holder.ratio, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNarrowingOfPrimitive() throws Exception {
+        factory.createSetter(Holder.class.getMethod("setCount", int.class)).set(new Holder(), 5L);
+    }
+
+    @Test
+    public void wrapsExceptionsOfAccessorMethods() throws Exception {
+        try {
+            factory.createGetter(Holder.class.getMethod("getBroken")).get(new Holder());
+            Assert.fail();
+        } catch (NimbleException e) {
+            Assert.assertNotNull(e.getCause());
+        }
+    }
+
+    public static class Holder {
+        private int count;
+        private String name;
+        private long total;
+        private double ratio;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
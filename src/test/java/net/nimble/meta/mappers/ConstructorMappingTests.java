@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers;
+
+import net.nimble.annotations.Column;
+import net.nimble.annotations.MappingConstructor;
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.tests.utils.RowSetFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.beans.ConstructorProperties;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class ConstructorMappingTests {
+
+    private static final String[] COLUMNS = {"id", "first_name", "age"};
+    private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR, Types.INTEGER};
+
+    private MappingPlanCache planCache;
+
+    @Before
+    public void init() {
+        planCache = new MappingPlanCache(new ConverterManagerImpl(), new ReflectionAccessorFactory());
+    }
+
+    @Test
+    public void bindsParametersByColumnAnnotation() throws SQLException {
+        AnnotatedPerson person = (AnnotatedPerson) mapRow(AnnotatedPerson.class, 1, "Tyrion", 39);
+        Assert.assertEquals(1, person.id);
+        Assert.assertEquals("Tyrion", person.firstName);
+        Assert.assertEquals(39, person.age);
+    }
+
+    @Test
+    public void bindsParametersByConstructorProperties() throws SQLException {
+        PropertiesPerson person = (PropertiesPerson) mapRow(PropertiesPerson.class, 2, "Jaime", 43);
+        Assert.assertEquals(2, person.id);
+        Assert.assertEquals("Jaime", person.firstName);
+        Assert.assertEquals(43, person.getAge());
+    }
+
+    @Test
+    public void bindsParametersByPositionWhenConstructorTakesAllColumns() throws SQLException {
+        PositionalPerson person = (PositionalPerson) mapRow(PositionalPerson.class, 3, "Cercei", 43);
+        Assert.assertEquals(3, person.id);
+        Assert.assertEquals("Cercei", person.firstName);
+        Assert.assertEquals(43, person.age);
+    }
+
+    @Test
+    public void setsColumnsNotTakenByConstructor() throws SQLException {
+        PropertiesPerson person = (PropertiesPerson) mapRow(PropertiesPerson.class, 4, "Arya", 11);
+        Assert.assertEquals(11, person.getAge());
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES);
+        Assert.assertTrue(planCache.getPlan(PropertiesPerson.class, resultSet.getMetaData()).isConstructorMapping());
+    }
+
+    @Test(expected = NimbleException.class)
+    public void rejectsNullForPrimitiveParameter() throws SQLException {
+        mapRow(AnnotatedPerson.class, 5, "Sansa", null);
+    }
+
+    @Test(expected = NimbleException.class)
+    public void rejectsSeveralMappingConstructors() throws SQLException {
+        mapRow(AmbiguousPerson.class, 6, "Bran", 10);
+    }
+
+    private Object mapRow(Class type, Object... values) throws SQLException {
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES, values);
+        Assert.assertTrue(resultSet.next());
+        return planCache.getPlan(type, resultSet.getMetaData()).create(resultSet);
+    }
+
+    public static class AnnotatedPerson {
+        private final int id;
+        private final String firstName;
+        private final int age;
+
+        @MappingConstructor
+        public AnnotatedPerson(@Column("age") int age, @Column("first_name") String firstName,
+                               @Column("id") int id) {
+            this.id = id;
+            this.firstName = firstName;
+            this.age = age;
+        }
+    }
+
+    public static class PropertiesPerson {
+        private final int id;
+        private final String firstName;
+        private int age;
+
+        @ConstructorProperties({"first_name", "id"})
+        public PropertiesPerson(String firstName, int id) {
+            this.id = id;
+            this.firstName = firstName;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+
+    public static class PositionalPerson {
+        private final int id;
+        private final String firstName;
+        private final int age;
+
+        public PositionalPerson(int id, String firstName, int age) {
+            this.id = id;
+            this.firstName = firstName;
+            this.age = age;
+        }
+    }
+
+    public static class AmbiguousPerson {
+        @MappingConstructor
+        public AmbiguousPerson(int id) {
+        }
+
+        @MappingConstructor
+        public AmbiguousPerson(int id, String firstName) {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.conversion.FromDbConverter;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.tests.entities.Gender;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.RowSetFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class MappingPlanTests {
+
+    private static final String[] COLUMNS = {"id", "first_name", "gender", "weight"};
+    private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE};
+
+    private ConverterManagerImpl converterManager;
+    private MappingPlanCache planCache;
+
+    @Before
+    public void init() {
+        converterManager = new ConverterManagerImpl();
+        planCache = new MappingPlanCache(converterManager, new ReflectionAccessorFactory());
+    }
+
+    @Test
+    public void mapsColumnsToSetters() throws SQLException {
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES, new Object[]{7, "Tyrion", "MALE", 45});
+        MappingPlan plan = planCache.getPlan(Person.class, resultSet.getMetaData());
+
+        Assert.assertTrue(resultSet.next());
+        Person person = (Person) plan.create(resultSet);
+        Assert.assertEquals(7, person.getId());
+        Assert.assertEquals("Tyrion", person.getFirstName());
+        Assert.assertEquals(Gender.MALE, person.getGender());
+        Assert.assertEquals(45.0, person.getWeight(), 0);
+    }
+
+    @Test
+    public void samePlanForSameColumns() throws SQLException {
+        ResultSet first = RowSetFactory.create(COLUMNS, TYPES);
+        ResultSet second = RowSetFactory.create(COLUMNS, TYPES);
+        Assert.assertSame(planCache.getPlan(Person.class, first.getMetaData()),
+                planCache.getPlan(Person.class, second.getMetaData()));
+    }
+
+    @Test
+    public void appliesConverterAddedAfterPlanIsBuilt() throws SQLException {
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES,
+                new Object[]{1, "Tyrion", "MALE", 45}, new Object[]{2, "Jaime", "MALE", 90});
+        MappingPlan plan = planCache.getPlan(Person.class, resultSet.getMetaData());
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals("Tyrion", ((Person) plan.create(resultSet)).getFirstName());
+
+        converterManager.addFromDbConverter(new UpperCaseConverter());
+        Assert.assertTrue(resultSet.next());
+        Person person = (Person) plan.create(resultSet);
+        Assert.assertEquals("JAIME", person.getFirstName());
+        Assert.assertEquals(Gender.MALE, person.getGender());
+    }
+
+    private static class UpperCaseConverter implements FromDbConverter<String, String> {
+        @Override
+        public String convert(String value) {
+            return value.toUpperCase();
+        }
+    }
+}
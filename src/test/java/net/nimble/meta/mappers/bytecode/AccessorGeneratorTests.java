@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import net.nimble.meta.accessors.MethodHandleAccessorFactory;
+import net.nimble.meta.accessors.PropertyGetter;
+import net.nimble.meta.accessors.PropertySetter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+public class AccessorGeneratorTests {
+
+    private final AccessorGenerator generator = new AccessorGenerator();
+
+    @Test
+    public void generatesGetterAndSetter() throws Exception {
+        Field field = Point.class.getDeclaredField("x");
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        PropertyGetter getter = generator.createGetter(field, lookup.unreflectGetter(field)
+                .asType(MethodType.methodType(Object.class, Object.class)));
+        PropertySetter setter = generator.createSetter(field, lookup.unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+
+        Point point = new Point();
+        setter.set(point, 4);
+        Assert.assertEquals(4, point.x);
+        Assert.assertEquals(4, getter.get(point));
+        Assert.assertTrue(getter instanceof GeneratedAccessor);
+        Assert.assertNotSame(getter.getClass().getClassLoader(), setter.getClass().getClassLoader());
+    }
+
+    @Test
+    public void methodHandleFactoryUsesGeneratedAccessors() throws Exception {
+        MethodHandleAccessorFactory factory = new MethodHandleAccessorFactory();
+        Method getter = Point.class.getMethod("getX");
+        Assert.assertTrue(factory.createGetter(getter) instanceof GeneratedAccessor);
+        Assert.assertTrue(factory.createSetter(Point.class.getDeclaredField("x")) instanceof GeneratedAccessor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsHandleOfOtherType() throws Exception {
+        Method getter = Point.class.getMethod("getX");
+        MethodHandle handle = MethodHandles.lookup().unreflect(getter);
+        generator.createGetter(getter, handle);
+    }
+
+    public static class Point {
+        private int x;
+
+        public int getX() {
+            return x;
+        }
+    }
+}
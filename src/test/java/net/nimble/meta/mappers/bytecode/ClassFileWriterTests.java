@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassFileWriterTests {
+
+    @Test
+    public void acceptsMethodOfMaximumSize() {
+        ClassFileWriter writer = new ClassFileWriter();
+        writer.addMethod(ClassFileWriter.ACC_PUBLIC, "run", "()V", codeOfLength(0xFFFF));
+        Assert.assertTrue(writer.toByteArray(ClassFileWriter.ACC_PUBLIC, "Test", "java/lang/Object",
+                new String[0]).length > 0xFFFF);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsMethodLargerThanClassFileLimit() {
+        new ClassFileWriter().addMethod(ClassFileWriter.ACC_PUBLIC, "run", "()V", codeOfLength(0x10000));
+    }
+
+    private static ClassFileWriter.Code codeOfLength(int length) {
+        ClassFileWriter.Code code = new ClassFileWriter.Code(1, 1);
+        for (int i = 0; i < length; i++) {
+            code.op(ClassFileWriter.Code.RETURN);
+        }
+        return code;
+    }
+}
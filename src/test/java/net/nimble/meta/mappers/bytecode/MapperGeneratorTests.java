@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.meta.mappers.bytecode;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.conversion.FromDbConverter;
+import net.nimble.exceptions.NimbleException;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.mappers.BeanMapper;
+import net.nimble.meta.mappers.MappingPlan;
+import net.nimble.meta.mappers.MappingPlanCache;
+import net.nimble.meta.mappers.ObjectMapper;
+import net.nimble.tests.utils.RowSetFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class MapperGeneratorTests {
+
+    private static final String[] COLUMNS = {"id", "name", "weight", "active"};
+    private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR, Types.DOUBLE, Types.BOOLEAN};
+
+    private ConverterManagerImpl converterManager;
+    private MappingPlanCache planCache;
+    private MapperGenerator generator;
+
+    @Before
+    public void init() {
+        converterManager = new ConverterManagerImpl();
+        planCache = new MappingPlanCache(converterManager, new ReflectionAccessorFactory());
+        generator = new MapperGenerator();
+    }
+
+    @Test
+    public void generatedMapperMatchesBeanMapper() throws SQLException {
+        Object[][] rows = {{1, "Tyrion", 45.99, true}, {2, null, 94.5, false}};
+        Item[] reflective = mapAll(new BeanMapper(Item.class, planCache), rows);
+        Item[] generated = mapAll(new BeanMapper(Item.class, planCache, generator), rows);
+
+        for (int i = 0; i < rows.length; i++) {
+            Assert.assertEquals(reflective[i].getId(), generated[i].getId());
+            Assert.assertEquals(reflective[i].getName(), generated[i].getName());
+            Assert.assertEquals(reflective[i].getWeight(), generated[i].getWeight(), 0);
+            Assert.assertEquals(reflective[i].isActive(), generated[i].isActive());
+        }
+        Assert.assertEquals(2, generated[1].getId());
+        Assert.assertNull(generated[1].getName());
+    }
+
+    @Test
+    public void generatesClassForPublicEntity() throws SQLException {
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES);
+        ObjectMapper mapper = generator.getMapper(planCache.getPlan(Item.class, resultSet.getMetaData()));
+        Assert.assertTrue(mapper instanceof GeneratedMapper);
+    }
+
+    @Test
+    public void nullInPrimitiveColumnFailsAsInReflectiveMapping() throws SQLException {
+        Object[][] rows = {{null, "Tyrion", 45.99, true}};
+        assertFails(new BeanMapper(Item.class, planCache), rows);
+        assertFails(new BeanMapper(Item.class, planCache, generator), rows);
+    }
+
+    @Test
+    public void convertersApplyToPrimitiveProperties() throws SQLException {
+        converterManager.addFromDbConverter(new OffsetConverter());
+        Object[][] rows = {{1, "Tyrion", 45.99, true}};
+        Assert.assertEquals(1001, mapAll(new BeanMapper(Item.class, planCache), rows)[0].getId());
+        Assert.assertEquals(1001, mapAll(new BeanMapper(Item.class, planCache, generator), rows)[0].getId());
+    }
+
+    @Test
+    public void fallsBackWhenMapperCantBeLinked() throws Exception {
+        URL[] urls = {
+                MapperGeneratorTests.class.getProtectionDomain().getCodeSource().getLocation(),
+                MapperGenerator.class.getProtectionDomain().getCodeSource().getLocation()
+        };
+        try (URLClassLoader loader = new URLClassLoader(urls, null)) {
+            Class<?> foreignItem = loader.loadClass(Item.class.getName());
+            ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES, new Object[]{3, "Jaime", 90.0, true});
+            MappingPlan plan = planCache.getPlan(foreignItem, resultSet.getMetaData());
+            Assert.assertNull(generator.getMapper(plan));
+            Assert.assertNull(generator.getMapper(plan));
+
+            Assert.assertTrue(resultSet.next());
+            Object item = new BeanMapper(foreignItem, planCache, generator).create(resultSet);
+            Assert.assertSame(foreignItem, item.getClass());
+        }
+    }
+
+    private Item[] mapAll(ObjectMapper mapper, Object[][] rows) throws SQLException {
+        ResultSet resultSet = RowSetFactory.create(COLUMNS, TYPES, rows);
+        Item[] items = new Item[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            Assert.assertTrue(resultSet.next());
+            items[i] = (Item) mapper.create(resultSet);
+        }
+        return items;
+    }
+
+    private void assertFails(ObjectMapper mapper, Object[][] rows) throws SQLException {
+        try {
+            mapAll(mapper, rows);
+            Assert.fail("NULL in a primitive column must not be mapped");
+        } catch (NimbleException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("id"));
+        }
+    }
+
+    public static class OffsetConverter implements FromDbConverter<Integer, Integer> {
+        @Override
+        public Integer convert(Integer value) {
+            return value + 1000;
+        }
+    }
+
+    public static class Item {
+        private int id;
+        private String name;
+        private double weight;
+        private boolean active;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.processor;
+
+import net.nimble.meta.ColumnDescriptor;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.EntityDescriptorRegistry;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntity;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class EntityProcessorTests {
+
+    private static final String PERSON_SOURCE = "package test;\n" +
+            "import net.nimble.annotations.*;\n" +
+            "@Table(\"people\")\n" +
+            "public class Person {\n" +
+            "    @Id(generate = false)\n" +
+            "    private long personId;\n" +
+            "    @Column(\"first_name\")\n" +
+            "    private String firstName;\n" +
+            "    private int age;\n" +
+            "    private String note;\n" +
+            "    public long getPersonId() { return personId; }\n" +
+            "    public void setPersonId(long personId) { this.personId = personId; }\n" +
+            "    public String getFirstName() { return firstName; }\n" +
+            "    public void setFirstName(String firstName) { this.firstName = firstName; }\n" +
+            "    public int getAge() { return age; }\n" +
+            "    public void setAge(int age) { this.age = age; }\n" +
+            "    @Ignore\n" +
+            "    public String getNote() { return note; }\n" +
+            "    public void setNote(String note) { this.note = note; }\n" +
+            "    @Column(\"full_name\")\n" +
+            "    public String getFullName() { return firstName + \" \" + age; }\n" +
+            "}\n";
+    private static final String CITY_SOURCE = "package test;\n" +
+            "import net.nimble.annotations.*;\n" +
+            "@Table\n" +
+            "public class City {\n" +
+            "    private int id;\n" +
+            "    private String name;\n" +
+            "    public int getId() { return id; }\n" +
+            "    public void setId(int id) { this.id = id; }\n" +
+            "    public String getName() { return name; }\n" +
+            "    public void setName(String name) { this.name = name; }\n" +
+            "}\n";
+    private static final String AUDITED_SOURCE = "package test;\n" +
+            "public class Audited {\n" +
+            "    private int id;\n" +
+            "    protected long created;\n" +
+            "    public int getId() { return id; }\n" +
+            "    public void setId(int id) { this.id = id; }\n" +
+            "}\n";
+    private static final String EMPLOYEE_SOURCE = "package test;\n" +
+            "import net.nimble.annotations.*;\n" +
+            "@Table(\"employees\")\n" +
+            "public class Employee extends Audited {\n" +
+            "    private String name;\n" +
+            "    public String getName() { return name; }\n" +
+            "    public void setName(String name) { this.name = name; }\n" +
+            "    public long getCreated() { return created; }\n" +
+            "    public void setCreated(long created) { this.created = created; }\n" +
+            "}\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outputDir;
+
+    @Before
+    public void init() throws IOException {
+        outputDir = temporaryFolder.newFolder("classes");
+    }
+
+    @Test
+    public void registersGeneratedClasses() throws Exception {
+        compile("test.Person", PERSON_SOURCE);
+        Assert.assertEquals(Collections.singletonList("test.Person_NbEntity"), readServiceFile());
+
+        try (URLClassLoader loader = createLoader()) {
+            Class<?> type = loader.loadClass("test.Person");
+            Assert.assertNotNull(new GeneratedEntityRegistry(loader).getEntity(type));
+        }
+    }
+
+    @Test
+    public void keepsEntriesOfEarlierCompilation() throws Exception {
+        compile("test.Person", PERSON_SOURCE);
+        compile("test.City", CITY_SOURCE);
+        Assert.assertEquals(Arrays.asList("test.City_NbEntity", "test.Person_NbEntity"), readServiceFile());
+    }
+
+    @Test
+    public void dropsEntriesOfRemovedClasses() throws Exception {
+        compile("test.Person", PERSON_SOURCE);
+        writeServiceFile("test.Person_NbEntity\ntest.Removed_NbEntity\n");
+        compile("test.City", CITY_SOURCE);
+        Assert.assertEquals(Arrays.asList("test.City_NbEntity", "test.Person_NbEntity"), readServiceFile());
+    }
+
+    @Test
+    public void registrySkipsBrokenEntries() throws Exception {
+        compile("test.Person", PERSON_SOURCE);
+        writeServiceFile("test.Removed_NbEntity\ntest.Person_NbEntity\n");
+
+        try (URLClassLoader loader = createLoader()) {
+            Class<?> type = loader.loadClass("test.Person");
+            Assert.assertNotNull(new GeneratedEntityRegistry(loader).getEntity(type));
+        }
+    }
+
+    @Test
+    public void generatedDescriptorMatchesReflectiveOne() throws Exception {
+        compile("test.Person", PERSON_SOURCE);
+        compile("test.City", CITY_SOURCE);
+        compile("test.Audited", AUDITED_SOURCE, "test.Employee", EMPLOYEE_SOURCE);
+
+        try (URLClassLoader loader = createLoader()) {
+            ReflectionAccessorFactory accessorFactory = new ReflectionAccessorFactory();
+            GeneratedEntityRegistry generatedRegistry = new GeneratedEntityRegistry(loader);
+            EntityDescriptorRegistry reflectiveRegistry = new EntityDescriptorRegistry(accessorFactory,
+                    AccessStrategy.SETTER, new GeneratedEntityRegistry(EntityProcessorTests.class.getClassLoader()));
+            for (String className : Arrays.asList("test.Person", "test.City", "test.Employee")) {
+                Class<?> type = loader.loadClass(className);
+                GeneratedEntity generatedEntity = generatedRegistry.getEntity(type);
+                Assert.assertNotNull(generatedEntity);
+                assertSameDescriptor(reflectiveRegistry.getDescriptor(type),
+                        generatedEntity.createDescriptor(accessorFactory));
+            }
+        }
+    }
+
+    private static void assertSameDescriptor(EntityDescriptor expected, EntityDescriptor actual) {
+        Assert.assertEquals(expected.getTableName(), actual.getTableName());
+        List<ColumnDescriptor> expectedColumns = expected.getColumns();
+        List<ColumnDescriptor> actualColumns = actual.getColumns();
+        Assert.assertEquals(expectedColumns.size(), actualColumns.size());
+        for (int i = 0; i < expectedColumns.size(); i++) {
+            assertSameColumn(expectedColumns.get(i), actualColumns.get(i));
+        }
+        Assert.assertEquals(expected.getWritableColumns().size(), actual.getWritableColumns().size());
+        assertSameColumn(expected.getIdColumn(), actual.getIdColumn());
+        Assert.assertEquals(expected.isGeneratedId(), actual.isGeneratedId());
+        Assert.assertArrayEquals(expected.getFieldNames(), actual.getFieldNames());
+    }
+
+    private static void assertSameColumn(ColumnDescriptor expected, ColumnDescriptor actual) {
+        Assert.assertEquals(expected.getName(), actual.getName());
+        Assert.assertEquals(expected.getColumnName(), actual.getColumnName());
+        Assert.assertEquals(expected.getType(), actual.getType());
+        Assert.assertEquals(expected.isId(), actual.isId());
+        Assert.assertEquals(expected.isGenerated(), actual.isGenerated());
+        Assert.assertEquals(expected.getSetter() == null, actual.getSetter() == null);
+    }
+
+    /**
+     * @param sources Pairs of class names and sources
+     */
+    private void compile(String... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = getLocation(EntityProcessor.class) + File.pathSeparator + outputDir.getPath();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<String> options = Arrays.asList("-classpath", classPath, "-d", outputDir.getPath(),
+                "-processor", EntityProcessor.class.getName());
+        List<SourceFile> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i += 2) {
+            files.add(new SourceFile(sources[i], sources[i + 1]));
+        }
+        boolean success = compiler.getTask(null, null, diagnostics, options, null, files).call();
+        Assert.assertTrue(diagnostics.getDiagnostics().toString(), success);
+    }
+
+    private URLClassLoader createLoader() throws IOException {
+        return new URLClassLoader(new URL[]{outputDir.toURI().toURL()}, EntityProcessorTests.class.getClassLoader());
+    }
+
+    private List<String> readServiceFile() throws IOException {
+        return Files.readAllLines(new File(outputDir, EntityProcessor.SERVICE_FILE).toPath(), StandardCharsets.UTF_8);
+    }
+
+    private void writeServiceFile(String content) throws IOException {
+        Files.write(new File(outputDir, EntityProcessor.SERVICE_FILE).toPath(),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String getLocation(Class type) {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
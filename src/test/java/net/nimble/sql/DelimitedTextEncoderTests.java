@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.exceptions.NimbleException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.UUID;
+
+public class DelimitedTextEncoderTests {
+
+    @Test
+    public void separatesValuesAndRows() {
+        DelimitedTextEncoder encoder = new DelimitedTextEncoder(SqlDialect.MYSQL, 4);
+        encoder.writeValue(1);
+        encoder.writeValue(null);
+        encoder.writeValue("a");
+        encoder.endRow();
+        encoder.writeValue(-25L);
+        encoder.endRow();
+        Assert.assertEquals("1\t\\N\ta\n-25\n", toString(encoder));
+
+        encoder.reset();
+        encoder.writeValue(Long.MIN_VALUE);
+        encoder.endRow();
+        Assert.assertEquals(Long.MIN_VALUE + "\n", toString(encoder));
+    }
+
+    @Test
+    public void escapesControlChars() {
+        String text = "back\\slash\ttab\nnew\rreturn";
+        String expected = "back\\\\slash\\ttab\\nnew\\rreturn\n";
+        Assert.assertEquals(expected, encode(SqlDialect.MYSQL, text));
+        Assert.assertEquals(expected, encode(SqlDialect.POSTGRES, text));
+    }
+
+    @Test
+    public void escapesNulForMysql() {
+        Assert.assertEquals("a\\0b\n", encode(SqlDialect.MYSQL, "a\0b"));
+    }
+
+    @Test(expected = NimbleException.class)
+    public void rejectsNulForPostgres() {
+        encode(SqlDialect.POSTGRES, "a\0b");
+    }
+
+    @Test
+    public void encodesUtf8WithSurrogatePairs() {
+        String text = "\u00e9\u4e2d\ud83d\ude00";
+        DelimitedTextEncoder encoder = new DelimitedTextEncoder(SqlDialect.POSTGRES, 1);
+        encoder.writeValue(text);
+        Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), toBytes(encoder));
+        Assert.assertEquals(9, encoder.size());
+    }
+
+    @Test
+    public void replacesUnpairedSurrogates() {
+        Assert.assertEquals("a?b?\n", encode(SqlDialect.MYSQL, "a\ud83db\ude00"));
+    }
+
+    @Test
+    public void encodesBooleans() {
+        Assert.assertEquals("1\t0\n", encode(SqlDialect.MYSQL, true, false));
+        Assert.assertEquals("t\tf\n", encode(SqlDialect.POSTGRES, true, false));
+    }
+
+    @Test
+    public void encodesByteaAsHex() {
+        byte[] value = {0, 1, (byte) 0xab, (byte) 0xff, '\\'};
+        Assert.assertEquals("\\\\x0001abff5c\n", encode(SqlDialect.POSTGRES, (Object) value));
+    }
+
+    @Test
+    public void escapesBinaryForMysql() {
+        DelimitedTextEncoder encoder = new DelimitedTextEncoder(SqlDialect.MYSQL, 16);
+        encoder.writeValue(new byte[]{'a', 0, '\t', '\n', '\r', '\\', (byte) 0xff});
+        Assert.assertArrayEquals(new byte[]{'a', '\\', '0', '\\', 't', '\\', 'n', '\\', 'r', '\\', '\\', (byte) 0xff},
+                toBytes(encoder));
+    }
+
+    @Test
+    public void encodesTemporalValues() {
+        Timestamp timestamp = Timestamp.valueOf("2018-03-04 05:06:07.089");
+        Assert.assertEquals("2018-03-04 05:06:07.089\t2018-03-04 05:06:07\t0987-11-02\t23:59:01\n",
+                encode(SqlDialect.POSTGRES, timestamp, Timestamp.valueOf("2018-03-04 05:06:07"),
+                        java.sql.Date.valueOf("0987-11-02"), Time.valueOf("23:59:01")));
+        Assert.assertEquals("2018-03-04 05:06:07.000000001\n",
+                encode(SqlDialect.MYSQL, Timestamp.valueOf("2018-03-04 05:06:07.000000001")));
+    }
+
+    @Test
+    public void encodesDecimalsInPlainNotation() {
+        Assert.assertEquals("10000000000\t0.00000012\t-1.50\n", encode(SqlDialect.MYSQL,
+                new BigDecimal("1E+10"), new BigDecimal("1.2E-7"), new BigDecimal("-1.50")));
+    }
+
+    @Test
+    public void encodesUuids() {
+        UUID uuid = UUID.fromString("0123abcd-0000-4f00-80a0-00000000000f");
+        Assert.assertEquals(uuid + "\n", encode(SqlDialect.POSTGRES, uuid));
+        UUID random = UUID.randomUUID();
+        Assert.assertEquals(random + "\n", encode(SqlDialect.POSTGRES, random));
+    }
+
+    private static String encode(SqlDialect dialect, Object... values) {
+        DelimitedTextEncoder encoder = new DelimitedTextEncoder(dialect, 8);
+        for (Object value : values) {
+            encoder.writeValue(value);
+        }
+        encoder.endRow();
+        return toString(encoder);
+    }
+
+    private static String toString(DelimitedTextEncoder encoder) {
+        return new String(toBytes(encoder), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toBytes(DelimitedTextEncoder encoder) {
+        return Arrays.copyOf(encoder.getBuffer(), encoder.size());
+    }
+}
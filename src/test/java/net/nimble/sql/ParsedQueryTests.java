@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.exceptions.NimbleException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ParsedQueryTests {
+
+    @Test
+    public void splitsQueryIntoSegmentsAndParams() {
+        ParsedQuery query = QueryProcessor.parse("select * from person where first_name=:name or last_name=:name and id>:id");
+        Assert.assertArrayEquals(new String[]{"name", "name", "id"}, query.getParamNames());
+        Assert.assertArrayEquals(new String[]{"name", "id"}, query.getSlotNames());
+        Assert.assertEquals(0, query.getSlot(0));
+        Assert.assertEquals(0, query.getSlot(1));
+        Assert.assertEquals(1, query.getSlot(2));
+        Assert.assertEquals(1, query.findSlot("id"));
+        Assert.assertEquals(-1, query.findSlot("gender"));
+        Assert.assertEquals("select * from person where first_name=? or last_name=? and id>?", query.getSql());
+    }
+
+    @Test
+    public void queryWithoutParams() {
+        ParsedQuery query = QueryProcessor.parse("select * from person");
+        Assert.assertEquals(0, query.getParamCount());
+        Assert.assertEquals("select * from person", query.getSql());
+        Assert.assertSame(query.getSql(), query.expand(new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void scalarValuesReuseCachedSql() {
+        ParsedQuery query = QueryProcessor.parse("select :a, :b");
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", 1);
+        values.put("b", "text");
+        Assert.assertSame(query.getSql(), query.expand(values));
+        Assert.assertSame(query.getSql(), query.expand(new Object[]{1, "text"}, ListExpansion.EXACT));
+    }
+
+    @Test
+    public void expandsArraysAndCollections() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (:a) and b in (:b) and c=:c");
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", new int[]{1, 2, 3});
+        values.put("b", Arrays.asList("x", "y"));
+        values.put("c", 1);
+        String expected = "select * from t where a in (?,?,?) and b in (?,?) and c=?";
+        Assert.assertEquals(expected, query.expand(values));
+        Assert.assertEquals(expected, query.expand(new Object[]{new int[]{1, 2, 3}, Arrays.asList("x", "y"), 1},
+                ListExpansion.EXACT));
+    }
+
+    @Test
+    public void bucketsRoundUpMarkCount() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (:a)");
+        Assert.assertEquals("select * from t where a in (?)", query.expand(values(new int[]{1}),
+                ListExpansion.BUCKETS));
+        Assert.assertEquals("select * from t where a in (?,?)", query.expand(values(new int[]{1, 2}),
+                ListExpansion.BUCKETS));
+        Assert.assertEquals("select * from t where a in (?,?,?,?)", query.expand(values(new int[]{1, 2, 3}),
+                ListExpansion.BUCKETS));
+        Assert.assertEquals("select * from t where a in (?,?,?,?,?,?,?,?)",
+                query.expand(values(Arrays.asList(1, 2, 3, 4, 5)), ListExpansion.BUCKETS));
+    }
+
+    @Test(expected = NimbleException.class)
+    public void bucketsRejectEmptyList() {
+        QueryProcessor.parse("select * from t where a in (:a)").expand(values(new int[0]), ListExpansion.BUCKETS);
+    }
+
+    @Test
+    public void arrayRewritesInLists() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (:a) and b NOT IN ( :a ) and c = :c",
+                SqlDialect.POSTGRES);
+        Map<String, Object> values = values(new int[]{1, 2, 3});
+        values.put("c", 1);
+        Assert.assertEquals("select * from t where a = ANY(?) and b <> ALL(? ) and c = ?",
+                query.expand(values, ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.ARRAY, query.getListExpansion(0, ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.ARRAY, query.getListExpansion(1, ListExpansion.ARRAY));
+    }
+
+    @Test
+    public void arrayOutsideInListExpandsItems() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (0, :a) or b in (:a)",
+                SqlDialect.POSTGRES);
+        Assert.assertEquals("select * from t where a in (0, ?,?) or b = ANY(?)",
+                query.expand(values(Arrays.asList(1, 2)), ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.EXACT, query.getListExpansion(0, ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.ARRAY, query.getListExpansion(1, ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.BUCKETS, query.getListExpansion(0, ListExpansion.BUCKETS));
+    }
+
+    @Test
+    public void arrayBindsArgumentOfAny() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a = any(:a) and b <> ALL ( :a )",
+                SqlDialect.POSTGRES);
+        Assert.assertSame(query.getSql(), query.expand(values(new int[]{1, 2}), ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.ARRAY, query.getListExpansion(0, ListExpansion.ARRAY));
+        Assert.assertEquals(ListExpansion.ARRAY, query.getListExpansion(1, ListExpansion.ARRAY));
+        Assert.assertEquals("select * from t where a = any(?,?) and b <> ALL ( ?,? )",
+                query.expand(values(new int[]{1, 2}), ListExpansion.EXACT));
+    }
+
+    @Test
+    public void arrayKeepsScalarInList() {
+        ParsedQuery query = QueryProcessor.parse("select * from t where a in (:a)", SqlDialect.POSTGRES);
+        Assert.assertSame(query.getSql(), query.expand(values(1), ListExpansion.ARRAY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentsMustMatchParams() {
+        new ParsedQuery(new String[]{"select "}, new String[]{"a"});
+    }
+
+    private static Map<String, Object> values(Object value) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", value);
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCacheTests {
+
+    @Test
+    public void returnsCachedQuery() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL);
+        ParsedQuery query = cache.get("select * from person where id=:id");
+        Assert.assertSame(query, cache.get("select * from person where id=:id"));
+        Assert.assertEquals("select * from person where id=?", query.getSql());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void sizeNeverExceedsCapacity() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL, 3);
+        for (int i = 0; i < 10; i++) {
+            cache.get("select " + i + " from dual where a=:a");
+            Assert.assertTrue(cache.size() <= 3);
+        }
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(10, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedQuery() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL, 3);
+        ParsedQuery hot = cache.get("select :hot");
+        for (int i = 0; i < 10; i++) {
+            cache.get("select " + i + ", :a");
+            Assert.assertSame(hot, cache.get("select :hot"));
+        }
+        ParsedQuery recent = cache.get("select 9, :a");
+        Assert.assertEquals(11, cache.getMissCount());
+        Assert.assertSame(recent, cache.get("select 9, :a"));
+        cache.get("select 8, :a");
+        Assert.assertEquals(11, cache.getMissCount());
+        cache.get("select 0, :a");
+        Assert.assertEquals(12, cache.getMissCount());
+    }
+
+    @Test
+    public void shrinkingCapacityEvictsOnNextMiss() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL, 5);
+        for (int i = 0; i < 5; i++) {
+            cache.get("select " + i + ", :a");
+        }
+        cache.setCapacity(2);
+        cache.get("select 5, :a");
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void zeroCapacityTurnsCachingOff() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL, 0);
+        ParsedQuery query = cache.get("select :a");
+        Assert.assertNotSame(query, cache.get("select :a"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void clearResetsEntriesAndCounters() {
+        QueryCache cache = new QueryCache(SqlDialect.MYSQL);
+        cache.get("select :a");
+        cache.get("select :a");
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(0, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacityIsRejected() {
+        new QueryCache(SqlDialect.MYSQL).setCapacity(-1);
+    }
+
+    @Test
+    public void parsesWithDialectOfCache() {
+        String query = "select `a:b`, :c";
+        Assert.assertEquals("select `a:b`, ?", new QueryCache(SqlDialect.MYSQL).get(query).getSql());
+        Assert.assertEquals("select `a?`, ?", new QueryCache(SqlDialect.POSTGRES).get(query).getSql());
+    }
+}
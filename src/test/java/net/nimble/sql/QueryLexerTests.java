@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QueryLexerTests {
+
+    @Test
+    public void findsParamsWithPositions() {
+        QueryLexer lexer = new QueryLexer("select * from t where a=:a and b_1=:b_1", null);
+        Assert.assertTrue(lexer.nextParam());
+        Assert.assertEquals("a", lexer.getParamName());
+        Assert.assertEquals(24, lexer.getParamStart());
+        Assert.assertEquals(26, lexer.getParamEnd());
+        Assert.assertTrue(lexer.nextParam());
+        Assert.assertEquals("b_1", lexer.getParamName());
+        Assert.assertFalse(lexer.nextParam());
+    }
+
+    @Test
+    public void skipsStringLiterals() {
+        assertParams(null, "select ':a', :b from t where c=':d'", "b");
+        assertParams(null, "select 'it''s :a', :b", "b");
+        assertParams(null, "select 'unterminated :a", new String[0]);
+    }
+
+    @Test
+    public void skipsQuotedIdentifiers() {
+        assertParams(null, "select \":a\", \"x\"\":b\", :c", "c");
+        assertParams(SqlDialect.MYSQL, "select `:a`, :b", "b");
+        assertParams(null, "select `:a`, :b", "a", "b");
+    }
+
+    @Test
+    public void skipsLineComments() {
+        assertParams(null, "select :a -- :b\n, :c", "a", "c");
+        assertParams(null, "select :a --:b", "a");
+        assertParams(null, "select :a - :b", "a", "b");
+        assertParams(SqlDialect.MYSQL, "select :a # :b\n, :c", "a", "c");
+        assertParams(SqlDialect.POSTGRES, "select :a # :b", "a", "b");
+    }
+
+    @Test
+    public void skipsBlockComments() {
+        assertParams(null, "select /* :a */ :b / :c", "b", "c");
+        assertParams(null, "select /* :a", new String[0]);
+        assertParams(SqlDialect.POSTGRES, "select /* /* :a */ :b */ :c", "c");
+        assertParams(SqlDialect.MYSQL, "select /* /* :a */ :b */ :c", "b", "c");
+    }
+
+    @Test
+    public void skipsDollarQuotes() {
+        assertParams(SqlDialect.POSTGRES, "select $$ :a $$, :b", "b");
+        assertParams(SqlDialect.POSTGRES, "select $body$ :a $$ :b $body$, :c", "c");
+        assertParams(SqlDialect.POSTGRES, "select $1, a$b, :c", "c");
+        assertParams(null, "select $$ :a $$", "a");
+    }
+
+    @Test
+    public void skipsCasts() {
+        assertParams(null, "select :a::int, b::text, :c", "a", "c");
+        assertParams(null, "select ::a", new String[0]);
+        assertParams(null, "select a := 1, :b", "b");
+    }
+
+    @Test
+    public void handlesEscapedQuotes() {
+        assertParams(SqlDialect.MYSQL, "select 'a\\' :b', :c", "c");
+        assertParams(SqlDialect.MYSQL, "select 'a\\\\', :b", "b");
+        assertParams(null, "select 'a\\', :b", "b");
+        assertParams(SqlDialect.POSTGRES, "select E'a\\' :b', :c", "c");
+        assertParams(SqlDialect.POSTGRES, "select e'a\\' :b', :c", "c");
+        assertParams(SqlDialect.POSTGRES, "select 'a\\', :b", "b");
+        assertParams(SqlDialect.POSTGRES, "select NONE'a\\', :b", "b");
+    }
+
+    private static void assertParams(SqlDialect dialect, String query, String... expected) {
+        QueryLexer lexer = new QueryLexer(query, dialect);
+        List<String> names = new ArrayList<>();
+        while (lexer.nextParam()) {
+            names.add(lexer.getParamName());
+        }
+        Assert.assertArrayEquals(query, expected, names.toArray());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class StatementCacheTests {
+
+    private Connection connection;
+
+    @Before
+    public void init() throws SQLException {
+        connection = DbUtils.createH2DataSource("MySQL", "statements").getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("insert into person (first_name, last_name, birth_date) values " +
+                    "('Tyrion', 'Lannister', '1980-01-01'), ('Jaime', 'Lannister', '1970-01-01')");
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void releasedStatementIsReused() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        PreparedStatement statement = cache.prepare("select 1", false);
+        cache.release(statement);
+        Assert.assertSame(statement, cache.prepare("select 1", false));
+        Assert.assertNotSame(statement, cache.prepare("select 1", true));
+    }
+
+    @Test
+    public void sameSqlWhileResultSetIsOpen() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        String sql = "select first_name from person where last_name=? order by id";
+        PreparedStatement first = cache.prepare(sql, false);
+        first.setString(1, "Lannister");
+        try (ResultSet outer = first.executeQuery()) {
+            Assert.assertTrue(outer.next());
+            Assert.assertEquals("Tyrion", outer.getString(1));
+
+            PreparedStatement second = cache.prepare(sql, false);
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(2, cache.getCheckedOutCount());
+            second.setString(1, "Stark");
+            try (ResultSet inner = second.executeQuery()) {
+                Assert.assertFalse(inner.next());
+            }
+            cache.release(second);
+            Assert.assertFalse(first.isClosed());
+
+            Assert.assertTrue(outer.next());
+            Assert.assertEquals("Jaime", outer.getString(1));
+        }
+        cache.release(first);
+        Assert.assertTrue(first.isClosed());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(0, cache.getCheckedOutCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement first = prepareAndRelease(cache, "select 1");
+        PreparedStatement second = prepareAndRelease(cache, "select 2");
+        Assert.assertSame(first, prepareAndRelease(cache, "select 1"));
+        PreparedStatement third = prepareAndRelease(cache, "select 3");
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(second.isClosed());
+        Assert.assertFalse(first.isClosed());
+        Assert.assertFalse(third.isClosed());
+        Assert.assertNotSame(second, prepareAndRelease(cache, "select 2"));
+    }
+
+    @Test
+    public void evictionSkipsCheckedOutStatements() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 1);
+        PreparedStatement inUse = cache.prepare("select 1", false);
+        prepareAndRelease(cache, "select 2");
+        prepareAndRelease(cache, "select 3");
+        Assert.assertFalse(inUse.isClosed());
+        try (ResultSet resultSet = inUse.executeQuery()) {
+            Assert.assertTrue(resultSet.next());
+        }
+
+        cache.release(inUse);
+        Assert.assertFalse(inUse.isClosed());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void zeroCapacityClosesOnRelease() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 0);
+        PreparedStatement statement = cache.prepare("select 1", false);
+        cache.release(statement);
+        Assert.assertTrue(statement.isClosed());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void closeClosesIdleStatements() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 4);
+        PreparedStatement idle = prepareAndRelease(cache, "select 1");
+        PreparedStatement inUse = cache.prepare("select 2", false);
+        cache.close();
+        Assert.assertTrue(idle.isClosed());
+        Assert.assertFalse(inUse.isClosed());
+        Assert.assertEquals(0, cache.size());
+        inUse.close();
+    }
+
+    private static PreparedStatement prepareAndRelease(StatementCache cache, String sql) throws SQLException {
+        PreparedStatement statement = cache.prepare(sql, false);
+        cache.release(statement);
+        return statement;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.sql;
+
+import net.nimble.tests.utils.DbUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class StatementTrackerTests {
+
+    private Connection connection;
+
+    @Before
+    public void init() throws SQLException {
+        connection = DbUtils.createH2DataSource("MySQL", "tracker").getConnection();
+    }
+
+    @After
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void closedStatementsAreNotCounted() throws SQLException {
+        StatementTracker tracker = new StatementTracker(false);
+        Statement closed = tracker.track(connection.createStatement());
+        tracker.track(connection.prepareStatement("select 1"));
+        closed.close();
+        Assert.assertEquals(1, tracker.getOpenCount());
+        Assert.assertEquals(1, tracker.closeAll());
+        Assert.assertEquals(0, tracker.getOpenCount());
+    }
+
+    @Test
+    public void closeAllClosesLeakedStatementsWithResultSets() throws SQLException {
+        StatementTracker tracker = new StatementTracker(true);
+        PreparedStatement statement = tracker.track(connection.prepareStatement("select 1"));
+        ResultSet resultSet = statement.executeQuery();
+        Assert.assertEquals(1, tracker.closeAll());
+        Assert.assertTrue(statement.isClosed());
+        Assert.assertTrue(resultSet.isClosed());
+    }
+
+    @Test
+    public void purgesClosedStatements() throws SQLException {
+        StatementTracker tracker = new StatementTracker(false);
+        for (int i = 0; i < 1000; i++) {
+            tracker.track(connection.createStatement()).close();
+        }
+        Assert.assertEquals(0, tracker.getOpenCount());
+        Assert.assertEquals(0, tracker.closeAll());
+    }
+}
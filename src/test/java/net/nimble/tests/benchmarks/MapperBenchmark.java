@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.tests.benchmarks;
+
+import net.nimble.conversion.ConverterManagerImpl;
+import net.nimble.meta.ColumnDescriptor;
+import net.nimble.meta.EntityDescriptor;
+import net.nimble.meta.EntityDescriptorRegistry;
+import net.nimble.meta.accessors.AccessStrategy;
+import net.nimble.meta.accessors.AccessorFactory;
+import net.nimble.meta.accessors.MethodHandleAccessorFactory;
+import net.nimble.meta.accessors.ReflectionAccessorFactory;
+import net.nimble.meta.generated.GeneratedEntityRegistry;
+import net.nimble.meta.mappers.ObjectMapper;
+import net.nimble.meta.mappers.ObjectMapperFactory;
+import net.nimble.tests.entities.Gender;
+import net.nimble.tests.entities.Person;
+import net.nimble.tests.utils.PeopleFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping of rows by {@code BeanMapper} with reflection and method handle accessors and by generated
+ * mapper classes, and reading of entity columns for inserts with both accessor factories. Rows are read from
+ * an in-memory {@code CachedRowSet}, so no database is needed. Run it with {@code mvn test-compile} followed by
+ * the {@link #main(String[])} method on the test class path.
+ * <p>
+ * Results on JDK 17.0.9 with a single CPU, two forks, ops/ms, higher is better. Mapping is dominated by reads
+ * of the row set, and on JDK 17 reflection itself calls generated accessors, so the factories are within the
+ * error of each other there:
+ * <pre>
+ * beanMapperReflection        1.482 &plusmn; 0.160
+ * beanMapperHandles           1.395 &plusmn; 0.192
+ * generatedMapper             1.597 &plusmn; 0.229
+ * readColumnsReflection    9687.175 &plusmn; 838.934
+ * readColumnsHandles      10575.169 &plusmn; 955.653
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int ROW_COUNT = 1000;
+
+    private CachedRowSet rowSet;
+    private ObjectMapperFactory reflectionFactory;
+    private ObjectMapperFactory handleFactory;
+    private ObjectMapperFactory generatedFactory;
+    private EntityDescriptor reflectionDescriptor;
+    private EntityDescriptor handleDescriptor;
+    private Person person;
+
+    @Setup
+    public void setUp() throws SQLException {
+        ConverterManagerImpl converterManager = new ConverterManagerImpl();
+        GeneratedEntityRegistry generatedEntityRegistry =
+                new GeneratedEntityRegistry(MapperBenchmark.class.getClassLoader());
+        reflectionFactory = new ObjectMapperFactory(converterManager, new ReflectionAccessorFactory(),
+                generatedEntityRegistry);
+        handleFactory = new ObjectMapperFactory(converterManager, new MethodHandleAccessorFactory(),
+                generatedEntityRegistry);
+        generatedFactory = new ObjectMapperFactory(converterManager, new MethodHandleAccessorFactory(),
+                generatedEntityRegistry);
+        generatedFactory.setGenerateMappers(true);
+        reflectionDescriptor = createDescriptor(new ReflectionAccessorFactory());
+        handleDescriptor = createDescriptor(new MethodHandleAccessorFactory());
+        person = PeopleFactory.createTyrion();
+        rowSet = createRowSet();
+    }
+
+    @Benchmark
+    public void beanMapperReflection(Blackhole blackhole) throws SQLException {
+        mapRows(reflectionFactory, blackhole);
+    }
+
+    @Benchmark
+    public void beanMapperHandles(Blackhole blackhole) throws SQLException {
+        mapRows(handleFactory, blackhole);
+    }
+
+    @Benchmark
+    public void generatedMapper(Blackhole blackhole) throws SQLException {
+        mapRows(generatedFactory, blackhole);
+    }
+
+    @Benchmark
+    public void readColumnsReflection(Blackhole blackhole) {
+        readColumns(reflectionDescriptor, blackhole);
+    }
+
+    @Benchmark
+    public void readColumnsHandles(Blackhole blackhole) {
+        readColumns(handleDescriptor, blackhole);
+    }
+
+    private void readColumns(EntityDescriptor descriptor, Blackhole blackhole) {
+        List<ColumnDescriptor> columns = descriptor.getWritableColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            blackhole.consume(columns.get(i).getValue(person));
+        }
+    }
+
+    private static EntityDescriptor createDescriptor(AccessorFactory accessorFactory) {
+        return new EntityDescriptorRegistry(accessorFactory, AccessStrategy.SETTER,
+                new GeneratedEntityRegistry(MapperBenchmark.class.getClassLoader())).getDescriptor(Person.class);
+    }
+
+    private void mapRows(ObjectMapperFactory factory, Blackhole blackhole) throws SQLException {
+        ObjectMapper mapper = factory.getObjectCreator(Person.class);
+        rowSet.beforeFirst();
+        while (rowSet.next()) {
+            blackhole.consume(mapper.create(rowSet));
+        }
+    }
+
+    private static CachedRowSet createRowSet() throws SQLException {
+        String[] columnNames = {"id", "first_name", "last_name", "birth_date", "gender", "weight", "height",
+                "cash_amount"};
+        int[] columnTypes = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.DOUBLE,
+                Types.DOUBLE, Types.DECIMAL};
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            metaData.setColumnName(i + 1, columnNames[i]);
+            metaData.setColumnLabel(i + 1, columnNames[i]);
+            metaData.setColumnType(i + 1, columnTypes[i]);
+        }
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rowSet.moveToInsertRow();
+            rowSet.updateInt(1, i + 1);
+            rowSet.updateString(2, "Tyrion" + i);
+            rowSet.updateString(3, "Lannister");
+            rowSet.updateDate(4, new Date(-459043200000L));
+            rowSet.updateString(5, (i % 2 == 0 ? Gender.MALE : Gender.FEMALE).toString());
+            rowSet.updateDouble(6, 45.99);
+            rowSet.updateDouble(7, 1.3);
+            rowSet.updateBigDecimal(8, new BigDecimal("99999.99"));
+            rowSet.insertRow();
+            rowSet.moveToCurrentRow();
+        }
+        return rowSet;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.tests.benchmarks;
+
+import net.nimble.sql.ParsedQuery;
+import net.nimble.sql.QueryProcessor;
+import net.nimble.sql.SqlDialect;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the former regular expression search of named parameters with the query lexer on a long
+ * reporting query. Run it with {@code mvn test-compile} followed by the {@link #main(String[])} method on
+ * the test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryParserBenchmark {
+
+    private static final Pattern PATTERN = Pattern.compile("(?::)([\\w_]+)");
+
+    private static final String QUERY =
+            "-- monthly revenue by region, parameters :from and :to are inclusive\n" +
+            "select r.name as region, date_trunc('month', o.created_at)::date as month,\n" +
+            "       count(distinct o.customer_id) as customers, sum(o.amount)::numeric(12, 2) as revenue,\n" +
+            "       sum(case when o.status = 'refunded' then o.amount else 0 end) as refunded\n" +
+            "from orders o\n" +
+            "  join customers c on c.id = o.customer_id\n" +
+            "  join regions r on r.id = c.region_id /* regions are filtered below */\n" +
+            "where o.created_at >= :from and o.created_at < :to\n" +
+            "  and r.code in (:regions) and o.currency = :currency\n" +
+            "  and o.channel <> 'internal: test' and coalesce(o.note, '') not like '%:skip%'\n" +
+            "  and exists (select 1 from payments p where p.order_id = o.id and p.state = :paymentState\n" +
+            "              and p.processed_at between :from and :to)\n" +
+            "group by r.name, date_trunc('month', o.created_at)\n" +
+            "having sum(o.amount) > :minRevenue\n" +
+            "order by r.name, month\n" +
+            "limit :limit offset :offset";
+
+    @Benchmark
+    public Object regex() {
+        List<String> segments = new ArrayList<>();
+        List<String> paramNames = new ArrayList<>();
+        Matcher matcher = PATTERN.matcher(QUERY);
+        int lastPosition = 0;
+        while (matcher.find()) {
+            segments.add(QUERY.substring(lastPosition, matcher.start()));
+            paramNames.add(matcher.group(1));
+            lastPosition = matcher.end();
+        }
+        segments.add(QUERY.substring(lastPosition));
+        return new ParsedQuery(segments.toArray(new String[segments.size()]),
+                paramNames.toArray(new String[paramNames.size()]));
+    }
+
+    @Benchmark
+    public Object lexer() {
+        return QueryProcessor.parse(QUERY, SqlDialect.POSTGRES);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
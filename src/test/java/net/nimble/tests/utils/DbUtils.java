@@ -25,6 +25,7 @@
 package net.nimble.tests.utils;
 
 import net.nimble.tests.config.TestConfig;
+import net.nimble.tests.utils.providers.H2DataSourceProvider;
 import net.nimble.tests.utils.providers.MariaDbDataSourceProvider;
 import net.nimble.tests.utils.providers.MysqlDataSourceProvider;
 import net.nimble.tests.utils.providers.PostgresDataSourceProvider;
@@ -33,6 +34,7 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class DbUtils {
 
@@ -57,6 +59,23 @@ public class DbUtils {
         }
     }
 
+    /**
+     * Creates an in-memory H2 database with an empty person table.
+     *
+     * @param mode Compatibility mode of H2, e.g. {@code MySQL} or {@code PostgreSQL}
+     */
+    public static DataSource createH2DataSource(String mode, String database) throws SQLException {
+        DataSource dataSource = new H2DataSourceProvider(mode).createDataSource(null, "sa", "", database);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists person");
+            statement.execute("create table person (id int auto_increment primary key, " +
+                    "first_name varchar(25) not null, last_name varchar(25) not null, birth_date date not null, " +
+                    "gender varchar(10), weight double null, height double null, cash_amount decimal(10,2))");
+        }
+        return dataSource;
+    }
+
     public static DataSource getDataSource() {
         if (dataSource == null) {
             switch (TestConfig.defaultDialect) {
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018. Saken Sultanbekov, ken.bekov@gmail.com
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.nimble.tests.utils;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+
+/**
+ * Creates in-memory result sets, so that mapping can be tested without a database.
+ */
+public class RowSetFactory {
+
+    public static CachedRowSet create(String[] columnNames, int[] columnTypes, Object[]... rows)
+            throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            metaData.setColumnName(i + 1, columnNames[i]);
+            metaData.setColumnLabel(i + 1, columnNames[i]);
+            metaData.setColumnType(i + 1, columnTypes[i]);
+            metaData.setNullable(i + 1, RowSetMetaDataImpl.columnNullable);
+        }
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        for (Object[] row : rows) {
+            rowSet.last();
+            rowSet.moveToInsertRow();
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    rowSet.updateNull(i + 1);
+                } else {
+                    rowSet.updateObject(i + 1, row[i]);
+                }
+            }
+            rowSet.insertRow();
+            rowSet.moveToCurrentRow();
+        }
+        rowSet.beforeFirst();
+        return rowSet;
+    }
+}